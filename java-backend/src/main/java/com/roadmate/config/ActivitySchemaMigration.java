@@ -0,0 +1,119 @@
+package com.roadmate.config;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.time.temporal.TemporalQuery;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves activities from the old free-text date/time columns to the typed
+ * activity_date/activity_time columns that ddl-auto adds.
+ *
+ * Each row is parsed on its own in the formats the app always wrote
+ * (YYYY-MM-DD, H:MM[:SS]), so one impossible value such as 2024-02-30 cannot
+ * fail the whole migration. Values that do not parse are left null and logged.
+ * The legacy columns are dropped only once every non-blank value has been
+ * converted; until then this re-runs on each startup, touching only rows that
+ * are still unconverted, and the logged rows can be fixed by hand.
+ */
+@Configuration
+public class ActivitySchemaMigration {
+
+    private static final String LEGACY_COLUMNS_SQL =
+            "SELECT count(*) FROM information_schema.columns " +
+            "WHERE table_schema = current_schema() AND table_name = 'activities' AND column_name IN ('date', 'time')";
+
+    private static final String PENDING_SQL =
+            "SELECT id, CASE WHEN activity_date IS NULL THEN date END AS date, " +
+            "CASE WHEN activity_time IS NULL THEN time END AS time FROM activities " +
+            "WHERE (activity_date IS NULL AND coalesce(btrim(date), '') <> '') " +
+            "OR (activity_time IS NULL AND coalesce(btrim(time), '') <> '')";
+
+    private static final String UPDATE_SQL =
+            "UPDATE activities SET activity_date = coalesce(activity_date, ?), " +
+            "activity_time = coalesce(activity_time, ?) WHERE id = ?";
+
+    private static final String[] DROP_STATEMENTS = {
+            "ALTER TABLE activities DROP COLUMN date",
+            "ALTER TABLE activities DROP COLUMN time"
+    };
+
+    private static final int SAMPLE_SIZE = 10;
+
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("uuuu-MM-dd").withResolverStyle(ResolverStyle.STRICT);
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("H:mm[:ss]").withResolverStyle(ResolverStyle.STRICT);
+
+    private record LegacyRow(long id, String date, String time) {
+    }
+
+    @Bean
+    CommandLineRunner migrateActivityDates(JdbcTemplate jdbcTemplate) {
+        return args -> {
+            Integer legacy = jdbcTemplate.queryForObject(LEGACY_COLUMNS_SQL, Integer.class);
+            if (legacy == null || legacy < 2) return;
+            try {
+                List<LegacyRow> rows = jdbcTemplate.query(PENDING_SQL, (rs, rowNum) ->
+                        new LegacyRow(rs.getLong("id"), rs.getString("date"), rs.getString("time")));
+
+                List<Object[]> updates = new ArrayList<>();
+                List<String> unconverted = new ArrayList<>();
+                for (LegacyRow row : rows) {
+                    LocalDate date = parse(row.date(), DATE_FORMAT, LocalDate::from);
+                    LocalTime time = parse(row.time(), TIME_FORMAT, LocalTime::from);
+                    if (date != null || time != null) {
+                        updates.add(new Object[] {
+                                date != null ? Date.valueOf(date) : null,
+                                time != null ? Time.valueOf(time) : null,
+                                row.id() });
+                    }
+                    if ((date == null && !isBlank(row.date())) || (time == null && !isBlank(row.time()))) {
+                        unconverted.add("id=" + row.id() + " date='" + row.date() + "' time='" + row.time() + "'");
+                    }
+                }
+                if (!updates.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+                }
+
+                if (!unconverted.isEmpty()) {
+                    System.err.println("Activity date/time migration: converted " + updates.size() + " rows, "
+                            + unconverted.size() + " could not be parsed; keeping legacy columns. First: "
+                            + unconverted.subList(0, Math.min(SAMPLE_SIZE, unconverted.size())));
+                    return;
+                }
+                for (String statement : DROP_STATEMENTS) {
+                    jdbcTemplate.execute(statement);
+                }
+                System.out.println("Migrated " + updates.size() + " activities to typed date/time columns.");
+            } catch (Exception e) {
+                // Nothing is dropped on failure; converted rows are kept and the rest retried next startup
+                System.err.println("Activity date/time migration failed: " + e.getMessage());
+            }
+        };
+    }
+
+    private static <T> T parse(String value, DateTimeFormatter format, TemporalQuery<T> query) {
+        if (isBlank(value)) return null;
+        try {
+            return format.parse(value.trim(), query);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
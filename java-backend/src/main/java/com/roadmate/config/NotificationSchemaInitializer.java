@@ -0,0 +1,32 @@
+package com.roadmate.config;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Notification indexes that JPA annotations cannot describe.
+ *
+ * idx_notifications_unread only holds unread rows, so it stays small however
+ * long the history grows and the unread badge count is an index-only scan.
+ * The ascending (user_id, created_at) index it replaces is superseded by
+ * idx_notifications_inbox. Every statement is idempotent, so this runs on each startup.
+ */
+@Configuration
+public class NotificationSchemaInitializer {
+
+    private static final String[] STATEMENTS = {
+            "CREATE INDEX IF NOT EXISTS idx_notifications_unread ON notifications (user_id) WHERE is_read = false",
+            "DROP INDEX IF EXISTS idx_notifications_user_created"
+    };
+
+    @Bean
+    CommandLineRunner initNotificationSchema(JdbcTemplate jdbcTemplate) {
+        return args -> {
+            for (String statement : STATEMENTS) {
+                jdbcTemplate.execute(statement);
+            }
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package com.roadmate.config;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Full-text search columns that Hibernate's ddl-auto cannot create.
+ *
+ * search_vector is a stored generated column, so Postgres keeps it current on
+ * every insert and update without application code. Titles weigh more than
+ * descriptions in ranking. The 'simple' configuration is used because content
+ * mixes Turkish and English, and a single-language stemmer would mangle the other.
+ * Every statement is idempotent, so this runs on each startup.
+ */
+@Configuration
+public class SearchSchemaInitializer {
+
+    private static final String[] STATEMENTS = {
+            "ALTER TABLE discussions ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (" +
+            "setweight(to_tsvector('simple', coalesce(title, '')), 'A') || " +
+            "setweight(to_tsvector('simple', coalesce(tag, '')), 'B') || " +
+            "setweight(to_tsvector('simple', coalesce(description, '')), 'C')) STORED",
+            "CREATE INDEX IF NOT EXISTS idx_discussions_search ON discussions USING GIN (search_vector)",
+
+            "ALTER TABLE assist_requests ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (" +
+            "setweight(to_tsvector('simple', coalesce(title, '')), 'A') || " +
+            "setweight(to_tsvector('simple', coalesce(description, '')), 'C')) STORED",
+            "CREATE INDEX IF NOT EXISTS idx_assist_requests_search ON assist_requests USING GIN (search_vector)"
+    };
+
+    @Bean
+    CommandLineRunner initSearchSchema(JdbcTemplate jdbcTemplate) {
+        return args -> {
+            for (String statement : STATEMENTS) {
+                jdbcTemplate.execute(statement);
+            }
+        };
+    }
+}
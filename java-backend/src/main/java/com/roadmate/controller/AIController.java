@@ -3,8 +3,7 @@ package com.roadmate.controller;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.roadmate.model.User;
-import com.roadmate.repository.UserRepository;
-import com.roadmate.security.JwtUtils;
+import com.roadmate.security.CurrentUser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -21,12 +20,6 @@ import java.util.*;
 @CrossOrigin(origins = "*")
 public class AIController {
 
-    @Autowired
-    private UserRepository userRepository;
-
-    @Autowired
-    private JwtUtils jwtUtils;
-
     private static final String GEMINI_API_URL = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.0-flash:generateContent";
     private static final ObjectMapper objectMapper = new ObjectMapper();
     private static final HttpClient httpClient = HttpClient.newHttpClient();
@@ -38,10 +31,9 @@ public class AIController {
 
     @PostMapping("/chat")
     public ResponseEntity<?> chat(
-            @RequestHeader("Authorization") String authHeader,
+            @CurrentUser(required = false) User user,
             @RequestBody Map<String, Object> payload) {
         try {
-            User user = getUserFromToken(authHeader);
             if (user == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
@@ -114,10 +106,4 @@ public class AIController {
         }
     }
 
-    private User getUserFromToken(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) return null;
-        String token = authHeader.substring(7);
-        String email = jwtUtils.getEmailFromJwtToken(token);
-        return userRepository.findByEmail(email).orElse(null);
-    }
 }
@@ -3,13 +3,14 @@ package com.roadmate.controller;
 import com.roadmate.dto.ActivityDto;
 import com.roadmate.dto.CreateActivityRequest;
 import com.roadmate.dto.UpdateActivityRequest;
+import com.roadmate.exception.BadRequestException;
 import com.roadmate.model.User;
-import com.roadmate.repository.UserRepository;
-import com.roadmate.security.JwtUtils;
+import com.roadmate.security.CurrentUser;
 import com.roadmate.service.ActivityService;
 import com.roadmate.service.FileStorageService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -29,37 +30,49 @@ public class ActivityController {
     @Autowired
     private FileStorageService fileStorageService;
 
-    @Autowired
-    private UserRepository userRepository;
-
-    @Autowired
-    private JwtUtils jwtUtils;
+    private static final int FEED_PAGE_SIZE = 30;
+    private static final int MAX_FEED_PAGE_SIZE = 100;
+    private static final double DEFAULT_NEARBY_RADIUS_KM = 100.0;
+    private static final double MAX_NEARBY_RADIUS_KM = 500.0;
 
-    private User getCurrentUser(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Authorization required");
+    // Get activities (from connected users + own), newest first, one page at a time
+    @GetMapping
+    public ResponseEntity<List<ActivityDto>> getActivities(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + FEED_PAGE_SIZE) int size,
+            @CurrentUser User currentUser) {
+        Slice<ActivityDto> slice = activityService.getActivities(
+                currentUser, Math.max(page, 0), Math.min(Math.max(size, 1), MAX_FEED_PAGE_SIZE));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (slice.hasNext()) {
+            response.header("X-Next-Page", String.valueOf(slice.getNumber() + 1));
         }
-        String token = authHeader.substring(7);
-        String email = jwtUtils.getEmailFromJwtToken(token);
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return response.body(slice.getContent());
     }
 
-    // Get activities (from connected users + own)
-    @GetMapping
-    public ResponseEntity<List<ActivityDto>> getActivities(
-            @RequestHeader("Authorization") String authHeader) {
-        User currentUser = getCurrentUser(authHeader);
-        List<ActivityDto> dtos = activityService.getActivities(currentUser);
-        return ResponseEntity.ok(dtos);
+    // Upcoming activities around a point (defaults to the caller's last location), soonest first
+    @GetMapping("/upcoming")
+    public ResponseEntity<List<ActivityDto>> getUpcomingNearby(
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lng,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(defaultValue = "" + FEED_PAGE_SIZE) int limit,
+            @CurrentUser User currentUser) {
+        Double originLat = lat != null ? lat : currentUser.getLatitude();
+        Double originLng = lng != null ? lng : currentUser.getLongitude();
+        if (originLat == null || originLng == null) {
+            throw new BadRequestException("Location is required");
+        }
+        double radius = radiusKm != null ? Math.min(Math.max(radiusKm, 1), MAX_NEARBY_RADIUS_KM) : DEFAULT_NEARBY_RADIUS_KM;
+        return ResponseEntity.ok(activityService.getUpcomingNear(
+                currentUser, originLat, originLng, radius, Math.min(Math.max(limit, 1), MAX_FEED_PAGE_SIZE)));
     }
 
     // Upload activity image
     @PostMapping("/upload-image")
     public ResponseEntity<Map<String, String>> uploadImage(
             @RequestParam("file") MultipartFile file,
-            @RequestHeader("Authorization") String authHeader) {
-        getCurrentUser(authHeader); // Verify auth
+            @CurrentUser User currentUser) {
         
         String fileName = fileStorageService.store(file);
         
@@ -75,8 +88,7 @@ public class ActivityController {
     @PostMapping
     public ResponseEntity<ActivityDto> createActivity(
             @Valid @RequestBody CreateActivityRequest request,
-            @RequestHeader("Authorization") String authHeader) {
-        User creator = getCurrentUser(authHeader);
+            @CurrentUser User creator) {
         ActivityDto dto = activityService.createActivity(creator, request);
         return ResponseEntity.ok(dto);
     }
@@ -85,9 +97,7 @@ public class ActivityController {
     @PostMapping("/{activityId}/join")
     public ResponseEntity<Map<String, Object>> joinActivity(
             @PathVariable Long activityId,
-            @RequestHeader("Authorization") String authHeader) {
-        User currentUser = getCurrentUser(authHeader);
-
+            @CurrentUser User currentUser) {
         try {
             activityService.joinActivity(currentUser, activityId);
             return ResponseEntity.ok(Map.of(
@@ -106,9 +116,7 @@ public class ActivityController {
     @PostMapping("/{activityId}/leave")
     public ResponseEntity<Map<String, Object>> leaveActivity(
             @PathVariable Long activityId,
-            @RequestHeader("Authorization") String authHeader) {
-        User currentUser = getCurrentUser(authHeader);
-
+            @CurrentUser User currentUser) {
         try {
             activityService.leaveActivity(currentUser, activityId);
             return ResponseEntity.ok(Map.of(
@@ -127,8 +135,7 @@ public class ActivityController {
     @GetMapping("/{activityId}")
     public ResponseEntity<ActivityDto> getActivity(
             @PathVariable Long activityId,
-            @RequestHeader("Authorization") String authHeader) {
-        User currentUser = getCurrentUser(authHeader);
+            @CurrentUser User currentUser) {
         ActivityDto dto = activityService.getActivity(activityId, currentUser);
         return ResponseEntity.ok(dto);
     }
@@ -138,9 +145,8 @@ public class ActivityController {
     public ResponseEntity<?> updateActivity(
             @PathVariable Long activityId,
             @Valid @RequestBody UpdateActivityRequest request,
-            @RequestHeader("Authorization") String authHeader) {
+            @CurrentUser User currentUser) {
         try {
-            User currentUser = getCurrentUser(authHeader);
             ActivityDto dto = activityService.updateActivity(currentUser, activityId, request);
             return ResponseEntity.ok(dto);
         } catch (RuntimeException e) {
@@ -155,8 +161,7 @@ public class ActivityController {
     @PutMapping("/{activityId}/cancel")
     public ResponseEntity<Map<String, Object>> cancelActivity(
             @PathVariable Long activityId,
-            @RequestHeader("Authorization") String authHeader) {
-        User currentUser = getCurrentUser(authHeader);
+            @CurrentUser User currentUser) {
         try {
             activityService.cancelActivity(currentUser, activityId);
             return ResponseEntity.ok(Map.of(
@@ -5,10 +5,12 @@ import com.roadmate.model.AssistRequest;
 import com.roadmate.model.User;
 import com.roadmate.repository.AssistMessageRepository;
 import com.roadmate.repository.AssistRequestRepository;
-import com.roadmate.repository.UserRepository;
-import com.roadmate.security.JwtUtils;
+import com.roadmate.repository.SearchHit;
+import com.roadmate.security.CurrentUser;
+import com.roadmate.util.SearchCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
@@ -28,21 +30,14 @@ public class AssistController {
     @Autowired
     private AssistMessageRepository assistMessageRepository;
 
-    @Autowired
-    private UserRepository userRepository;
-
-    @Autowired
-    private JwtUtils jwtUtils;
-
     /**
      * Create a new assist request - available to everyone.
      */
     @PostMapping
     public ResponseEntity<?> createAssistRequest(
-            @RequestHeader("Authorization") String authHeader,
+            @CurrentUser(required = false) User user,
             @RequestBody Map<String, Object> payload) {
         try {
-            User user = getUserFromToken(authHeader);
             if (user == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
@@ -87,6 +82,45 @@ public class AssistController {
         }
     }
 
+    /**
+     * Full-text search over assist requests, best matches first.
+     * Optional query param: status (open/resolved). Pass X-Next-Cursor back as cursor for the next page.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchAssistRequests(
+            @RequestParam String q,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        if (q.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Search query is required"));
+        }
+        int pageSize = Math.min(Math.max(limit, 1), 100);
+        SearchCursor after = SearchCursor.parse(cursor);
+        List<SearchHit> hits = assistRequestRepository.search(
+                q.trim(), status != null ? status : "", after.rank(), after.id(), pageSize);
+        if (hits.isEmpty()) {
+            return ResponseEntity.ok(List.of());
+        }
+
+        Map<Long, AssistRequest> requests = assistRequestRepository
+                .findWithUserByIdIn(hits.stream().map(SearchHit::getId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(AssistRequest::getId, r -> r));
+        List<Map<String, Object>> result = hits.stream()
+                .map(hit -> requests.get(hit.getId()))
+                .filter(r -> r != null)
+                .map(this::mapRequestToDto)
+                .collect(Collectors.toList());
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (hits.size() == pageSize) {
+            SearchHit last = hits.get(hits.size() - 1);
+            response.header("X-Next-Cursor", new SearchCursor(last.getRank(), last.getId()).encode());
+        }
+        return response.body(result);
+    }
+
     /**
      * Get assist request detail with messages.
      */
@@ -122,12 +156,12 @@ public class AssistController {
      * Add a message/solution to an assist request.
      */
     @PostMapping("/{id}/message")
+    @Transactional
     public ResponseEntity<?> addMessage(
             @PathVariable Long id,
-            @RequestHeader("Authorization") String authHeader,
+            @CurrentUser(required = false) User user,
             @RequestBody Map<String, Object> payload) {
         try {
-            User user = getUserFromToken(authHeader);
             if (user == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
@@ -144,6 +178,7 @@ public class AssistController {
                 .build();
 
             AssistMessage saved = assistMessageRepository.save(message);
+            assistRequestRepository.adjustMessageCount(id, 1);
 
             Map<String, Object> mDto = new LinkedHashMap<>();
             mDto.put("id", saved.getId());
@@ -165,10 +200,9 @@ public class AssistController {
     @PutMapping("/{id}")
     public ResponseEntity<?> editAssistRequest(
             @PathVariable Long id,
-            @RequestHeader("Authorization") String authHeader,
+            @CurrentUser(required = false) User user,
             @RequestBody Map<String, Object> payload) {
         try {
-            User user = getUserFromToken(authHeader);
             if (user == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
@@ -202,9 +236,8 @@ public class AssistController {
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteAssistRequest(
             @PathVariable Long id,
-            @RequestHeader("Authorization") String authHeader) {
+            @CurrentUser(required = false) User user) {
         try {
-            User user = getUserFromToken(authHeader);
             if (user == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
@@ -235,9 +268,8 @@ public class AssistController {
     @PutMapping("/{id}/resolve")
     public ResponseEntity<?> resolveAssistRequest(
             @PathVariable Long id,
-            @RequestHeader("Authorization") String authHeader) {
+            @CurrentUser(required = false) User user) {
         try {
-            User user = getUserFromToken(authHeader);
             if (user == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
@@ -272,8 +304,7 @@ public class AssistController {
         dto.put("userId", request.getUser().getId());
         dto.put("userName", request.getUser().getName());
         dto.put("userImage", getUserImage(request.getUser()));
-        long messageCount = assistMessageRepository.countByAssistRequestId(request.getId());
-        dto.put("messageCount", messageCount);
+        dto.put("messageCount", request.getMessageCount());
         return dto;
     }
 
@@ -284,10 +315,4 @@ public class AssistController {
         return user.getImage();
     }
 
-    private User getUserFromToken(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) return null;
-        String token = authHeader.substring(7);
-        String email = jwtUtils.getEmailFromJwtToken(token);
-        return userRepository.findByEmail(email).orElse(null);
-    }
 }
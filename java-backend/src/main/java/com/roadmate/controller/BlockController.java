@@ -4,7 +4,8 @@ import com.roadmate.model.BlockedUser;
 import com.roadmate.model.User;
 import com.roadmate.repository.BlockedUserRepository;
 import com.roadmate.repository.UserRepository;
-import com.roadmate.security.JwtUtils;
+import com.roadmate.security.CurrentUser;
+import com.roadmate.service.BlockRelationCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,26 +28,14 @@ public class BlockController {
     private UserRepository userRepository;
 
     @Autowired
-    private JwtUtils jwtUtils;
-
-    private User getCurrentUser(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Authorization required");
-        }
-        String token = authHeader.substring(7);
-        String email = jwtUtils.getEmailFromJwtToken(token);
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-    }
+    private BlockRelationCache blockRelationCache;
 
     // Block a user
     @PostMapping("/{userId}")
     public ResponseEntity<?> blockUser(
             @PathVariable Long userId,
-            @RequestHeader("Authorization") String authHeader) {
+            @CurrentUser User currentUser) {
         try {
-            User currentUser = getCurrentUser(authHeader);
-
             if (currentUser.getId().equals(userId)) {
                 return ResponseEntity.badRequest().body(Map.of("error", "You cannot block yourself"));
             }
@@ -65,6 +54,7 @@ public class BlockController {
                     .build();
 
             blockedUserRepository.save(block);
+            blockRelationCache.invalidate(currentUser.getId(), userId);
 
             return ResponseEntity.ok(Map.of(
                     "success", true,
@@ -80,15 +70,14 @@ public class BlockController {
     @Transactional
     public ResponseEntity<?> unblockUser(
             @PathVariable Long userId,
-            @RequestHeader("Authorization") String authHeader) {
+            @CurrentUser User currentUser) {
         try {
-            User currentUser = getCurrentUser(authHeader);
-
             if (!blockedUserRepository.existsByBlockerIdAndBlockedId(currentUser.getId(), userId)) {
                 return ResponseEntity.badRequest().body(Map.of("error", "User is not blocked"));
             }
 
             blockedUserRepository.deleteByBlockerIdAndBlockedId(currentUser.getId(), userId);
+            blockRelationCache.invalidate(currentUser.getId(), userId);
 
             return ResponseEntity.ok(Map.of(
                     "success", true,
@@ -102,10 +91,8 @@ public class BlockController {
     // Get blocked users list
     @GetMapping
     public ResponseEntity<?> getBlockedUsers(
-            @RequestHeader("Authorization") String authHeader) {
+            @CurrentUser User currentUser) {
         try {
-            User currentUser = getCurrentUser(authHeader);
-
             List<BlockedUser> blockedUsers = blockedUserRepository.findByBlockerId(currentUser.getId());
 
             List<Map<String, Object>> result = blockedUsers.stream().map(b -> {
@@ -129,10 +116,8 @@ public class BlockController {
     @GetMapping("/check/{userId}")
     public ResponseEntity<?> checkBlocked(
             @PathVariable Long userId,
-            @RequestHeader("Authorization") String authHeader) {
+            @CurrentUser User currentUser) {
         try {
-            User currentUser = getCurrentUser(authHeader);
-
             boolean isBlocked = blockedUserRepository.existsByBlockerIdAndBlockedId(currentUser.getId(), userId);
             boolean isBlockedByThem = blockedUserRepository.existsByBlockerIdAndBlockedId(userId, currentUser.getId());
 
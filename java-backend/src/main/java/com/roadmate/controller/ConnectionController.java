@@ -1,13 +1,11 @@
 package com.roadmate.controller;
 
 import com.roadmate.dto.ConnectionDTO;
-import com.roadmate.model.User;
-import com.roadmate.repository.UserRepository;
+import com.roadmate.security.CurrentUser;
+import com.roadmate.security.UserPrincipal;
 import com.roadmate.service.ConnectionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -20,7 +18,6 @@ import java.util.Map;
 public class ConnectionController {
 
     private final ConnectionService connectionService;
-    private final UserRepository userRepository;
 
     /**
      * QR tarandığında bağlantı isteği gönder
@@ -29,9 +26,9 @@ public class ConnectionController {
     @PostMapping("/scan/{targetUserId}")
     public ResponseEntity<?> connectByQR(
             @PathVariable Long targetUserId,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @CurrentUser UserPrincipal principal) {
         try {
-            Long userId = getUserIdFromDetails(userDetails);
+            Long userId = principal.getId();
             ConnectionDTO connection = connectionService.connectByQR(userId, targetUserId);
             
             Map<String, Object> response = new HashMap<>();
@@ -54,8 +51,8 @@ public class ConnectionController {
      */
     @GetMapping("/my")
     public ResponseEntity<List<ConnectionDTO>> getMyConnections(
-            @AuthenticationPrincipal UserDetails userDetails) {
-        Long userId = getUserIdFromDetails(userDetails);
+            @CurrentUser UserPrincipal principal) {
+        Long userId = principal.getId();
         List<ConnectionDTO> connections = connectionService.getMyConnections(userId);
         return ResponseEntity.ok(connections);
     }
@@ -66,8 +63,8 @@ public class ConnectionController {
      */
     @GetMapping("/pending")
     public ResponseEntity<List<ConnectionDTO>> getPendingRequests(
-            @AuthenticationPrincipal UserDetails userDetails) {
-        Long userId = getUserIdFromDetails(userDetails);
+            @CurrentUser UserPrincipal principal) {
+        Long userId = principal.getId();
         List<ConnectionDTO> pending = connectionService.getPendingRequests(userId);
         return ResponseEntity.ok(pending);
     }
@@ -78,8 +75,8 @@ public class ConnectionController {
      */
     @GetMapping("/count")
     public ResponseEntity<Map<String, Long>> getConnectionCount(
-            @AuthenticationPrincipal UserDetails userDetails) {
-        Long userId = getUserIdFromDetails(userDetails);
+            @CurrentUser UserPrincipal principal) {
+        Long userId = principal.getId();
         Long count = connectionService.getConnectionCount(userId);
         
         Map<String, Long> response = new HashMap<>();
@@ -94,9 +91,9 @@ public class ConnectionController {
     @PutMapping("/{connectionId}/accept")
     public ResponseEntity<?> acceptConnection(
             @PathVariable Long connectionId,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @CurrentUser UserPrincipal principal) {
         try {
-            Long userId = getUserIdFromDetails(userDetails);
+            Long userId = principal.getId();
             ConnectionDTO connection = connectionService.acceptConnection(connectionId, userId);
             
             Map<String, Object> response = new HashMap<>();
@@ -120,9 +117,9 @@ public class ConnectionController {
     @PutMapping("/{connectionId}/reject")
     public ResponseEntity<?> rejectConnection(
             @PathVariable Long connectionId,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @CurrentUser UserPrincipal principal) {
         try {
-            Long userId = getUserIdFromDetails(userDetails);
+            Long userId = principal.getId();
             ConnectionDTO connection = connectionService.rejectConnection(connectionId, userId);
             
             Map<String, Object> response = new HashMap<>();
@@ -146,9 +143,9 @@ public class ConnectionController {
     @PostMapping("/request/{targetUserId}")
     public ResponseEntity<?> sendConnectionRequest(
             @PathVariable Long targetUserId,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @CurrentUser UserPrincipal principal) {
         try {
-            Long userId = getUserIdFromDetails(userDetails);
+            Long userId = principal.getId();
             ConnectionDTO connection = connectionService.sendConnectionRequest(userId, targetUserId);
 
             Map<String, Object> response = new HashMap<>();
@@ -172,8 +169,8 @@ public class ConnectionController {
     @GetMapping("/status/{userId}")
     public ResponseEntity<Map<String, String>> getConnectionStatus(
             @PathVariable Long userId,
-            @AuthenticationPrincipal UserDetails userDetails) {
-        Long currentUserId = getUserIdFromDetails(userDetails);
+            @CurrentUser UserPrincipal principal) {
+        Long currentUserId = principal.getId();
         String status = connectionService.getConnectionStatus(currentUserId, userId);
 
         Map<String, String> response = new HashMap<>();
@@ -188,9 +185,9 @@ public class ConnectionController {
     @DeleteMapping("/user/{userId}")
     public ResponseEntity<?> removeConnection(
             @PathVariable Long userId,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @CurrentUser UserPrincipal principal) {
         try {
-            Long currentUserId = getUserIdFromDetails(userDetails);
+            Long currentUserId = principal.getId();
             connectionService.removeConnection(currentUserId, userId);
 
             Map<String, Object> response = new HashMap<>();
@@ -204,13 +201,4 @@ public class ConnectionController {
             return ResponseEntity.badRequest().body(error);
         }
     }
-
-    /**
-     * UserDetails'dan userId'yi al
-     */
-    private Long getUserIdFromDetails(UserDetails userDetails) {
-        User user = userRepository.findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Kullanıcı bulunamadı"));
-        return user.getId();
-    }
 }
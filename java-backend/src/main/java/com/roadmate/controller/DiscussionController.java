@@ -4,13 +4,15 @@ import com.roadmate.dto.CreateCommentRequest;
 import com.roadmate.dto.CreateDiscussionRequest;
 import com.roadmate.dto.DiscussionCommentDto;
 import com.roadmate.dto.DiscussionDto;
+import com.roadmate.dto.SearchPage;
+import com.roadmate.exception.BadRequestException;
 import com.roadmate.model.User;
-import com.roadmate.repository.UserRepository;
-import com.roadmate.security.JwtUtils;
+import com.roadmate.security.CurrentUser;
 import com.roadmate.service.DiscussionService;
 import com.roadmate.service.FileStorageService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -30,37 +32,49 @@ public class DiscussionController {
     @Autowired
     private FileStorageService fileStorageService;
 
-    @Autowired
-    private UserRepository userRepository;
-
-    @Autowired
-    private JwtUtils jwtUtils;
+    private static final int FEED_PAGE_SIZE = 30;
+    private static final int MAX_FEED_PAGE_SIZE = 100;
 
-    private User getCurrentUser(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Authorization required");
+    // Get discussions, newest first, one page at a time
+    @GetMapping
+    public ResponseEntity<List<DiscussionDto>> getDiscussions(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + FEED_PAGE_SIZE) int size,
+            @CurrentUser User currentUser) {
+        Slice<DiscussionDto> slice = discussionService.getDiscussions(
+                currentUser, Math.max(page, 0), Math.min(Math.max(size, 1), MAX_FEED_PAGE_SIZE));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (slice.hasNext()) {
+            response.header("X-Next-Page", String.valueOf(slice.getNumber() + 1));
         }
-        String token = authHeader.substring(7);
-        String email = jwtUtils.getEmailFromJwtToken(token);
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return response.body(slice.getContent());
     }
 
-    // Get all discussions
-    @GetMapping
-    public ResponseEntity<List<DiscussionDto>> getDiscussions(
-            @RequestHeader("Authorization") String authHeader) {
-        User currentUser = getCurrentUser(authHeader);
-        List<DiscussionDto> dtos = discussionService.getDiscussions(currentUser);
-        return ResponseEntity.ok(dtos);
+    // Full-text search, best matches first; pass X-Next-Cursor back as cursor for the next page
+    @GetMapping("/search")
+    public ResponseEntity<List<DiscussionDto>> searchDiscussions(
+            @RequestParam String q,
+            @RequestParam(required = false) String tag,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + FEED_PAGE_SIZE) int limit,
+            @CurrentUser User currentUser) {
+        if (q.isBlank()) {
+            throw new BadRequestException("Search query is required");
+        }
+        SearchPage<DiscussionDto> page = discussionService.searchDiscussions(
+                currentUser, q.trim(), tag, cursor, Math.min(Math.max(limit, 1), MAX_FEED_PAGE_SIZE));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header("X-Next-Cursor", page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
 
     // Get single discussion
     @GetMapping("/{id}")
     public ResponseEntity<DiscussionDto> getDiscussion(
             @PathVariable Long id,
-            @RequestHeader("Authorization") String authHeader) {
-        User currentUser = getCurrentUser(authHeader);
+            @CurrentUser User currentUser) {
         DiscussionDto dto = discussionService.getDiscussion(id, currentUser);
         return ResponseEntity.ok(dto);
     }
@@ -69,8 +83,7 @@ public class DiscussionController {
     @PostMapping
     public ResponseEntity<DiscussionDto> createDiscussion(
             @Valid @RequestBody CreateDiscussionRequest request,
-            @RequestHeader("Authorization") String authHeader) {
-        User creator = getCurrentUser(authHeader);
+            @CurrentUser User creator) {
         DiscussionDto dto = discussionService.createDiscussion(creator, request);
         return ResponseEntity.ok(dto);
     }
@@ -79,9 +92,7 @@ public class DiscussionController {
     @PostMapping("/upload-image")
     public ResponseEntity<Map<String, String>> uploadImage(
             @RequestParam("file") MultipartFile file,
-            @RequestHeader("Authorization") String authHeader) {
-        getCurrentUser(authHeader); // Verify auth
-
+            @CurrentUser User currentUser) {
         String fileName = fileStorageService.store(file);
 
         String fileDownloadUri = ServletUriComponentsBuilder.fromCurrentContextPath()
@@ -96,8 +107,7 @@ public class DiscussionController {
     @GetMapping("/{id}/comments")
     public ResponseEntity<List<DiscussionCommentDto>> getComments(
             @PathVariable Long id,
-            @RequestHeader("Authorization") String authHeader) {
-        getCurrentUser(authHeader); // Verify auth
+            @CurrentUser User currentUser) {
         List<DiscussionCommentDto> comments = discussionService.getComments(id);
         return ResponseEntity.ok(comments);
     }
@@ -107,8 +117,7 @@ public class DiscussionController {
     public ResponseEntity<DiscussionCommentDto> addComment(
             @PathVariable Long id,
             @Valid @RequestBody CreateCommentRequest request,
-            @RequestHeader("Authorization") String authHeader) {
-        User author = getCurrentUser(authHeader);
+            @CurrentUser User author) {
         DiscussionCommentDto comment = discussionService.addComment(author, id, request.getText());
         return ResponseEntity.ok(comment);
     }
@@ -117,8 +126,7 @@ public class DiscussionController {
     @PostMapping("/{id}/bookmark")
     public ResponseEntity<Map<String, Object>> toggleBookmark(
             @PathVariable Long id,
-            @RequestHeader("Authorization") String authHeader) {
-        User user = getCurrentUser(authHeader);
+            @CurrentUser User user) {
         boolean isSaved = discussionService.toggleBookmark(user, id);
         return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -129,8 +137,7 @@ public class DiscussionController {
     // Get saved discussions
     @GetMapping("/saved")
     public ResponseEntity<List<DiscussionDto>> getSavedDiscussions(
-            @RequestHeader("Authorization") String authHeader) {
-        User user = getCurrentUser(authHeader);
+            @CurrentUser User user) {
         List<DiscussionDto> dtos = discussionService.getSavedDiscussions(user);
         return ResponseEntity.ok(dtos);
     }
@@ -0,0 +1,27 @@
+package com.roadmate.controller;
+
+import com.roadmate.security.CurrentUser;
+import com.roadmate.security.UserPrincipal;
+import com.roadmate.service.EventStreamService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/events")
+@CrossOrigin(origins = "*")
+public class EventStreamController {
+
+    @Autowired
+    private EventStreamService eventStreamService;
+
+    /**
+     * Push channel for the signed-in user. Events: "message" (MessageDto),
+     * "notification" (NotificationDto) and "sos" (alert details).
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@CurrentUser UserPrincipal principal) {
+        return eventStreamService.open(principal.getId());
+    }
+}
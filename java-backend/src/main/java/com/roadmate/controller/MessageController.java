@@ -3,14 +3,18 @@ package com.roadmate.controller;
 import com.roadmate.dto.ConversationDto;
 import com.roadmate.dto.MessageDto;
 import com.roadmate.dto.SendMessageRequest;
+import com.roadmate.model.ConversationSummary;
 import com.roadmate.model.Message;
-import com.roadmate.model.Notification;
 import com.roadmate.model.User;
-import com.roadmate.repository.BlockedUserRepository;
 import com.roadmate.repository.MessageRepository;
-import com.roadmate.repository.NotificationRepository;
 import com.roadmate.repository.UserRepository;
-import com.roadmate.security.JwtUtils;
+import com.roadmate.security.CurrentUser;
+import com.roadmate.service.BlockRelationCache;
+import com.roadmate.service.ConversationSummaryService;
+import com.roadmate.service.NotificationService;
+import com.roadmate.service.RealtimeEventPublisher;
+import com.roadmate.service.UnreadCounterStore;
+import com.roadmate.util.LongHashSet;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -27,6 +31,9 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "*")
 public class MessageController {
 
+    private static final int CONVERSATION_PAGE_SIZE = 50;
+    private static final int MAX_CONVERSATION_PAGE_SIZE = 200;
+
     @Autowired
     private MessageRepository messageRepository;
 
@@ -34,110 +41,113 @@ public class MessageController {
     private UserRepository userRepository;
 
     @Autowired
-    private NotificationRepository notificationRepository;
+    private BlockRelationCache blockRelationCache;
 
     @Autowired
-    private BlockedUserRepository blockedUserRepository;
+    private ConversationSummaryService conversationSummaryService;
 
     @Autowired
-    private JwtUtils jwtUtils;
+    private NotificationService notificationService;
 
-    private User getCurrentUser(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Authorization required");
-        }
-        String token = authHeader.substring(7);
-        String email = jwtUtils.getEmailFromJwtToken(token);
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-    }
+    @Autowired
+    private RealtimeEventPublisher realtimeEventPublisher;
+
+    @Autowired
+    private UnreadCounterStore unreadCounterStore;
 
     // Get all conversations (chat list)
     @GetMapping("/conversations")
     public ResponseEntity<List<ConversationDto>> getConversations(
-            @RequestHeader("Authorization") String authHeader) {
-        User currentUser = getCurrentUser(authHeader);
-
-        List<Message> latestMessages = messageRepository.findLatestMessagePerConversation(currentUser.getId());
-
-        // Get blocked user IDs to filter conversations
-        List<Long> blockedIds = blockedUserRepository.findBlockedUserIdsByBlockerId(currentUser.getId());
-
-        List<ConversationDto> conversations = latestMessages.stream()
-            .filter(msg -> {
-                User otherUser = msg.getSender().getId().equals(currentUser.getId())
-                        ? msg.getReceiver()
-                        : msg.getSender();
-                return !blockedIds.contains(otherUser.getId());
-            })
-            .map(msg -> {
-            User otherUser = msg.getSender().getId().equals(currentUser.getId())
-                    ? msg.getReceiver()
-                    : msg.getSender();
+            @CurrentUser User currentUser) {
+        // One indexed read; both participants are fetched with the summary
+        List<ConversationSummary> summaries = conversationSummaryService.getConversations(currentUser.getId());
+
+        // Hide conversations with users the viewer has blocked
+        LongHashSet blockedIds = blockRelationCache.get(currentUser.getId()).blocked();
+
+        List<ConversationDto> conversations = summaries.stream()
+            .filter(summary -> !blockedIds.contains(summary.otherUser(currentUser.getId()).getId()))
+            .map(summary -> {
+            User otherUser = summary.otherUser(currentUser.getId());
 
             boolean isOnline = otherUser.getLastActive() != null &&
                     ChronoUnit.MINUTES.between(otherUser.getLastActive(), LocalDateTime.now()) < 5;
 
-            Long unreadCount = messageRepository.countUnreadFromSender(currentUser.getId(), otherUser.getId());
-
             return ConversationDto.builder()
                     .odUserId(otherUser.getId())
                     .otherUserName(otherUser.getName())
                     .otherUserImage(otherUser.getProfileImageUrl() != null && !otherUser.getProfileImageUrl().isEmpty() ? otherUser.getProfileImageUrl() : otherUser.getImage())
                     .otherUserOnline(isOnline)
-                    .lastMessage(msg.getContent())
-                    .lastMessageTime(msg.getCreatedAt())
-                    .unreadCount(unreadCount)
+                    .lastMessage(summary.getLastMessagePreview())
+                    .lastMessageTime(summary.getLastMessageAt())
+                    .unreadCount((long) summary.unreadFor(currentUser.getId()))
                     .build();
         }).collect(Collectors.toList());
 
         return ResponseEntity.ok(conversations);
     }
 
-    // Get messages with a specific user
+    // Get messages with a specific user, newest page first; older pages via ?before=<oldest id>
     @GetMapping("/conversation/{userId}")
     @Transactional
     public ResponseEntity<List<MessageDto>> getConversation(
             @PathVariable Long userId,
-            @RequestHeader("Authorization") String authHeader) {
-        User currentUser = getCurrentUser(authHeader);
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "" + CONVERSATION_PAGE_SIZE) int limit,
+            @CurrentUser User currentUser) {
         User otherUser = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        // Mark messages as read
-        messageRepository.markAsRead(currentUser.getId(), userId);
-
-        List<Message> messages = messageRepository.findConversation(currentUser.getId(), userId);
-
-        List<MessageDto> messageDtos = messages.stream().map(msg -> MessageDto.builder()
-                .id(msg.getId())
-                .senderId(msg.getSender().getId())
-                .senderName(msg.getSender().getName())
-                .senderImage(msg.getSender().getImage())
-                .receiverId(msg.getReceiver().getId())
-                .receiverName(msg.getReceiver().getName())
-                .receiverImage(msg.getReceiver().getImage())
-                .content(msg.getContent())
-                .isRead(msg.getIsRead())
-                .createdAt(msg.getCreatedAt())
-                .isMine(msg.getSender().getId().equals(currentUser.getId()))
-                .build()
-        ).collect(Collectors.toList());
-
-        return ResponseEntity.ok(messageDtos);
+        // Opening the chat (first page) marks it as read
+        if (before == null) {
+            conversationSummaryService.markAsRead(currentUser.getId(), userId);
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_CONVERSATION_PAGE_SIZE));
+        List<Message> page = new ArrayList<>(
+                messageRepository.findConversationPage(currentUser.getId(), userId, before, pageSize));
+        // Fetched newest first; returned oldest first like the full history was
+        Collections.reverse(page);
+
+        List<MessageDto> messageDtos = page.stream().map(msg -> {
+            // Both participants are already loaded, so the lazy associations are never touched
+            boolean mine = msg.getSender().getId().equals(currentUser.getId());
+            User sender = mine ? currentUser : otherUser;
+            User receiver = mine ? otherUser : currentUser;
+            return MessageDto.builder()
+                    .id(msg.getId())
+                    .senderId(sender.getId())
+                    .senderName(sender.getName())
+                    .senderImage(sender.getImage())
+                    .receiverId(receiver.getId())
+                    .receiverName(receiver.getName())
+                    .receiverImage(receiver.getImage())
+                    .content(msg.getContent())
+                    .isRead(msg.getIsRead())
+                    .createdAt(msg.getCreatedAt())
+                    .isMine(mine)
+                    .build();
+        }).collect(Collectors.toList());
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == pageSize) {
+            // Cursor for the next (older) page
+            response.header("X-Next-Before", String.valueOf(page.get(0).getId()));
+        }
+        return response.body(messageDtos);
     }
 
     // Send a message
     @PostMapping("/send")
+    @Transactional
     public ResponseEntity<MessageDto> sendMessage(
             @Valid @RequestBody SendMessageRequest request,
-            @RequestHeader("Authorization") String authHeader) {
-        User sender = getCurrentUser(authHeader);
+            @CurrentUser User sender) {
         User receiver = userRepository.findById(request.getReceiverId())
                 .orElseThrow(() -> new RuntimeException("Receiver not found"));
 
         // Block check: either direction blocks messaging
-        if (blockedUserRepository.existsBlockBetween(sender.getId(), receiver.getId())) {
+        if (blockRelationCache.isBlockedEitherWay(sender.getId(), receiver.getId())) {
             return ResponseEntity.status(403).body(null);
         }
 
@@ -150,18 +160,15 @@ public class MessageController {
                 .build();
 
         Message savedMessage = messageRepository.save(message);
+        conversationSummaryService.recordMessage(savedMessage);
 
         // Create notification for receiver
-        Notification notification = Notification.builder()
-                .user(receiver)
-                .sender(sender)
-                .type("MESSAGE")
-                .title("New message")
-                .message(sender.getName() + " sent you a message")
-                .isRead(false)
-                .createdAt(LocalDateTime.now())
-                .build();
-        notificationRepository.save(notification);
+        notificationService.createNotification(
+                receiver, sender, "MESSAGE",
+                "New message",
+                sender.getName() + " sent you a message",
+                null
+        );
 
         MessageDto dto = MessageDto.builder()
                 .id(savedMessage.getId())
@@ -177,15 +184,17 @@ public class MessageController {
                 .isMine(true)
                 .build();
 
+        // Delivered to the receiver's open streams after commit, seen from their side
+        realtimeEventPublisher.publish(receiver.getId(), "message", dto.toBuilder().isMine(false).build());
+
         return ResponseEntity.ok(dto);
     }
 
     // Get unread message count
     @GetMapping("/unread-count")
     public ResponseEntity<Map<String, Long>> getUnreadCount(
-            @RequestHeader("Authorization") String authHeader) {
-        User currentUser = getCurrentUser(authHeader);
-        Long count = messageRepository.countUnreadMessages(currentUser.getId());
+            @CurrentUser User currentUser) {
+        Long count = unreadCounterStore.get(UnreadCounterStore.Kind.MESSAGES, currentUser.getId());
         return ResponseEntity.ok(Map.of("count", count));
     }
 }
@@ -0,0 +1,77 @@
+package com.roadmate.controller;
+
+import com.roadmate.scheduler.NotificationRetentionScheduler;
+import com.roadmate.security.JwtUtils;
+import com.roadmate.service.BlockRelationCache;
+import com.roadmate.service.EventStreamService;
+import com.roadmate.service.ExpoPushService;
+import com.roadmate.service.LocationUpdateBuffer;
+import com.roadmate.service.NotificationOutboxWorker;
+import com.roadmate.service.PlaceAutocompleteService;
+import com.roadmate.service.PlacesService;
+import com.roadmate.service.PushReceiptService;
+import com.roadmate.service.UnreadCounterStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/metrics")
+@CrossOrigin(origins = "*")
+public class MetricsController {
+
+    @Autowired
+    private LocationUpdateBuffer locationUpdateBuffer;
+
+    @Autowired
+    private BlockRelationCache blockRelationCache;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private EventStreamService eventStreamService;
+
+    @Autowired
+    private NotificationOutboxWorker notificationOutboxWorker;
+
+    @Autowired
+    private ExpoPushService expoPushService;
+
+    @Autowired
+    private PushReceiptService pushReceiptService;
+
+    @Autowired
+    private NotificationRetentionScheduler notificationRetentionScheduler;
+
+    @Autowired
+    private UnreadCounterStore unreadCounterStore;
+
+    @Autowired
+    private PlacesService placesService;
+
+    @Autowired
+    private PlaceAutocompleteService placeAutocompleteService;
+
+    /**
+     * In-process counters of the background pipelines (location ingestion etc.).
+     */
+    @GetMapping
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("locationUpdates", locationUpdateBuffer.stats());
+        metrics.put("blockRelations", blockRelationCache.stats());
+        metrics.put("jwtCache", jwtUtils.cacheStats());
+        metrics.put("eventStreams", eventStreamService.stats());
+        metrics.put("notificationOutbox", notificationOutboxWorker.stats());
+        metrics.put("expoPush", expoPushService.stats());
+        metrics.put("pushReceipts", pushReceiptService.stats());
+        metrics.put("notificationRetention", notificationRetentionScheduler.stats());
+        metrics.put("unreadCounters", unreadCounterStore.stats());
+        metrics.put("placesCache", placesService.stats());
+        metrics.put("placesAutocomplete", placeAutocompleteService.stats());
+        return metrics;
+    }
+}
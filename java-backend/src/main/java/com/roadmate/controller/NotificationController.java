@@ -3,10 +3,11 @@ package com.roadmate.controller;
 import com.roadmate.dto.NotificationDto;
 import com.roadmate.model.Notification;
 import com.roadmate.model.User;
-import com.roadmate.repository.BlockedUserRepository;
-import com.roadmate.repository.UserRepository;
-import com.roadmate.security.JwtUtils;
+import com.roadmate.repository.NotificationRepository;
+import com.roadmate.security.CurrentUser;
+import com.roadmate.service.BlockRelationCache;
 import com.roadmate.service.NotificationService;
+import com.roadmate.util.InboxCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -24,55 +25,39 @@ public class NotificationController {
     private NotificationService notificationService;
 
     @Autowired
-    private UserRepository userRepository;
+    private BlockRelationCache blockRelationCache;
 
-    @Autowired
-    private BlockedUserRepository blockedUserRepository;
-
-    @Autowired
-    private JwtUtils jwtUtils;
-
-    private User getCurrentUser(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Authorization required");
-        }
-        String token = authHeader.substring(7);
-        String email = jwtUtils.getEmailFromJwtToken(token);
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-    }
+    private static final int INBOX_PAGE_SIZE = 50;
+    private static final int MAX_INBOX_PAGE_SIZE = 100;
 
-    // Get all notifications
+    // Get notifications, newest page first; pass X-Next-Cursor back as cursor for the next page
     @GetMapping
     public ResponseEntity<List<NotificationDto>> getNotifications(
-            @RequestHeader("Authorization") String authHeader) {
-        User currentUser = getCurrentUser(authHeader);
-
-        List<Notification> notifications = notificationService.getNotifications(currentUser.getId());
-
-        List<NotificationDto> dtos = notifications.stream().map(this::mapToDto).collect(Collectors.toList());
-
-        return ResponseEntity.ok(dtos);
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + INBOX_PAGE_SIZE) int limit,
+            @CurrentUser User currentUser) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_INBOX_PAGE_SIZE));
+        List<NotificationRepository.InboxView> notifications = notificationService.getNotifications(
+                currentUser.getId(), InboxCursor.parse(cursor), pageSize);
+        return page(notifications, pageSize);
     }
 
-    // Get unread notifications
+    // Get unread notifications, paged like the inbox
     @GetMapping("/unread")
     public ResponseEntity<List<NotificationDto>> getUnreadNotifications(
-            @RequestHeader("Authorization") String authHeader) {
-        User currentUser = getCurrentUser(authHeader);
-
-        List<Notification> notifications = notificationService.getUnreadNotifications(currentUser.getId());
-
-        List<NotificationDto> dtos = notifications.stream().map(this::mapToDto).collect(Collectors.toList());
-
-        return ResponseEntity.ok(dtos);
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + INBOX_PAGE_SIZE) int limit,
+            @CurrentUser User currentUser) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_INBOX_PAGE_SIZE));
+        List<NotificationRepository.InboxView> notifications = notificationService.getUnreadNotifications(
+                currentUser.getId(), InboxCursor.parse(cursor), pageSize);
+        return page(notifications, pageSize);
     }
 
     // Get unread count
     @GetMapping("/unread-count")
     public ResponseEntity<Map<String, Long>> getUnreadCount(
-            @RequestHeader("Authorization") String authHeader) {
-        User currentUser = getCurrentUser(authHeader);
+            @CurrentUser User currentUser) {
         Long count = notificationService.getUnreadCount(currentUser.getId());
         return ResponseEntity.ok(Map.of("count", count));
     }
@@ -80,8 +65,7 @@ public class NotificationController {
     // Mark all as read
     @PostMapping("/mark-all-read")
     public ResponseEntity<Map<String, String>> markAllAsRead(
-            @RequestHeader("Authorization") String authHeader) {
-        User currentUser = getCurrentUser(authHeader);
+            @CurrentUser User currentUser) {
         notificationService.markAllAsRead(currentUser.getId());
         return ResponseEntity.ok(Map.of("message", "All notifications marked as read"));
     }
@@ -90,9 +74,8 @@ public class NotificationController {
     @PostMapping("/{notificationId}/read")
     public ResponseEntity<Map<String, String>> markAsRead(
             @PathVariable Long notificationId,
-            @RequestHeader("Authorization") String authHeader) {
-        getCurrentUser(authHeader); // Verify user is authenticated
-        notificationService.markAsRead(notificationId);
+            @CurrentUser User currentUser) {
+        notificationService.markAsRead(currentUser.getId(), notificationId);
         return ResponseEntity.ok(Map.of("message", "Notification marked as read"));
     }
 
@@ -100,12 +83,11 @@ public class NotificationController {
     @PostMapping("/meeting-request")
     public ResponseEntity<Map<String, Object>> sendMeetingRequest(
             @RequestBody Map<String, Long> request,
-            @RequestHeader("Authorization") String authHeader) {
-        User sender = getCurrentUser(authHeader);
+            @CurrentUser User sender) {
         Long targetUserId = request.get("targetUserId");
 
         // Block check: cannot send meeting request if either direction is blocked
-        if (blockedUserRepository.existsBlockBetween(sender.getId(), targetUserId)) {
+        if (blockRelationCache.isBlockedEitherWay(sender.getId(), targetUserId)) {
             return ResponseEntity.status(403).body(Map.of(
                     "success", false,
                     "message", "Cannot send meeting request to this user"
@@ -121,7 +103,18 @@ public class NotificationController {
         ));
     }
 
-    private NotificationDto mapToDto(Notification n) {
+    private ResponseEntity<List<NotificationDto>> page(List<NotificationRepository.InboxView> notifications, int pageSize) {
+        List<NotificationDto> dtos = notifications.stream().map(this::mapToDto).collect(Collectors.toList());
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (notifications.size() == pageSize) {
+            NotificationRepository.InboxView last = notifications.get(notifications.size() - 1);
+            response.header("X-Next-Cursor", new InboxCursor(last.getCreatedAt(), last.getId()).encode());
+        }
+        return response.body(dtos);
+    }
+
+    private NotificationDto mapToDto(NotificationRepository.InboxView n) {
         return NotificationDto.builder()
                 .id(n.getId())
                 .type(n.getType())
@@ -129,10 +122,11 @@ public class NotificationController {
                 .message(n.getMessage())
                 .isRead(n.getIsRead())
                 .createdAt(n.getCreatedAt())
-                .senderId(n.getSender() != null ? n.getSender().getId() : null)
-                .senderName(n.getSender() != null ? n.getSender().getName() : null)
-                .senderImage(n.getSender() != null ? n.getSender().getImage() : null)
+                .senderId(n.getSenderId())
+                .senderName(n.getSenderName())
+                .senderImage(n.getSenderImage())
                 .data(n.getData())
+                .count(n.getGroupCount() != null ? n.getGroupCount() : 1)
                 .build();
     }
 }
@@ -2,9 +2,12 @@ package com.roadmate.controller;
 
 import com.roadmate.dto.NomadDto;
 import com.roadmate.model.User;
-import com.roadmate.repository.BlockedUserRepository;
 import com.roadmate.repository.UserRepository;
-import com.roadmate.security.JwtUtils;
+import com.roadmate.security.CurrentUser;
+import com.roadmate.security.UserPrincipal;
+import com.roadmate.service.BlockRelationCache;
+import com.roadmate.service.LocationUpdateBuffer;
+import com.roadmate.service.NomadLocationIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,6 +17,7 @@ import java.time.temporal.ChronoUnit;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RestController
@@ -25,10 +29,13 @@ public class RoadMateController {
     private UserRepository userRepository;
 
     @Autowired
-    private BlockedUserRepository blockedUserRepository;
+    private BlockRelationCache blockRelationCache;
 
     @Autowired
-    private JwtUtils jwtUtils;
+    private NomadLocationIndex nomadLocationIndex;
+
+    @Autowired
+    private LocationUpdateBuffer locationUpdateBuffer;
 
     @GetMapping("/")
     public Map<String, String> getHome() {
@@ -37,37 +44,29 @@ public class RoadMateController {
 
     @PostMapping("/update-location")
     public ResponseEntity<?> updateLocation(
-            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @CurrentUser(required = false) UserPrincipal principal,
             @RequestBody Map<String, Object> payload) {
         try {
-            User user = null;
-
-            // Try to get user from JWT token first
-            if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                String token = authHeader.substring(7);
-                String email = jwtUtils.getEmailFromJwtToken(token);
-                user = userRepository.findByEmail(email).orElse(null);
-            }
+            // Prefer the authenticated user
+            Long userId = principal != null ? principal.getId() : null;
 
             // Fallback to userId from payload if no token
-            if (user == null && payload.get("userId") != null) {
-                Long userId = Long.valueOf(payload.get("userId").toString());
-                user = userRepository.findById(userId).orElse(null);
+            if (userId == null && payload.get("userId") != null) {
+                Long payloadUserId = Long.valueOf(payload.get("userId").toString());
+                userId = userRepository.existsById(payloadUserId) ? payloadUserId : null;
             }
 
-            if (user == null) {
+            if (userId == null) {
                 return ResponseEntity.badRequest().body(Map.of("error", "User not found"));
             }
 
             Double lat = Double.valueOf(payload.get("latitude").toString());
             Double lng = Double.valueOf(payload.get("longitude").toString());
 
-            user.setLatitude(lat);
-            user.setLongitude(lng);
-            user.setLastActive(LocalDateTime.now());
-            userRepository.save(user);
+            // Buffered; written to the database in batches by LocationUpdateBuffer
+            locationUpdateBuffer.record(userId, lat, lng);
 
-            return ResponseEntity.ok(Map.of("success", true, "userId", user.getId(), "timestamp", LocalDateTime.now()));
+            return ResponseEntity.ok(Map.of("success", true, "userId", userId, "timestamp", LocalDateTime.now()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -77,42 +76,39 @@ public class RoadMateController {
     public List<NomadDto> getNearbyNomads(
             @RequestParam Double lat,
             @RequestParam Double lng,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
-
-        // Get current user to exclude from results and check subscription
-        Long currentUserId = null;
-        boolean isPro = false;
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            try {
-                String token = authHeader.substring(7);
-                String email = jwtUtils.getEmailFromJwtToken(token);
-                User currentUser = userRepository.findByEmail(email).orElse(null);
-                if (currentUser != null) {
-                    currentUserId = currentUser.getId();
-                    isPro = "pro".equals(currentUser.getSubscriptionType());
-                }
-            } catch (Exception ignored) {}
-        }
+            @CurrentUser(required = false) UserPrincipal principal) {
+
+        // Current user is excluded from results; subscription decides what is shown
+        Long currentUserId = principal != null ? principal.getId() : null;
+        boolean isPro = principal != null && principal.isPro();
 
-        List<User> users = userRepository.findNearbyNomads(lat, lng);
+        // Serve from the in-memory grid once it is warm; SQL scan only on cold start
+        List<User> users = nomadLocationIndex.isWarm()
+                ? findNearbyFromIndex(lat, lng, currentUserId)
+                : userRepository.findNearbyNomads(lat, lng);
         final Long excludeId = currentUserId;
         final boolean requesterIsPro = isPro;
 
-        // Get blocked user IDs to filter from results
-        final List<Long> blockedIds = currentUserId != null
-                ? blockedUserRepository.findBlockedUserIdsByBlockerId(currentUserId)
-                : Collections.emptyList();
+        // Hide users the requester has blocked
+        if (currentUserId != null) {
+            users = blockRelationCache.filterBlockedByUser(currentUserId, users, User::getId);
+        }
 
         return users.stream()
                 .filter(user -> excludeId == null || !user.getId().equals(excludeId))
-                .filter(user -> !blockedIds.contains(user.getId()))
                 .map(user -> {
+                    // Prefer a position that is still waiting in the write-behind buffer
+                    LocationUpdateBuffer.PendingLocation pending = locationUpdateBuffer.peek(user.getId());
+                    double userLat = pending != null ? pending.latitude() : user.getLatitude();
+                    double userLng = pending != null ? pending.longitude() : user.getLongitude();
+                    LocalDateTime lastActive = pending != null ? pending.recordedAt() : user.getLastActive();
+
                     // Calculate distance using Haversine formula
-                    double distance = calculateDistance(lat, lng, user.getLatitude(), user.getLongitude());
+                    double distance = calculateDistance(lat, lng, userLat, userLng);
 
                     // Check if user is online (active within last 5 minutes)
-                    boolean online = user.getLastActive() != null &&
-                            ChronoUnit.MINUTES.between(user.getLastActive(), LocalDateTime.now()) < 5;
+                    boolean online = lastActive != null &&
+                            ChronoUnit.MINUTES.between(lastActive, LocalDateTime.now()) < 5;
 
                     return NomadDto.builder()
                             .id(user.getId())
@@ -123,15 +119,15 @@ public class RoadMateController {
                             .vehicleBrand(user.getVehicleBrand())
                             .vehicleModel(user.getVehicleModel())
                             .route(user.getRoute())
-                            .latitude(user.getLatitude())
-                            .longitude(user.getLongitude())
+                            .latitude(userLat)
+                            .longitude(userLng)
                             .distance(distance)
                             .online(online)
                             .sosActive(Boolean.TRUE.equals(user.getSosActive()))
                             .showRoute(requesterIsPro)
                             .coordinate(NomadDto.Coordinate.builder()
-                                    .latitude(user.getLatitude())
-                                    .longitude(user.getLongitude())
+                                    .latitude(userLat)
+                                    .longitude(userLng)
                                     .build())
                             .build();
                 })
@@ -140,6 +136,18 @@ public class RoadMateController {
                 .collect(Collectors.toList());
     }
 
+    private List<User> findNearbyFromIndex(double lat, double lng, Long excludeId) {
+        List<NomadLocationIndex.Neighbor> nearest = nomadLocationIndex.nearest(lat, lng, UserRepository.NEARBY_LIMIT, excludeId);
+        Map<Long, User> byId = userRepository.findAllById(
+                        nearest.stream().map(NomadLocationIndex.Neighbor::userId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return nearest.stream()
+                .map(n -> byId.get(n.userId()))
+                .filter(u -> u != null && u.getLatitude() != null && u.getLongitude() != null)
+                .collect(Collectors.toList());
+    }
+
     private double calculateDistance(double lat1, double lng1, double lat2, double lng2) {
         final double R = 6371; // Earth's radius in km
         double dLat = Math.toRadians(lat2 - lat1);
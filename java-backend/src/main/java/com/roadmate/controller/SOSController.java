@@ -1,11 +1,11 @@
 package com.roadmate.controller;
 
 import com.roadmate.model.User;
-import com.roadmate.repository.BlockedUserRepository;
 import com.roadmate.repository.UserRepository;
-import com.roadmate.security.JwtUtils;
-import com.roadmate.service.ExpoPushService;
-import com.roadmate.service.NotificationService;
+import com.roadmate.security.CurrentUser;
+import com.roadmate.service.BlockRelationCache;
+import com.roadmate.service.LocationUpdateBuffer;
+import com.roadmate.service.SosFanoutService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -23,22 +23,18 @@ public class SOSController {
     private UserRepository userRepository;
 
     @Autowired
-    private BlockedUserRepository blockedUserRepository;
+    private BlockRelationCache blockRelationCache;
 
     @Autowired
-    private JwtUtils jwtUtils;
+    private SosFanoutService sosFanoutService;
 
     @Autowired
-    private ExpoPushService expoPushService;
-
-    @Autowired
-    private NotificationService notificationService;
+    private LocationUpdateBuffer locationUpdateBuffer;
 
     @PostMapping("/activate")
     public ResponseEntity<?> activateSOS(
-            @RequestHeader("Authorization") String authHeader) {
+            @CurrentUser(required = false) User user) {
         try {
-            User user = getUserFromToken(authHeader);
             if (user == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
@@ -50,6 +46,7 @@ public class SOSController {
                 ));
             }
 
+            locationUpdateBuffer.applyPending(user);
             if (user.getLatitude() == null || user.getLongitude() == null) {
                 return ResponseEntity.badRequest().body(Map.of("error", "Location not available. Please update your location first."));
             }
@@ -58,71 +55,46 @@ public class SOSController {
             user.setSosActivatedAt(LocalDateTime.now());
             userRepository.save(user);
 
-            // Find nearby users within 100km who have push tokens
-            List<User> allNearbyUsers = userRepository.findUsersWithPushTokenWithinRadius(
-                    user.getLatitude(), user.getLongitude(), 100.0, user.getId());
-
-            // Filter out users who have blocked the SOS sender or are blocked by them
-            List<User> nearbyUsers = allNearbyUsers.stream()
-                    .filter(nearby -> !blockedUserRepository.existsBlockBetween(user.getId(), nearby.getId()))
-                    .collect(java.util.stream.Collectors.toList());
-
-            // Create in-app notifications and collect push tokens
-            List<String> pushTokens = new ArrayList<>();
-            String userName = user.getName() != null ? user.getName() : "A nomad";
-
-            for (User nearby : nearbyUsers) {
-                double distance = calculateDistance(
-                        user.getLatitude(), user.getLongitude(),
-                        nearby.getLatitude(), nearby.getLongitude());
-
-                String notifData = String.format(
-                        "{\"type\": \"SOS\", \"sosUserId\": %d, \"lat\": %f, \"lng\": %f}",
-                        user.getId(), user.getLatitude(), user.getLongitude());
-
-                notificationService.createNotification(
-                        nearby, user, "SOS_ALERT",
-                        "\uD83D\uDEA8 SOS Alert Nearby!",
-                        userName + " needs roadside help " + Math.round(distance) + "km away",
-                        notifData);
-
-                if (nearby.getExpoPushToken() != null) {
-                    pushTokens.add(nearby.getExpoPushToken());
-                }
-            }
-
-            // Send push notifications
-            if (!pushTokens.isEmpty()) {
-                Map<String, Object> pushData = new HashMap<>();
-                pushData.put("type", "SOS");
-                pushData.put("sosUserId", user.getId());
-                pushData.put("lat", user.getLatitude());
-                pushData.put("lng", user.getLongitude());
-
-                expoPushService.sendBatchPushNotifications(
-                        pushTokens,
-                        "\uD83D\uDEA8 SOS Alert Nearby!",
-                        userName + " needs roadside help nearby!",
-                        pushData);
-            }
+            // Notifications and pushes are delivered in the background; progress via /fanout/{id}
+            SosFanoutService.FanoutJob fanout = sosFanoutService.start(user);
 
             return ResponseEntity.ok(Map.of(
                 "success", true,
                 "sosActive", true,
                 "sosActivatedAt", user.getSosActivatedAt().toString(),
-                "notifiedCount", nearbyUsers.size(),
-                "message", "SOS activated. " + nearbyUsers.size() + " nearby users have been notified."
+                "notifiedCount", fanout.getRecipientCount(),
+                "fanoutId", fanout.getId(),
+                "message", "SOS activated. " + fanout.getRecipientCount() + " nearby users are being notified."
             ));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
 
+    @GetMapping("/fanout/{fanoutId}")
+    public ResponseEntity<?> getFanoutStatus(
+            @PathVariable String fanoutId,
+            @CurrentUser(required = false) User user) {
+        try {
+            if (user == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+            }
+
+            SosFanoutService.FanoutJob fanout = sosFanoutService.getJob(fanoutId);
+            if (fanout == null || fanout.getSenderId() != user.getId()) {
+                return ResponseEntity.status(404).body(Map.of("error", "Fan-out not found"));
+            }
+
+            return ResponseEntity.ok(fanout.toMap());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @PostMapping("/deactivate")
     public ResponseEntity<?> deactivateSOS(
-            @RequestHeader("Authorization") String authHeader) {
+            @CurrentUser(required = false) User user) {
         try {
-            User user = getUserFromToken(authHeader);
             if (user == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
@@ -145,17 +117,17 @@ public class SOSController {
     public ResponseEntity<?> getNearbySOS(
             @RequestParam Double lat,
             @RequestParam Double lng,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+            @RequestParam(required = false) Double radiusKm,
+            @CurrentUser(required = false) User currentUser) {
         try {
-            List<User> sosUsers = userRepository.findActiveSOSUsersNearby(lat, lng);
+            // Without radiusKm every active SOS is listed, nearest first, as the map always did
+            List<User> sosUsers = radiusKm != null && radiusKm > 0
+                    ? userRepository.findActiveSOSUsersNearby(lat, lng, radiusKm)
+                    : userRepository.findActiveSOSUsers(lat, lng);
 
             // Filter out blocked users if authenticated
-            User currentUser = getUserFromToken(authHeader);
             if (currentUser != null) {
-                List<Long> blockedIds = blockedUserRepository.findBlockedUserIdsByBlockerId(currentUser.getId());
-                sosUsers = sosUsers.stream()
-                        .filter(u -> !blockedIds.contains(u.getId()))
-                        .collect(java.util.stream.Collectors.toList());
+                sosUsers = blockRelationCache.filterBlockedByUser(currentUser.getId(), sosUsers, User::getId);
             }
 
             List<Map<String, Object>> result = sosUsers.stream()
@@ -180,13 +152,6 @@ public class SOSController {
         }
     }
 
-    private User getUserFromToken(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) return null;
-        String token = authHeader.substring(7);
-        String email = jwtUtils.getEmailFromJwtToken(token);
-        return userRepository.findByEmail(email).orElse(null);
-    }
-
     private double calculateDistance(double lat1, double lng1, double lat2, double lng2) {
         final double R = 6371;
         double dLat = Math.toRadians(lat2 - lat1);
@@ -2,7 +2,7 @@ package com.roadmate.controller;
 
 import com.roadmate.model.User;
 import com.roadmate.repository.UserRepository;
-import com.roadmate.security.JwtUtils;
+import com.roadmate.security.CurrentUser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,19 +17,15 @@ public class SubscriptionController {
     @Autowired
     private UserRepository userRepository;
 
-    @Autowired
-    private JwtUtils jwtUtils;
-
     /**
      * Verify and activate Pro subscription.
      * Called by client after successful RevenueCat purchase.
      */
     @PostMapping("/verify")
     public ResponseEntity<?> verifySubscription(
-            @RequestHeader("Authorization") String authHeader,
+            @CurrentUser(required = false) User user,
             @RequestBody Map<String, Object> payload) {
         try {
-            User user = getUserFromToken(authHeader);
             if (user == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
@@ -55,9 +51,8 @@ public class SubscriptionController {
      */
     @GetMapping("/status")
     public ResponseEntity<?> getSubscriptionStatus(
-            @RequestHeader("Authorization") String authHeader) {
+            @CurrentUser(required = false) User user) {
         try {
-            User user = getUserFromToken(authHeader);
             if (user == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
@@ -73,10 +68,4 @@ public class SubscriptionController {
         }
     }
 
-    private User getUserFromToken(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) return null;
-        String token = authHeader.substring(7);
-        String email = jwtUtils.getEmailFromJwtToken(token);
-        return userRepository.findByEmail(email).orElse(null);
-    }
 }
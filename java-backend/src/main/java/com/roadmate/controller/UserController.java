@@ -7,13 +7,12 @@ import com.roadmate.model.User;
 import com.roadmate.repository.GalleryPhotoRepository;
 import com.roadmate.repository.VehiclePhotoRepository;
 import com.roadmate.repository.UserRepository;
+import com.roadmate.security.CurrentUser;
 import com.roadmate.service.AuthService;
 import com.roadmate.service.FileStorageService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
@@ -47,23 +46,16 @@ public class UserController {
     @Autowired
     private com.roadmate.service.RouteNotificationService routeNotificationService;
 
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-    }
+    @Autowired
+    private com.roadmate.service.RouteIndexService routeIndexService;
 
     @GetMapping("/profile")
-    public ResponseEntity<?> getProfile() {
-        User user = getCurrentUser();
+    public ResponseEntity<?> getProfile(@CurrentUser User user) {
         return ResponseEntity.ok(user);
     }
 
     @PutMapping("/profile")
-    public ResponseEntity<?> updateProfile(@Valid @RequestBody UserProfileUpdateDto updateRequest) {
-        User user = getCurrentUser();
-
+    public ResponseEntity<?> updateProfile(@Valid @RequestBody UserProfileUpdateDto updateRequest, @CurrentUser User user) {
         // Capture old route for change detection
         String oldRoute = user.getRoute();
 
@@ -94,8 +86,11 @@ public class UserController {
 
         User updatedUser = userRepository.save(user);
 
-        // Route change detection — send notifications async
+        // Route change detection — reindex, then send notifications async
         String newRoute = updatedUser.getRoute();
+        if (!java.util.Objects.equals(newRoute, oldRoute)) {
+            routeIndexService.updateRoute(updatedUser.getId(), newRoute);
+        }
         if (newRoute != null && !newRoute.isBlank() && !newRoute.equals(oldRoute)) {
             routeNotificationService.handleRouteChange(updatedUser, newRoute);
         }
@@ -104,8 +99,7 @@ public class UserController {
     }
 
     @PostMapping("/profile-image")
-    public ResponseEntity<?> uploadProfileImage(@RequestParam("file") MultipartFile file) {
-        User user = getCurrentUser();
+    public ResponseEntity<?> uploadProfileImage(@RequestParam("file") MultipartFile file, @CurrentUser User user) {
         String fileName = fileStorageService.store(file);
         
         String fileDownloadUri = "/uploads/" + fileName;
@@ -119,8 +113,7 @@ public class UserController {
     }
 
     @PostMapping("/gallery")
-    public ResponseEntity<?> uploadGalleryPhoto(@RequestParam("file") MultipartFile file) {
-        User user = getCurrentUser();
+    public ResponseEntity<?> uploadGalleryPhoto(@RequestParam("file") MultipartFile file, @CurrentUser User user) {
         String fileName = fileStorageService.store(file);
 
         String fileDownloadUri = "/uploads/" + fileName;
@@ -136,15 +129,13 @@ public class UserController {
     }
 
     @GetMapping("/gallery")
-    public ResponseEntity<List<GalleryPhoto>> getGalleryPhotos() {
-        User user = getCurrentUser();
+    public ResponseEntity<List<GalleryPhoto>> getGalleryPhotos(@CurrentUser User user) {
         List<GalleryPhoto> photos = galleryPhotoRepository.findByUserId(user.getId());
         return ResponseEntity.ok(photos);
     }
 
     @DeleteMapping("/gallery/{photoId}")
-    public ResponseEntity<?> deleteGalleryPhoto(@PathVariable Long photoId) {
-        User user = getCurrentUser();
+    public ResponseEntity<?> deleteGalleryPhoto(@PathVariable Long photoId, @CurrentUser User user) {
         GalleryPhoto photo = galleryPhotoRepository.findById(photoId)
                 .orElseThrow(() -> new RuntimeException("Photo not found"));
 
@@ -171,9 +162,7 @@ public class UserController {
     }
 
     @PostMapping("/vehicle-image")
-    public ResponseEntity<?> uploadVehiclePhoto(@RequestParam("file") MultipartFile file) {
-        User user = getCurrentUser();
-
+    public ResponseEntity<?> uploadVehiclePhoto(@RequestParam("file") MultipartFile file, @CurrentUser User user) {
         if (vehiclePhotoRepository.countByUserId(user.getId()) >= 6) {
             return ResponseEntity.badRequest().body(Map.of("message", "Maximum 6 vehicle photos allowed"));
         }
@@ -191,15 +180,13 @@ public class UserController {
     }
 
     @GetMapping("/vehicle-images")
-    public ResponseEntity<List<VehiclePhoto>> getVehiclePhotos() {
-        User user = getCurrentUser();
+    public ResponseEntity<List<VehiclePhoto>> getVehiclePhotos(@CurrentUser User user) {
         List<VehiclePhoto> photos = vehiclePhotoRepository.findByUserId(user.getId());
         return ResponseEntity.ok(photos);
     }
 
     @DeleteMapping("/vehicle-image/{photoId}")
-    public ResponseEntity<?> deleteVehiclePhoto(@PathVariable Long photoId) {
-        User user = getCurrentUser();
+    public ResponseEntity<?> deleteVehiclePhoto(@PathVariable Long photoId, @CurrentUser User user) {
         VehiclePhoto photo = vehiclePhotoRepository.findById(photoId)
                 .orElseThrow(() -> new RuntimeException("Photo not found"));
 
@@ -221,15 +208,13 @@ public class UserController {
     }
 
     @PostMapping("/change-password")
-    public ResponseEntity<?> changePassword(@Valid @RequestBody ChangePasswordRequest request) {
-        User user = getCurrentUser();
+    public ResponseEntity<?> changePassword(@Valid @RequestBody ChangePasswordRequest request, @CurrentUser User user) {
         authService.changePassword(user.getEmail(), request.getCurrentPassword(), request.getNewPassword());
         return ResponseEntity.ok(Map.of("message", "Şifre başarıyla değiştirildi"));
     }
 
     @DeleteMapping("/delete-account")
-    public ResponseEntity<?> deleteAccount() {
-        User user = getCurrentUser();
+    public ResponseEntity<?> deleteAccount(@CurrentUser User user) {
         authService.deleteAccount(user.getEmail());
         return ResponseEntity.ok(Map.of("message", "Hesap başarıyla silindi"));
     }
@@ -271,8 +256,7 @@ public class UserController {
     }
 
     @PostMapping("/push-token")
-    public ResponseEntity<?> registerPushToken(@RequestBody Map<String, String> body) {
-        User user = getCurrentUser();
+    public ResponseEntity<?> registerPushToken(@RequestBody Map<String, String> body, @CurrentUser User user) {
         String pushToken = body.get("pushToken");
         if (pushToken == null || pushToken.isBlank()) {
             return ResponseEntity.badRequest().body(Map.of("error", "pushToken is required"));
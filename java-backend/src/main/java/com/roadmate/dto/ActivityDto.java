@@ -17,6 +17,8 @@ public class ActivityDto {
     private String location;
     private String date;
     private String time;
+    private Double latitude;
+    private Double longitude;
     private String type;
     private String image;
     private String status;
@@ -25,4 +25,7 @@ public class NotificationDto {
 
     // Additional data
     private String data;
+
+    // How many events this notification stands for, e.g. 5 for "Ayla sent you 5 messages"
+    private Integer count;
 }
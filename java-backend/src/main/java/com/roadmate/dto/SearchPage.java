@@ -0,0 +1,15 @@
+package com.roadmate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.List;
+
+/**
+ * One page of ranked search results and the cursor of the next page (null on the last).
+ */
+@Data
+@AllArgsConstructor
+public class SearchPage<T> {
+    private List<T> items;
+    private String nextCursor;
+}
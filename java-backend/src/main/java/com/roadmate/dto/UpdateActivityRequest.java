@@ -17,9 +17,11 @@ public class UpdateActivityRequest {
     private String location;
 
     @NotBlank(message = "Date is required")
-    private String date;
+    private String date; // YYYY-MM-DD
 
-    private String time;
+    private String time; // HH:MM
+    private Double latitude;
+    private Double longitude;
     private String type;
     private String image;
 }
@@ -5,13 +5,18 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.HashSet;
 import java.util.Set;
 
 @Data
 @Entity
-@Table(name = "activities")
+@Table(name = "activities", indexes = {
+    @Index(name = "idx_activities_creator_created", columnList = "creator_id, created_at"),
+    @Index(name = "idx_activities_date", columnList = "activity_date")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
@@ -33,9 +38,16 @@ public class Activity {
     @Column(nullable = false)
     private String location;
 
-    private String date; // YYYY-MM-DD format
+    @Column(name = "activity_date")
+    private LocalDate date;
 
-    private String time; // HH:MM format
+    @Column(name = "activity_time")
+    private LocalTime time;
+
+    // Optional meeting point, used by the upcoming-near-me query
+    private Double latitude;
+
+    private Double longitude;
 
     private String type; // Social, Adventure, Camping, etc.
 
@@ -48,6 +60,12 @@ public class Activity {
     @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    // Size of participants; only changed by SQL increments and CounterReconciliationScheduler
+    @Column(name = "participant_count", insertable = false, updatable = false,
+            columnDefinition = "integer not null default 0")
+    @Builder.Default
+    private Integer participantCount = 0;
+
     // Participants (users who joined)
     @ManyToMany
     @JoinTable(
@@ -38,4 +38,10 @@ public class AssistRequest {
     @Column(name = "created_at")
     @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
+
+    // Number of messages; only changed by SQL increments and CounterReconciliationScheduler
+    @Column(name = "message_count", insertable = false, updatable = false,
+            columnDefinition = "integer not null default 0")
+    @Builder.Default
+    private Integer messageCount = 0;
 }
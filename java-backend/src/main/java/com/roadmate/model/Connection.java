@@ -11,6 +11,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "connections", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"user_id", "connected_user_id"})
+}, indexes = {
+    @Index(name = "idx_connections_connected_user", columnList = "connected_user_id, status")
 })
 @NoArgsConstructor
 @AllArgsConstructor
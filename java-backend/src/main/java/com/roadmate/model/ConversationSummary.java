@@ -0,0 +1,70 @@
+package com.roadmate.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * One row per pair of users who have exchanged messages, kept current by
+ * message sends and reads so the chat list never scans the messages table.
+ * The pair is stored ordered: userLow has the smaller id.
+ */
+@Data
+@Entity
+@Table(name = "conversation_summary", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_conversation_summary_pair", columnNames = {"user_low_id", "user_high_id"})
+}, indexes = {
+    @Index(name = "idx_conversation_summary_low", columnList = "user_low_id, last_message_at"),
+    @Index(name = "idx_conversation_summary_high", columnList = "user_high_id, last_message_at")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConversationSummary {
+    public static final int PREVIEW_LENGTH = 500;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_low_id", nullable = false)
+    private User userLow;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_high_id", nullable = false)
+    private User userHigh;
+
+    @Column(name = "last_message_id")
+    private Long lastMessageId;
+
+    @Column(name = "last_sender_id")
+    private Long lastSenderId;
+
+    @Column(name = "last_message_preview", length = PREVIEW_LENGTH)
+    private String lastMessagePreview;
+
+    @Column(name = "last_message_at")
+    private LocalDateTime lastMessageAt;
+
+    // Messages userLow has not read yet
+    @Column(name = "unread_low", nullable = false)
+    @Builder.Default
+    private Integer unreadLow = 0;
+
+    // Messages userHigh has not read yet
+    @Column(name = "unread_high", nullable = false)
+    @Builder.Default
+    private Integer unreadHigh = 0;
+
+    public User otherUser(Long userId) {
+        return userLow.getId().equals(userId) ? userHigh : userLow;
+    }
+
+    public int unreadFor(Long userId) {
+        return userLow.getId().equals(userId) ? unreadLow : unreadHigh;
+    }
+}
@@ -9,7 +9,9 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "discussions")
+@Table(name = "discussions", indexes = {
+    @Index(name = "idx_discussions_created_at", columnList = "created_at")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
@@ -35,4 +37,10 @@ public class Discussion {
     @Column(name = "created_at")
     @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
+
+    // Number of comments; only changed by SQL increments and CounterReconciliationScheduler
+    @Column(name = "comment_count", insertable = false, updatable = false,
+            columnDefinition = "integer not null default 0")
+    @Builder.Default
+    private Integer commentCount = 0;
 }
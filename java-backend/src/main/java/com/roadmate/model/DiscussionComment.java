@@ -9,7 +9,9 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "discussion_comments")
+@Table(name = "discussion_comments", indexes = {
+    @Index(name = "idx_discussion_comments_discussion", columnList = "discussion_id, created_at")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
@@ -9,7 +9,10 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+    // Serves keyset paging of a conversation, one index range per direction
+    @Index(name = "idx_messages_pair_created", columnList = "sender_id, receiver_id, created_at, id")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
@@ -9,7 +9,10 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+    @Index(name = "idx_notifications_inbox", columnList = "user_id, created_at DESC, id DESC"),
+    @Index(name = "idx_notifications_created", columnList = "created_at")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
@@ -46,4 +49,9 @@ public class Notification {
     // Optional: Additional data as JSON string
     @Column(columnDefinition = "TEXT")
     private String data;
+
+    // Number of events collapsed into this notification by the outbox worker (null on older rows)
+    @Column(name = "group_count")
+    @Builder.Default
+    private Integer groupCount = 1;
 }
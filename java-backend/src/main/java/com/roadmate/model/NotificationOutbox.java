@@ -0,0 +1,52 @@
+package com.roadmate.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * A notification that has been requested but not yet written to notifications.
+ * Rows are appended in the producer's transaction and removed by
+ * NotificationOutboxWorker in the same transaction that inserts the notifications.
+ */
+@Data
+@Entity
+@Table(name = "notification_outbox")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "sender_id")
+    private Long senderId;
+
+    @Column(nullable = false)
+    private String type;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(columnDefinition = "TEXT")
+    private String message;
+
+    @Column(columnDefinition = "TEXT")
+    private String data;
+
+    // Also deliver as an Expo push to the recipient's device
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean push = false;
+
+    @Column(name = "created_at", nullable = false)
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,37 @@
+package com.roadmate.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * An Expo push ticket whose delivery receipt has not been checked yet.
+ * Written by ExpoPushService when Expo accepts a message and removed by
+ * PushReceiptService once the receipt has been read or has expired.
+ */
+@Data
+@Entity
+@Table(name = "push_tickets", indexes = {
+    @Index(name = "idx_push_tickets_created_at", columnList = "created_at")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PushTicket {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "ticket_id", nullable = false, unique = true)
+    private String ticketId;
+
+    @Column(name = "push_token", nullable = false)
+    private String pushToken;
+
+    @Column(name = "created_at", nullable = false)
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,41 @@
+package com.roadmate.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One normalized place of a user's route, written by RouteIndexService when
+ * the route is saved so route matches are an index lookup on token instead
+ * of a substring scan over users.route.
+ */
+@Data
+@Entity
+@Table(name = "route_tokens", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_route_tokens_user_token", columnNames = {"user_id", "token"})
+}, indexes = {
+    @Index(name = "idx_route_tokens_token", columnList = "token, user_id")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RouteToken {
+
+    public enum Role { ORIGIN, STOP, DESTINATION }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 100)
+    private String token;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Role role;
+}
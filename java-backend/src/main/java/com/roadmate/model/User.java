@@ -6,11 +6,17 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "users")
+@DynamicUpdate // only write changed columns so saves only touch the columns they changed
+@Table(name = "users", indexes = {
+    @Index(name = "idx_users_lat_lng", columnList = "latitude, longitude"),
+    @Index(name = "idx_users_sos_active", columnList = "sos_active, sos_activated_at"),
+    @Index(name = "idx_users_expo_push_token", columnList = "expo_push_token")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
@@ -50,7 +56,13 @@ public class User {
     private String vehicleBrand;
     
     private String route;
+
+    // Written only by LocationUpdateBuffer's native UPDATE; an entity save (e.g. of a
+    // detached @CurrentUser) must never overwrite a fresher buffered position
+    @Column(updatable = false)
     private Double latitude;
+
+    @Column(updatable = false)
     private Double longitude;
 
     @Column(name = "subscription_type")
@@ -68,11 +80,17 @@ public class User {
     @Column(name = "sos_activated_at")
     private LocalDateTime sosActivatedAt;
 
-    @Column(name = "last_active")
+    @Column(name = "last_active", updatable = false)
     @Builder.Default
     private LocalDateTime lastActive = LocalDateTime.now();
 
     @Column(name = "created_at")
     @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
+
+    // Accepted connections; only changed by SQL increments and CounterReconciliationScheduler
+    @Column(name = "connection_count", insertable = false, updatable = false,
+            columnDefinition = "integer not null default 0")
+    @Builder.Default
+    private Integer connectionCount = 0;
 }
@@ -1,21 +1,85 @@
 package com.roadmate.repository;
 
 import com.roadmate.model.Activity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ActivityRepository extends JpaRepository<Activity, Long> {
 
-    // Get activities created by connected users (friends) + own activities
-    @Query("SELECT a FROM Activity a WHERE a.status <> 'CANCELLED' AND (a.creator.id = :userId OR a.creator.id IN " +
-           "(SELECT c.connectedUser.id FROM Connection c WHERE c.user.id = :userId AND c.status = 'ACCEPTED') OR " +
-           "a.creator.id IN (SELECT c.user.id FROM Connection c WHERE c.connectedUser.id = :userId AND c.status = 'ACCEPTED')) " +
-           "ORDER BY a.createdAt DESC")
-    List<Activity> findActivitiesForUser(@Param("userId") Long userId);
+    /**
+     * An activity as shown in the feed: creator columns, participant count and whether
+     * the viewer joined it, all from one query.
+     */
+    interface ActivityFeedView {
+        Long getId();
+        String getTitle();
+        String getDescription();
+        String getLocation();
+        LocalDate getDate();
+        LocalTime getTime();
+        Double getLatitude();
+        Double getLongitude();
+        String getType();
+        String getImage();
+        String getStatus();
+        LocalDateTime getCreatedAt();
+        Long getCreatorId();
+        String getCreatorName();
+        String getCreatorImage();
+        String getCreatorProfileImageUrl();
+        Integer getParticipantCount();
+        Boolean getJoined();
+        Boolean getPast();
+    }
+
+    // Joined and past flags are evaluated in SQL for the rows of the page only
+    String FEED_SELECT =
+            "SELECT a.id AS id, a.title AS title, a.description AS description, a.location AS location, " +
+            "a.date AS date, a.time AS time, a.latitude AS latitude, a.longitude AS longitude, " +
+            "a.type AS type, a.image AS image, a.status AS status, " +
+            "a.createdAt AS createdAt, c.id AS creatorId, c.name AS creatorName, c.image AS creatorImage, " +
+            "c.profileImageUrl AS creatorProfileImageUrl, a.participantCount AS participantCount, " +
+            "CASE WHEN EXISTS (SELECT 1 FROM Activity j JOIN j.participants p " +
+            "WHERE j.id = a.id AND p.id = :userId) THEN true ELSE false END AS joined, " +
+            "CASE WHEN a.date < CURRENT_DATE THEN true ELSE false END AS past ";
+
+    // Activities of the given creators (friends + self), newest first; walks idx_activities_creator_created
+    @Query(FEED_SELECT + "FROM Activity a JOIN a.creator c " +
+           "WHERE c.id IN :creatorIds AND a.status <> 'CANCELLED' " +
+           "ORDER BY a.createdAt DESC, a.id DESC")
+    Slice<ActivityFeedView> findFeed(@Param("creatorIds") Collection<Long> creatorIds,
+                                     @Param("userId") Long userId,
+                                     Pageable pageable);
+
+    @Query(FEED_SELECT + "FROM Activity a JOIN a.creator c WHERE a.id IN :ids")
+    List<ActivityFeedView> findFeedItems(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    // Ids of upcoming activities inside the box and radius, soonest first; the date range is served by idx_activities_date
+    @Query(value = "SELECT id FROM activities " +
+                   "WHERE activity_date >= CURRENT_DATE AND status <> 'CANCELLED' " +
+                   "AND latitude BETWEEN :minLat AND :maxLat AND longitude BETWEEN :minLng AND :maxLng " +
+                   "AND (6371 * acos(LEAST(1, cos(radians(:lat)) * cos(radians(latitude)) * " +
+                   "cos(radians(longitude) - radians(:lng)) + sin(radians(:lat)) * sin(radians(latitude))))) <= :radiusKm " +
+                   "ORDER BY activity_date, activity_time NULLS LAST, id LIMIT :limit", nativeQuery = true)
+    List<Long> findUpcomingIdsNear(@Param("lat") double lat,
+                                   @Param("lng") double lng,
+                                   @Param("radiusKm") double radiusKm,
+                                   @Param("minLat") double minLat,
+                                   @Param("maxLat") double maxLat,
+                                   @Param("minLng") double minLng,
+                                   @Param("maxLng") double maxLng,
+                                   @Param("limit") int limit);
 
     // Get all activities (for explore/discover)
     List<Activity> findAllByOrderByCreatedAtDesc();
@@ -27,12 +91,31 @@ public interface ActivityRepository extends JpaRepository<Activity, Long> {
     @Query("SELECT a FROM Activity a JOIN a.participants p WHERE p.id = :userId ORDER BY a.createdAt DESC")
     List<Activity> findJoinedActivities(@Param("userId") Long userId);
 
-    // Delete activities whose date is more than 7 days in the past
+    // Which of the given activities the user has joined, without loading participant sets
+    @Query(value = "SELECT activity_id FROM activity_participants WHERE user_id = :userId AND activity_id IN (:activityIds)", nativeQuery = true)
+    List<Long> findJoinedActivityIds(@Param("userId") Long userId, @Param("activityIds") Collection<Long> activityIds);
+
+    // 1 if the user joined now, 0 if they already had; the (activity_id, user_id) key makes repeats no-ops
+    @Modifying
+    @Query(value = "INSERT INTO activity_participants (activity_id, user_id) VALUES (:activityId, :userId) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int addParticipant(@Param("activityId") Long activityId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM activity_participants WHERE activity_id = :activityId AND user_id = :userId", nativeQuery = true)
+    int removeParticipant(@Param("activityId") Long activityId, @Param("userId") Long userId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE activities SET participant_count = participant_count + :delta WHERE id = :id", nativeQuery = true)
+    int adjustParticipantCount(@Param("id") Long id, @Param("delta") int delta);
+
+    // Delete activities whose date is more than 7 days in the past (range scan on idx_activities_date)
     @Modifying
-    @Query(value = "DELETE FROM activity_participants WHERE activity_id IN (SELECT id FROM activities WHERE date IS NOT NULL AND CAST(date AS DATE) < CURRENT_DATE - INTERVAL '7 days')", nativeQuery = true)
+    @Query(value = "DELETE FROM activity_participants WHERE activity_id IN (SELECT id FROM activities WHERE activity_date < CURRENT_DATE - 7)", nativeQuery = true)
     int deleteOldActivityParticipants();
 
     @Modifying
-    @Query(value = "DELETE FROM activities WHERE date IS NOT NULL AND CAST(date AS DATE) < CURRENT_DATE - INTERVAL '7 days'", nativeQuery = true)
+    @Query(value = "DELETE FROM activities WHERE activity_date < CURRENT_DATE - 7", nativeQuery = true)
     int deleteOldActivities();
 }
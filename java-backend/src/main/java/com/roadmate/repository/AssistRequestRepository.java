@@ -2,9 +2,12 @@ package com.roadmate.repository;
 
 import com.roadmate.model.AssistRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface AssistRequestRepository extends JpaRepository<AssistRequest, Long> {
@@ -18,4 +21,25 @@ public interface AssistRequestRepository extends JpaRepository<AssistRequest, Lo
     List<AssistRequest> findAllRecent();
 
     List<AssistRequest> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    @Query("SELECT r FROM AssistRequest r JOIN FETCH r.user WHERE r.id IN :ids")
+    List<AssistRequest> findWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Ranked full-text matches after the (afterRank, afterId) keyset position; empty status matches every status
+    @Query(value = "SELECT r.id, r.rank FROM (" +
+                   "SELECT a.id, ts_rank(a.search_vector, q.query) AS rank " +
+                   "FROM assist_requests a CROSS JOIN websearch_to_tsquery('simple', :query) AS q(query) " +
+                   "WHERE a.search_vector @@ q.query AND (:status = '' OR a.status = :status)) r " +
+                   "WHERE r.rank < :afterRank OR (r.rank = :afterRank AND r.id < :afterId) " +
+                   "ORDER BY r.rank DESC, r.id DESC LIMIT :limit", nativeQuery = true)
+    List<SearchHit> search(@Param("query") String query,
+                           @Param("status") String status,
+                           @Param("afterRank") float afterRank,
+                           @Param("afterId") long afterId,
+                           @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE assist_requests SET message_count = message_count + :delta WHERE id = :id", nativeQuery = true)
+    int adjustMessageCount(@Param("id") Long id, @Param("delta") int delta);
 }
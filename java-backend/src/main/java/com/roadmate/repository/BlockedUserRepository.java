@@ -21,6 +21,16 @@ public interface BlockedUserRepository extends JpaRepository<BlockedUser, Long>
     @Query("SELECT b.blocked.id FROM BlockedUser b WHERE b.blocker.id = :blockerId")
     List<Long> findBlockedUserIdsByBlockerId(@Param("blockerId") Long blockerId);
 
+    interface BlockPairView {
+        Long getBlockerId();
+        Long getBlockedId();
+    }
+
+    // Every block this user takes part in, either direction (feeds BlockRelationCache)
+    @Query("SELECT b.blocker.id AS blockerId, b.blocked.id AS blockedId FROM BlockedUser b " +
+           "WHERE b.blocker.id = :userId OR b.blocked.id = :userId")
+    List<BlockPairView> findBlockPairsInvolving(@Param("userId") Long userId);
+
     // Check if either direction is blocked (for chat enforcement)
     @Query("SELECT CASE WHEN COUNT(b) > 0 THEN true ELSE false END FROM BlockedUser b " +
            "WHERE (b.blocker.id = :userId1 AND b.blocked.id = :userId2) " +
@@ -4,6 +4,7 @@ import com.roadmate.model.Connection;
 import com.roadmate.model.Connection.ConnectionStatus;
 import com.roadmate.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,6 +15,11 @@ import java.util.Optional;
 @Repository
 public interface ConnectionRepository extends JpaRepository<Connection, Long> {
 
+    // Zaten kabul edilmişse 0 döner; sayaç yalnızca gerçek geçişte artırılır
+    @Modifying
+    @Query("UPDATE Connection c SET c.status = :accepted WHERE c.id = :id AND c.status <> :accepted")
+    int markAccepted(@Param("id") Long id, @Param("accepted") ConnectionStatus accepted);
+
     // İki kullanıcı arasında bağlantı var mı kontrol et (her iki yönde)
     @Query("SELECT c FROM Connection c WHERE " +
            "(c.user.id = :userId1 AND c.connectedUser.id = :userId2) OR " +
@@ -40,6 +46,12 @@ public interface ConnectionRepository extends JpaRepository<Connection, Long> {
            "AND c.status = 'ACCEPTED'")
     Long countAcceptedConnections(@Param("userId") Long userId);
 
+    // Kabul edilmiş arkadaşların sadece id'leri (entity yüklemeden)
+    @Query("SELECT CASE WHEN c.user.id = :userId THEN c.connectedUser.id ELSE c.user.id END " +
+           "FROM Connection c WHERE (c.user.id = :userId OR c.connectedUser.id = :userId) " +
+           "AND c.status = 'ACCEPTED'")
+    List<Long> findAcceptedConnectionIds(@Param("userId") Long userId);
+
     // Kullanıcının tüm accepted arkadaşlarının User nesnelerini döndür
     @Query("SELECT CASE WHEN c.user.id = :userId THEN c.connectedUser ELSE c.user END " +
            "FROM Connection c WHERE (c.user.id = :userId OR c.connectedUser.id = :userId) " +
@@ -0,0 +1,76 @@
+package com.roadmate.repository;
+
+import com.roadmate.model.ConversationSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ConversationSummaryRepository extends JpaRepository<ConversationSummary, Long> {
+
+    // Chat list: every conversation of the user with both participants, newest first
+    @Query("SELECT s FROM ConversationSummary s JOIN FETCH s.userLow JOIN FETCH s.userHigh " +
+           "WHERE s.userLow.id = :userId OR s.userHigh.id = :userId " +
+           "ORDER BY s.lastMessageAt DESC")
+    List<ConversationSummary> findByParticipant(@Param("userId") Long userId);
+
+    // Upsert for a new message: replaces the last-message fields unless a newer
+    // message got there first, and bumps the receiver's unread counter
+    @Modifying
+    @Query(value = "INSERT INTO conversation_summary " +
+                   "(user_low_id, user_high_id, last_message_id, last_sender_id, last_message_preview, last_message_at, unread_low, unread_high) " +
+                   "VALUES (LEAST(:senderId, :receiverId), GREATEST(:senderId, :receiverId), :messageId, :senderId, :preview, :sentAt, " +
+                   "CASE WHEN :receiverId <= :senderId THEN 1 ELSE 0 END, CASE WHEN :receiverId >= :senderId THEN 1 ELSE 0 END) " +
+                   "ON CONFLICT (user_low_id, user_high_id) DO UPDATE SET " +
+                   "last_message_id = GREATEST(conversation_summary.last_message_id, EXCLUDED.last_message_id), " +
+                   "last_sender_id = CASE WHEN EXCLUDED.last_message_id > conversation_summary.last_message_id " +
+                   "THEN EXCLUDED.last_sender_id ELSE conversation_summary.last_sender_id END, " +
+                   "last_message_preview = CASE WHEN EXCLUDED.last_message_id > conversation_summary.last_message_id " +
+                   "THEN EXCLUDED.last_message_preview ELSE conversation_summary.last_message_preview END, " +
+                   "last_message_at = CASE WHEN EXCLUDED.last_message_id > conversation_summary.last_message_id " +
+                   "THEN EXCLUDED.last_message_at ELSE conversation_summary.last_message_at END, " +
+                   "unread_low = conversation_summary.unread_low + EXCLUDED.unread_low, " +
+                   "unread_high = conversation_summary.unread_high + EXCLUDED.unread_high",
+           nativeQuery = true)
+    void recordMessage(@Param("senderId") Long senderId, @Param("receiverId") Long receiverId,
+                       @Param("messageId") Long messageId, @Param("preview") String preview,
+                       @Param("sentAt") LocalDateTime sentAt);
+
+    // Reader has seen everything from the other side; also locks the row so a
+    // concurrent send cannot slip between this and Message.markAsRead
+    @Modifying
+    @Query(value = "UPDATE conversation_summary SET " +
+                   "unread_low = CASE WHEN user_low_id = :readerId THEN 0 ELSE unread_low END, " +
+                   "unread_high = CASE WHEN user_high_id = :readerId THEN 0 ELSE unread_high END " +
+                   "WHERE user_low_id = LEAST(:readerId, :otherUserId) AND user_high_id = GREATEST(:readerId, :otherUserId)",
+           nativeQuery = true)
+    void markAsRead(@Param("readerId") Long readerId, @Param("otherUserId") Long otherUserId);
+
+    // Rebuild from the messages table. Existing rows are overwritten with the recomputed
+    // values, so summaries created by sends before the rebuild ran are corrected too
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO conversation_summary " +
+                   "(user_low_id, user_high_id, last_message_id, last_sender_id, last_message_preview, last_message_at, unread_low, unread_high) " +
+                   "SELECT l.lo, l.hi, l.id, l.sender_id, LEFT(l.content, " + ConversationSummary.PREVIEW_LENGTH + "), l.created_at, " +
+                   "u.unread_low, u.unread_high FROM (" +
+                   "  SELECT DISTINCT ON (LEAST(sender_id, receiver_id), GREATEST(sender_id, receiver_id)) " +
+                   "  LEAST(sender_id, receiver_id) AS lo, GREATEST(sender_id, receiver_id) AS hi, id, sender_id, content, created_at " +
+                   "  FROM messages ORDER BY LEAST(sender_id, receiver_id), GREATEST(sender_id, receiver_id), created_at DESC, id DESC" +
+                   ") l JOIN (" +
+                   "  SELECT LEAST(sender_id, receiver_id) AS lo, GREATEST(sender_id, receiver_id) AS hi, " +
+                   "  COUNT(*) FILTER (WHERE is_read = false AND receiver_id = LEAST(sender_id, receiver_id)) AS unread_low, " +
+                   "  COUNT(*) FILTER (WHERE is_read = false AND receiver_id = GREATEST(sender_id, receiver_id)) AS unread_high " +
+                   "  FROM messages GROUP BY 1, 2" +
+                   ") u ON u.lo = l.lo AND u.hi = l.hi " +
+                   "ON CONFLICT (user_low_id, user_high_id) DO UPDATE SET " +
+                   "last_message_id = EXCLUDED.last_message_id, last_sender_id = EXCLUDED.last_sender_id, " +
+                   "last_message_preview = EXCLUDED.last_message_preview, last_message_at = EXCLUDED.last_message_at, " +
+                   "unread_low = EXCLUDED.unread_low, unread_high = EXCLUDED.unread_high",
+           nativeQuery = true)
+    int backfillFromMessages();
+}
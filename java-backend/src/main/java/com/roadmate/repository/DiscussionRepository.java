@@ -1,11 +1,80 @@
 package com.roadmate.repository;
 
 import com.roadmate.model.Discussion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface DiscussionRepository extends JpaRepository<Discussion, Long> {
     List<Discussion> findAllByOrderByCreatedAtDesc();
     List<Discussion> findByTagOrderByCreatedAtDesc(String tag);
+
+    /**
+     * A discussion as shown in the feed: creator columns, comment count and whether
+     * the viewer bookmarked it, all from one query.
+     */
+    interface DiscussionFeedView {
+        Long getId();
+        String getTitle();
+        String getDescription();
+        String getTag();
+        String getImage();
+        LocalDateTime getCreatedAt();
+        Long getCreatorId();
+        String getCreatorName();
+        String getCreatorImage();
+        String getCreatorProfileImageUrl();
+        Integer getCommentCount();
+        Boolean getSaved();
+    }
+
+    // The bookmark flag is a correlated subquery, so it is only evaluated for the rows of the page
+    String FEED_SELECT =
+            "SELECT d.id AS id, d.title AS title, d.description AS description, d.tag AS tag, " +
+            "d.image AS image, d.createdAt AS createdAt, " +
+            "c.id AS creatorId, c.name AS creatorName, c.image AS creatorImage, " +
+            "c.profileImageUrl AS creatorProfileImageUrl, " +
+            "d.commentCount AS commentCount, " +
+            "CASE WHEN EXISTS (SELECT 1 FROM DiscussionBookmark b " +
+            "WHERE b.discussion.id = d.id AND b.user.id = :userId) THEN true ELSE false END AS saved ";
+
+    @Query(FEED_SELECT + "FROM Discussion d JOIN d.creator c ORDER BY d.createdAt DESC, d.id DESC")
+    Slice<DiscussionFeedView> findFeed(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(FEED_SELECT + "FROM Discussion d JOIN d.creator c WHERE d.id = :id")
+    Optional<DiscussionFeedView> findFeedItem(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Query(FEED_SELECT + "FROM DiscussionBookmark sb JOIN sb.discussion d JOIN d.creator c " +
+           "WHERE sb.user.id = :userId ORDER BY sb.createdAt DESC")
+    List<DiscussionFeedView> findSavedFeed(@Param("userId") Long userId);
+
+    @Query(FEED_SELECT + "FROM Discussion d JOIN d.creator c WHERE d.id IN :ids")
+    List<DiscussionFeedView> findFeedItems(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    // Ranked full-text matches after the (afterRank, afterId) keyset position; empty tag matches every tag
+    @Query(value = "SELECT r.id, r.rank FROM (" +
+                   "SELECT d.id, ts_rank(d.search_vector, q.query) AS rank " +
+                   "FROM discussions d CROSS JOIN websearch_to_tsquery('simple', :query) AS q(query) " +
+                   "WHERE d.search_vector @@ q.query AND (:tag = '' OR d.tag = :tag)) r " +
+                   "WHERE r.rank < :afterRank OR (r.rank = :afterRank AND r.id < :afterId) " +
+                   "ORDER BY r.rank DESC, r.id DESC LIMIT :limit", nativeQuery = true)
+    List<SearchHit> search(@Param("query") String query,
+                           @Param("tag") String tag,
+                           @Param("afterRank") float afterRank,
+                           @Param("afterId") long afterId,
+                           @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE discussions SET comment_count = comment_count + :delta WHERE id = :id", nativeQuery = true)
+    int adjustCommentCount(@Param("id") Long id, @Param("delta") int delta);
 }
@@ -7,7 +7,10 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface MessageRepository extends JpaRepository<Message, Long> {
 
@@ -18,6 +21,64 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
            "ORDER BY m.createdAt ASC")
     List<Message> findConversation(@Param("userId1") Long userId1, @Param("userId2") Long userId2);
 
+    // Rows strictly older than the cursor message, in (created_at, id) order
+    String BEFORE_CURSOR_SQL = "AND (created_at, id) < (:beforeCreatedAt, :beforeId) ";
+
+    // Fallback when the cursor message is gone: created_at is set once on insert, so ids follow it
+    String BEFORE_ID_SQL = "AND id < :beforeId ";
+
+    // Position of a cursor message, if it still exists in this conversation
+    @Query("SELECT m.createdAt FROM Message m WHERE m.id = :id AND (" +
+           "(m.sender.id = :userId1 AND m.receiver.id = :userId2) OR " +
+           "(m.sender.id = :userId2 AND m.receiver.id = :userId1))")
+    Optional<LocalDateTime> findCreatedAtInConversation(@Param("userId1") Long userId1, @Param("userId2") Long userId2,
+                                                        @Param("id") Long id);
+
+    // Newest page of a conversation, newest first. Each direction is read from
+    // idx_messages_pair_created and only `limit` rows are taken from either side.
+    @Query(value = "(SELECT * FROM messages WHERE sender_id = :userId1 AND receiver_id = :userId2 " +
+                   "ORDER BY created_at DESC, id DESC LIMIT :limit) " +
+                   "UNION ALL " +
+                   "(SELECT * FROM messages WHERE sender_id = :userId2 AND receiver_id = :userId1 " +
+                   "ORDER BY created_at DESC, id DESC LIMIT :limit) " +
+                   "ORDER BY created_at DESC, id DESC LIMIT :limit",
+           nativeQuery = true)
+    List<Message> findLatestConversationPage(@Param("userId1") Long userId1, @Param("userId2") Long userId2,
+                                             @Param("limit") int limit);
+
+    // The page of older messages that precedes message beforeId, newest first
+    @Query(value = "(SELECT * FROM messages WHERE sender_id = :userId1 AND receiver_id = :userId2 " + BEFORE_CURSOR_SQL +
+                   "ORDER BY created_at DESC, id DESC LIMIT :limit) " +
+                   "UNION ALL " +
+                   "(SELECT * FROM messages WHERE sender_id = :userId2 AND receiver_id = :userId1 " + BEFORE_CURSOR_SQL +
+                   "ORDER BY created_at DESC, id DESC LIMIT :limit) " +
+                   "ORDER BY created_at DESC, id DESC LIMIT :limit",
+           nativeQuery = true)
+    List<Message> findConversationPageBefore(@Param("userId1") Long userId1, @Param("userId2") Long userId2,
+                                             @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                             @Param("beforeId") Long beforeId, @Param("limit") int limit);
+
+    @Query(value = "(SELECT * FROM messages WHERE sender_id = :userId1 AND receiver_id = :userId2 " + BEFORE_ID_SQL +
+                   "ORDER BY created_at DESC, id DESC LIMIT :limit) " +
+                   "UNION ALL " +
+                   "(SELECT * FROM messages WHERE sender_id = :userId2 AND receiver_id = :userId1 " + BEFORE_ID_SQL +
+                   "ORDER BY created_at DESC, id DESC LIMIT :limit) " +
+                   "ORDER BY created_at DESC, id DESC LIMIT :limit",
+           nativeQuery = true)
+    List<Message> findConversationPageBeforeId(@Param("userId1") Long userId1, @Param("userId2") Long userId2,
+                                               @Param("beforeId") Long beforeId, @Param("limit") int limit);
+
+    /**
+     * A page of the conversation, newest first, older than message beforeId (or
+     * the newest page when null). A deleted cursor message falls back to its id.
+     */
+    default List<Message> findConversationPage(Long userId1, Long userId2, Long beforeId, int limit) {
+        if (beforeId == null) return findLatestConversationPage(userId1, userId2, limit);
+        return findCreatedAtInConversation(userId1, userId2, beforeId)
+                .map(createdAt -> findConversationPageBefore(userId1, userId2, createdAt, beforeId, limit))
+                .orElseGet(() -> findConversationPageBeforeId(userId1, userId2, beforeId, limit));
+    }
+
     // Get all conversations for a user (latest message per conversation)
     @Query(value = "SELECT * FROM (" +
                    "SELECT DISTINCT ON (LEAST(sender_id, receiver_id), GREATEST(sender_id, receiver_id)) * " +
@@ -31,6 +92,11 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     @Query("SELECT COUNT(m) FROM Message m WHERE m.receiver.id = :userId AND m.isRead = false")
     Long countUnreadMessages(@Param("userId") Long userId);
 
+    // Unread counts for several receivers at once, as (receiver_id, count) rows; receivers with none are absent
+    @Query("SELECT m.receiver.id, COUNT(m) FROM Message m WHERE m.receiver.id IN :userIds AND m.isRead = false " +
+           "GROUP BY m.receiver.id")
+    List<Object[]> countUnreadByReceivers(@Param("userIds") Collection<Long> userIds);
+
     // Count unread messages from a specific sender
     @Query("SELECT COUNT(m) FROM Message m WHERE m.receiver.id = :receiverId AND m.sender.id = :senderId AND m.isRead = false")
     Long countUnreadFromSender(@Param("receiverId") Long receiverId, @Param("senderId") Long senderId);
@@ -38,5 +104,5 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     // Mark messages as read
     @Modifying
     @Query("UPDATE Message m SET m.isRead = true WHERE m.receiver.id = :receiverId AND m.sender.id = :senderId AND m.isRead = false")
-    void markAsRead(@Param("receiverId") Long receiverId, @Param("senderId") Long senderId);
+    int markAsRead(@Param("receiverId") Long receiverId, @Param("senderId") Long senderId);
 }
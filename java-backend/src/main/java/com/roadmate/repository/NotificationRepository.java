@@ -1,31 +1,77 @@
 package com.roadmate.repository;
 
 import com.roadmate.model.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
 
-    // Get all notifications for a user (newest first)
-    List<Notification> findByUserIdOrderByCreatedAtDesc(Long userId);
+    /**
+     * A notification as shown in the inbox, with the sender's columns joined in
+     * so mapping never touches the lazy sender association.
+     */
+    interface InboxView {
+        Long getId();
+        String getType();
+        String getTitle();
+        String getMessage();
+        Boolean getIsRead();
+        LocalDateTime getCreatedAt();
+        Long getSenderId();
+        String getSenderName();
+        String getSenderImage();
+        String getData();
+        Integer getGroupCount();
+    }
 
-    // Get unread notifications for a user
-    List<Notification> findByUserIdAndIsReadFalseOrderByCreatedAtDesc(Long userId);
+    String INBOX_SELECT =
+            "SELECT n.id AS id, n.type AS type, n.title AS title, n.message AS message, n.isRead AS isRead, " +
+            "n.createdAt AS createdAt, s.id AS senderId, s.name AS senderName, s.image AS senderImage, " +
+            "n.data AS data, n.groupCount AS groupCount " +
+            "FROM Notification n LEFT JOIN n.sender s WHERE n.user.id = :userId ";
 
-    // Count unread notifications
-    Long countByUserIdAndIsReadFalse(Long userId);
+    // Rows strictly after the cursor position, in (created_at, id) order
+    String BEFORE_CURSOR = "AND (n.createdAt, n.id) < (:beforeCreatedAt, :beforeId) ";
+
+    String INBOX_ORDER = "ORDER BY n.createdAt DESC, n.id DESC";
+
+    // Newest page of the inbox, read from idx_notifications_inbox
+    @Query(INBOX_SELECT + INBOX_ORDER)
+    List<InboxView> findLatestInboxPage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(INBOX_SELECT + BEFORE_CURSOR + INBOX_ORDER)
+    List<InboxView> findInboxPageBefore(@Param("userId") Long userId, @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                        @Param("beforeId") Long beforeId, Pageable pageable);
+
+    @Query(INBOX_SELECT + "AND n.isRead = false " + INBOX_ORDER)
+    List<InboxView> findLatestUnreadPage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(INBOX_SELECT + "AND n.isRead = false " + BEFORE_CURSOR + INBOX_ORDER)
+    List<InboxView> findUnreadPageBefore(@Param("userId") Long userId, @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                         @Param("beforeId") Long beforeId, Pageable pageable);
+
+    // count(*) with the is_read predicate is answered from the partial idx_notifications_unread alone
+    @Query(value = "SELECT count(*) FROM notifications WHERE user_id = :userId AND is_read = false", nativeQuery = true)
+    long countUnread(@Param("userId") Long userId);
+
+    @Query(value = "SELECT user_id, count(*) FROM notifications WHERE user_id IN (:userIds) AND is_read = false " +
+                   "GROUP BY user_id", nativeQuery = true)
+    List<Object[]> countUnreadByUsers(@Param("userIds") Collection<Long> userIds);
 
     // Mark all as read for a user
     @Modifying
     @Query("UPDATE Notification n SET n.isRead = true WHERE n.user.id = :userId AND n.isRead = false")
     void markAllAsRead(@Param("userId") Long userId);
 
-    // Mark single notification as read
+    // Mark single notification as read; returns 0 if it was already read or belongs to someone else
     @Modifying
-    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :notificationId")
-    void markAsRead(@Param("notificationId") Long notificationId);
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :notificationId AND n.user.id = :userId AND n.isRead = false")
+    int markAsRead(@Param("userId") Long userId, @Param("notificationId") Long notificationId);
 }
@@ -0,0 +1,32 @@
+package com.roadmate.repository;
+
+import com.roadmate.model.PushTicket;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface PushTicketRepository extends JpaRepository<PushTicket, Long> {
+
+    // Tickets old enough for Expo to have a receipt, walked by id
+    @Query("SELECT t FROM PushTicket t WHERE t.id > :afterId AND t.createdAt < :readyBefore ORDER BY t.id")
+    List<PushTicket> findReadyAfter(@Param("afterId") Long afterId,
+                                    @Param("readyBefore") LocalDateTime readyBefore,
+                                    Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PushTicket t WHERE t.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PushTicket t WHERE t.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
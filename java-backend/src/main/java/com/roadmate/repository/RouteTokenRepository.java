@@ -0,0 +1,30 @@
+package com.roadmate.repository;
+
+import com.roadmate.model.RouteToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface RouteTokenRepository extends JpaRepository<RouteToken, Long> {
+
+    interface UserRouteView {
+        Long getId();
+        String getRoute();
+    }
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RouteToken t WHERE t.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    // Users with a route but no tokens yet (rows written before the index existed)
+    @Query(value = "SELECT u.id AS id, u.route AS route FROM users u " +
+                   "WHERE u.route IS NOT NULL AND u.route != '' AND u.id > :afterId " +
+                   "AND NOT EXISTS (SELECT 1 FROM route_tokens t WHERE t.user_id = u.id) " +
+                   "ORDER BY u.id LIMIT :limit", nativeQuery = true)
+    List<UserRouteView> findUnindexedRoutes(@Param("afterId") Long afterId, @Param("limit") int limit);
+}
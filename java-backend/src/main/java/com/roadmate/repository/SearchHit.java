@@ -0,0 +1,9 @@
+package com.roadmate.repository;
+
+/**
+ * One full-text match: the row id and its ts_rank, in result order.
+ */
+public interface SearchHit {
+    Long getId();
+    Float getRank();
+}
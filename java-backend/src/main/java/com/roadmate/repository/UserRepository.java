@@ -1,50 +1,124 @@
 package com.roadmate.repository;
 
 import com.roadmate.model.User;
+import com.roadmate.util.GeoUtils;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    interface LocationView {
+        Long getId();
+        Double getLatitude();
+        Double getLongitude();
+    }
+
+    // Lightweight id + coordinates snapshot used to warm NomadLocationIndex
+    @Query("SELECT u.id AS id, u.latitude AS latitude, u.longitude AS longitude FROM User u " +
+           "WHERE u.latitude IS NOT NULL AND u.longitude IS NOT NULL")
+    List<LocationView> findAllLocations();
+
+    int NEARBY_LIMIT = 20;
+
+    // Haversine distance in km between :lat/:lng and the row's coordinates
+    String DISTANCE_SQL = "(6371 * acos(cos(radians(:lat)) * cos(radians(latitude)) * " +
+                          "cos(radians(longitude) - radians(:lng)) + sin(radians(:lat)) * " +
+                          "sin(radians(latitude))))";
+
+    // Bounding box prefilter served by idx_users_lat_lng; haversine only runs on rows inside it
+    String IN_BOX_SQL = "latitude BETWEEN :minLat AND :maxLat AND longitude BETWEEN :minLng AND :maxLng ";
+
     /**
      * Haversine Formülü kullanılarak kullanıcının mevcut
-     * koordinatlarına göre en yakın 20 kişiyi bulur
+     * koordinatlarına göre en yakın 20 kişiyi bulur.
+     * Önce giderek büyüyen bir kutu içinde arar, yeterli sonuç yoksa tüm tabloya bakar.
      */
-    @Query(value = "SELECT *, (6371 * acos(cos(radians(:lat)) * cos(radians(latitude)) * " +
-                   "cos(radians(longitude) - radians(:lng)) + sin(radians(:lat)) * " +
-                   "sin(radians(latitude)))) AS distance FROM users " +
-                   "WHERE latitude IS NOT NULL AND longitude IS NOT NULL " +
-                   "ORDER BY distance LIMIT 20", nativeQuery = true)
-    List<User> findNearbyNomads(@Param("lat") Double lat, @Param("lng") Double lng);
+    default List<User> findNearbyNomads(Double lat, Double lng) {
+        for (double radiusKm : new double[] {50, 500}) {
+            GeoUtils.BoundingBox box = GeoUtils.boundingBox(lat, lng, radiusKm);
+            List<User> users = findNearbyNomadsInBox(lat, lng,
+                    box.minLat(), box.maxLat(), box.minLng(), box.maxLng());
+            // Anything outside the box is farther than radiusKm, so a full page inside the radius is exact
+            if (users.size() == NEARBY_LIMIT && GeoUtils.haversineKm(lat, lng,
+                    users.get(NEARBY_LIMIT - 1).getLatitude(), users.get(NEARBY_LIMIT - 1).getLongitude()) <= radiusKm) {
+                return users;
+            }
+        }
+        return findNearbyNomadsUnbounded(lat, lng);
+    }
 
-    @Query(value = "SELECT *, (6371 * acos(cos(radians(:lat)) * cos(radians(latitude)) * " +
-                   "cos(radians(longitude) - radians(:lng)) + sin(radians(:lat)) * " +
-                   "sin(radians(latitude)))) AS distance FROM users " +
+    @Query(value = "SELECT *, " + DISTANCE_SQL + " AS distance FROM users " +
+                   "WHERE " + IN_BOX_SQL +
+                   "ORDER BY distance LIMIT " + NEARBY_LIMIT, nativeQuery = true)
+    List<User> findNearbyNomadsInBox(
+            @Param("lat") Double lat,
+            @Param("lng") Double lng,
+            @Param("minLat") Double minLat,
+            @Param("maxLat") Double maxLat,
+            @Param("minLng") Double minLng,
+            @Param("maxLng") Double maxLng);
+
+    @Query(value = "SELECT *, " + DISTANCE_SQL + " AS distance FROM users " +
                    "WHERE latitude IS NOT NULL AND longitude IS NOT NULL " +
+                   "ORDER BY distance LIMIT " + NEARBY_LIMIT, nativeQuery = true)
+    List<User> findNearbyNomadsUnbounded(@Param("lat") Double lat, @Param("lng") Double lng);
+
+    default List<User> findUsersWithPushTokenWithinRadius(Double lat, Double lng, Double radiusKm, Long excludeUserId) {
+        GeoUtils.BoundingBox box = GeoUtils.boundingBox(lat, lng, radiusKm);
+        return findUsersWithPushTokenInBox(lat, lng, radiusKm, excludeUserId,
+                box.minLat(), box.maxLat(), box.minLng(), box.maxLng());
+    }
+
+    @Query(value = "SELECT *, " + DISTANCE_SQL + " AS distance FROM users " +
+                   "WHERE " + IN_BOX_SQL +
                    "AND expo_push_token IS NOT NULL " +
                    "AND id != :excludeUserId " +
-                   "AND (6371 * acos(cos(radians(:lat)) * cos(radians(latitude)) * " +
-                   "cos(radians(longitude) - radians(:lng)) + sin(radians(:lat)) * " +
-                   "sin(radians(latitude)))) <= :radiusKm " +
+                   "AND " + DISTANCE_SQL + " <= :radiusKm " +
                    "ORDER BY distance", nativeQuery = true)
-    List<User> findUsersWithPushTokenWithinRadius(
+    List<User> findUsersWithPushTokenInBox(
             @Param("lat") Double lat,
             @Param("lng") Double lng,
             @Param("radiusKm") Double radiusKm,
-            @Param("excludeUserId") Long excludeUserId);
+            @Param("excludeUserId") Long excludeUserId,
+            @Param("minLat") Double minLat,
+            @Param("maxLat") Double maxLat,
+            @Param("minLng") Double minLng,
+            @Param("maxLng") Double maxLng);
 
-    @Query(value = "SELECT *, (6371 * acos(cos(radians(:lat)) * cos(radians(latitude)) * " +
-                   "cos(radians(longitude) - radians(:lng)) + sin(radians(:lat)) * " +
-                   "sin(radians(latitude)))) AS distance FROM users " +
-                   "WHERE latitude IS NOT NULL AND longitude IS NOT NULL " +
-                   "AND sos_active = true " +
+    // Active SOS users are few (two-hour window, idx_users_sos_active), so no box is needed for the full list
+    @Query(value = "SELECT *, " + DISTANCE_SQL + " AS distance FROM users " +
+                   "WHERE sos_active = true " +
+                   "AND sos_activated_at IS NOT NULL " +
+                   "AND sos_activated_at > NOW() - INTERVAL '2 hours' " +
+                   "AND latitude IS NOT NULL AND longitude IS NOT NULL " +
+                   "ORDER BY distance", nativeQuery = true)
+    List<User> findActiveSOSUsers(@Param("lat") Double lat, @Param("lng") Double lng);
+
+    default List<User> findActiveSOSUsersNearby(Double lat, Double lng, Double radiusKm) {
+        GeoUtils.BoundingBox box = GeoUtils.boundingBox(lat, lng, radiusKm);
+        return findActiveSOSUsersInBox(lat, lng, radiusKm, box.minLat(), box.maxLat(), box.minLng(), box.maxLng());
+    }
+
+    @Query(value = "SELECT *, " + DISTANCE_SQL + " AS distance FROM users " +
+                   "WHERE sos_active = true " +
                    "AND sos_activated_at IS NOT NULL " +
                    "AND sos_activated_at > NOW() - INTERVAL '2 hours' " +
+                   "AND " + IN_BOX_SQL +
+                   "AND " + DISTANCE_SQL + " <= :radiusKm " +
                    "ORDER BY distance", nativeQuery = true)
-    List<User> findActiveSOSUsersNearby(@Param("lat") Double lat, @Param("lng") Double lng);
+    List<User> findActiveSOSUsersInBox(
+            @Param("lat") Double lat,
+            @Param("lng") Double lng,
+            @Param("radiusKm") Double radiusKm,
+            @Param("minLat") Double minLat,
+            @Param("maxLat") Double maxLat,
+            @Param("minLng") Double minLng,
+            @Param("maxLng") Double maxLng);
 
     @Modifying
     @Transactional
@@ -53,13 +127,28 @@ public interface UserRepository extends JpaRepository<User, Long> {
                    "AND sos_activated_at < NOW() - INTERVAL '2 hours'", nativeQuery = true)
     int deactivateExpiredSOS();
 
+    // Expo reported these tokens as DeviceNotRegistered; stop including them in fan-outs
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.expoPushToken = NULL WHERE u.expoPushToken IN :tokens")
+    int clearExpoPushTokens(@Param("tokens") Collection<String> tokens);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE users SET connection_count = connection_count + :delta WHERE id IN (:ids)", nativeQuery = true)
+    int adjustConnectionCount(@Param("ids") Collection<Long> ids, @Param("delta") int delta);
+
+    @Query("SELECT u.connectionCount FROM User u WHERE u.id = :id")
+    Integer findConnectionCountById(@Param("id") Long id);
+
     java.util.Optional<User> findByEmail(String email);
     boolean existsByUsername(String username);
 
-    @Query(value = "SELECT * FROM users WHERE route IS NOT NULL AND route != '' " +
-                   "AND LOWER(route) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
-                   "AND id != :excludeUserId " +
-                   "AND expo_push_token IS NOT NULL " +
+    // :token is a RouteParser.normalize key; served by idx_route_tokens_token
+    @Query(value = "SELECT u.* FROM users u WHERE u.id IN " +
+                   "(SELECT t.user_id FROM route_tokens t WHERE t.token = :token) " +
+                   "AND u.id != :excludeUserId " +
+                   "AND u.expo_push_token IS NOT NULL " +
                    "LIMIT 20", nativeQuery = true)
-    List<User> findUsersWithMatchingRoute(@Param("keyword") String keyword, @Param("excludeUserId") Long excludeUserId);
+    List<User> findUsersWithMatchingRoute(@Param("token") String token, @Param("excludeUserId") Long excludeUserId);
 }
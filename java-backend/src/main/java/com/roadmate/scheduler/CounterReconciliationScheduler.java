@@ -0,0 +1,72 @@
+package com.roadmate.scheduler;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Recomputes the denormalized counters (discussions.comment_count,
+ * assist_requests.message_count, activities.participant_count,
+ * users.connection_count) and repairs rows that drifted.
+ *
+ * Each counter is walked by id range, one UPDATE per range, so no statement
+ * locks more than a batch of rows. Only rows whose stored value differs are
+ * written. The first run after startup also fills counters for rows created
+ * before the columns existed.
+ */
+@Component
+public class CounterReconciliationScheduler {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private record Counter(String table, String column, String countSql) {
+    }
+
+    // countSql counts for the row aliased t2
+    private static final List<Counter> COUNTERS = List.of(
+            new Counter("discussions", "comment_count",
+                    "SELECT COUNT(*) FROM discussion_comments c WHERE c.discussion_id = t2.id"),
+            new Counter("assist_requests", "message_count",
+                    "SELECT COUNT(*) FROM assist_messages m WHERE m.assist_request_id = t2.id"),
+            new Counter("activities", "participant_count",
+                    "SELECT COUNT(*) FROM activity_participants p WHERE p.activity_id = t2.id"),
+            new Counter("users", "connection_count",
+                    "SELECT COUNT(*) FROM connections c WHERE (c.user_id = t2.id OR c.connected_user_id = t2.id) " +
+                    "AND c.status = 'ACCEPTED'"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Every 6 hours, starting shortly after boot
+    @Scheduled(initialDelay = 60000, fixedDelay = 21600000)
+    public void reconcileCounters() {
+        for (Counter counter : COUNTERS) {
+            try {
+                int repaired = reconcile(counter);
+                if (repaired > 0) {
+                    System.out.println("Repaired " + repaired + " " + counter.table() + "." + counter.column() + " value(s).");
+                }
+            } catch (Exception e) {
+                System.err.println("Counter reconciliation failed for " + counter.table() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private int reconcile(Counter counter) {
+        Long maxId = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(id), 0) FROM " + counter.table(), Long.class);
+        String sql = "UPDATE " + counter.table() + " t SET " + counter.column() + " = s.n " +
+                "FROM (SELECT t2.id, (" + counter.countSql() + ") AS n FROM " + counter.table() + " t2 " +
+                "WHERE t2.id > ? AND t2.id <= ?) s " +
+                "WHERE t.id = s.id AND t." + counter.column() + " IS DISTINCT FROM s.n";
+
+        int repaired = 0;
+        for (long from = 0; from < maxId; from += BATCH_SIZE) {
+            repaired += jdbcTemplate.update(sql, from, from + BATCH_SIZE);
+        }
+        return repaired;
+    }
+}
@@ -0,0 +1,214 @@
+package com.roadmate.scheduler;
+
+import com.roadmate.service.UnreadCounterStore;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the notifications table bounded.
+ *
+ * Read notifications are removed once they are older than their type's
+ * retention (notifications.retention.read-days-by-type, falling back to
+ * read-days). Unread notifications are kept unless unread-days is set above
+ * 0, since users may still act on them; it is off by default. Rows go in
+ * chunks of batch-size ids, each chunk its own short statement, so no run
+ * holds locks on more than one chunk. With archive=true the chunk is moved
+ * to notifications_archive instead of being dropped, and archived rows are
+ * deleted after archive-days.
+ */
+@Component
+public class NotificationRetentionScheduler {
+
+    private static final String ARCHIVE_COLUMNS =
+            "id, user_id, sender_id, type, title, message, is_read, created_at, data, group_count";
+
+    private static final String[] ARCHIVE_DDL = {
+            "CREATE TABLE IF NOT EXISTS notifications_archive (LIKE notifications INCLUDING DEFAULTS)",
+            "ALTER TABLE notifications_archive ADD COLUMN IF NOT EXISTS archived_at timestamp NOT NULL DEFAULT now()",
+            "CREATE INDEX IF NOT EXISTS idx_notifications_archive_archived_at ON notifications_archive (archived_at)"
+    };
+
+    private static final String DEFAULT_POLICY = "*";
+    private static final String UNREAD_POLICY = "unread";
+    private static final String ARCHIVE_POLICY = "archive";
+
+    // predicate is ANDed with "created_at < ?"; args are bound before the cutoff
+    private record Policy(String name, String predicate, List<Object> args, int days) {
+    }
+
+    @Value("${notifications.retention.read-days:30}")
+    private int readDays;
+
+    // TYPE:days pairs, e.g. SOS_ALERT:7,MESSAGE:14
+    @Value("${notifications.retention.read-days-by-type:}")
+    private String readDaysByType;
+
+    @Value("${notifications.retention.unread-days:0}")
+    private int unreadDays;
+
+    @Value("${notifications.retention.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${notifications.retention.max-batches-per-run:200}")
+    private int maxBatchesPerRun;
+
+    @Value("${notifications.retention.archive:false}")
+    private boolean archive;
+
+    @Value("${notifications.retention.archive-days:365}")
+    private int archiveDays;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UnreadCounterStore unreadCounterStore;
+
+    private List<Policy> policies = Collections.emptyList();
+    private volatile boolean archiveReady;
+
+    private final Map<String, AtomicLong> purgedByPolicy = new ConcurrentHashMap<>();
+    private final AtomicLong purgedTotal = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile LocalDateTime lastRunAt;
+    private volatile long lastRunMillis;
+
+    @PostConstruct
+    void buildPolicies() {
+        List<Policy> built = new ArrayList<>();
+        List<Object> typed = new ArrayList<>();
+        for (String entry : readDaysByType.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) continue;
+            String type = parts[0].trim();
+            built.add(new Policy(type, "is_read = true AND type = ?", List.of(type), Integer.parseInt(parts[1].trim())));
+            typed.add(type);
+        }
+        if (typed.isEmpty()) {
+            built.add(new Policy(DEFAULT_POLICY, "is_read = true", List.of(), readDays));
+        } else {
+            String placeholders = String.join(", ", Collections.nCopies(typed.size(), "?"));
+            built.add(new Policy(DEFAULT_POLICY, "is_read = true AND type NOT IN (" + placeholders + ")", typed, readDays));
+        }
+        built.add(new Policy(UNREAD_POLICY, "is_read = false", List.of(), unreadDays));
+        policies = built;
+    }
+
+    // Hourly by default; every chunk is its own transaction
+    @Scheduled(initialDelay = 120000, fixedDelayString = "${notifications.retention.interval-ms:3600000}")
+    public void purgeExpiredNotifications() {
+        long start = System.currentTimeMillis();
+        long purged = 0;
+        for (Policy policy : policies) {
+            if (policy.days() <= 0) continue;
+            try {
+                long removed = purge(policy);
+                if (removed > 0 && UNREAD_POLICY.equals(policy.name())) {
+                    // Unread rows went away underneath the in-memory counts
+                    unreadCounterStore.invalidate(UnreadCounterStore.Kind.NOTIFICATIONS);
+                }
+                purged += removed;
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                System.err.println("Notification retention failed for " + policy.name() + ": " + e.getMessage());
+            }
+        }
+        if (archive && archiveDays > 0) {
+            try {
+                purgeArchive();
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                System.err.println("Notification archive trim failed: " + e.getMessage());
+            }
+        }
+        runs.incrementAndGet();
+        lastRunAt = LocalDateTime.now();
+        lastRunMillis = System.currentTimeMillis() - start;
+        if (purged > 0) {
+            System.out.println((archive ? "Archived " : "Purged ") + purged + " expired notification(s) in " + lastRunMillis + " ms.");
+        }
+    }
+
+    private long purge(Policy policy) {
+        String select = "SELECT id FROM notifications WHERE " + policy.predicate() + " AND created_at < ? LIMIT ?";
+        String sql;
+        if (archive) {
+            ensureArchiveTable();
+            sql = "WITH moved AS (DELETE FROM notifications WHERE id IN (" + select + ") RETURNING " + ARCHIVE_COLUMNS + ") " +
+                  "INSERT INTO notifications_archive (" + ARCHIVE_COLUMNS + ") SELECT " + ARCHIVE_COLUMNS + " FROM moved";
+        } else {
+            sql = "DELETE FROM notifications WHERE id IN (" + select + ")";
+        }
+
+        List<Object> args = new ArrayList<>(policy.args());
+        args.add(Timestamp.valueOf(LocalDateTime.now().minusDays(policy.days())));
+        args.add(batchSize);
+        return runBatches(policy.name(), sql, args.toArray());
+    }
+
+    private void purgeArchive() {
+        ensureArchiveTable();
+        String sql = "DELETE FROM notifications_archive WHERE id IN " +
+                     "(SELECT id FROM notifications_archive WHERE archived_at < ? LIMIT ?)";
+        runBatches(ARCHIVE_POLICY, sql, new Object[] {
+                Timestamp.valueOf(LocalDateTime.now().minusDays(archiveDays)), batchSize });
+    }
+
+    private long runBatches(String policyName, String sql, Object[] args) {
+        long total = 0;
+        int rows;
+        int n = 0;
+        do {
+            rows = jdbcTemplate.update(sql, args);
+            batches.incrementAndGet();
+            total += rows;
+        } while (rows == batchSize && ++n < maxBatchesPerRun);
+
+        if (total > 0) {
+            purgedByPolicy.computeIfAbsent(policyName, k -> new AtomicLong()).addAndGet(total);
+            if (!ARCHIVE_POLICY.equals(policyName)) {
+                purgedTotal.addAndGet(total);
+            }
+        }
+        return total;
+    }
+
+    private void ensureArchiveTable() {
+        if (archiveReady) return;
+        for (String statement : ARCHIVE_DDL) {
+            jdbcTemplate.execute(statement);
+        }
+        archiveReady = true;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<String, Long> byPolicy = new LinkedHashMap<>();
+        purgedByPolicy.forEach((name, count) -> byPolicy.put(name, count.get()));
+        stats.put("mode", archive ? "archive" : "delete");
+        stats.put("purgedTotal", purgedTotal.get());
+        stats.put("purgedByPolicy", byPolicy);
+        stats.put("batches", batches.get());
+        stats.put("runs", runs.get());
+        stats.put("failures", failures.get());
+        stats.put("lastRunAt", lastRunAt != null ? lastRunAt.toString() : null);
+        stats.put("lastRunMillis", lastRunMillis);
+        return stats;
+    }
+}
@@ -0,0 +1,22 @@
+package com.roadmate.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Injects the authenticated user into a controller method parameter of type
+ * {@link UserPrincipal} or {@link com.roadmate.model.User}.
+ *
+ * When {@link #required()} is true an unauthenticated request is rejected with
+ * 401, otherwise the parameter is null.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+
+    boolean required() default true;
+}
@@ -0,0 +1,48 @@
+package com.roadmate.security;
+
+import com.roadmate.exception.UnauthorizedException;
+import com.roadmate.model.User;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Resolves {@link CurrentUser} parameters from the principal the JWT filter put
+ * into the security context.
+ */
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        if (!parameter.hasParameterAnnotation(CurrentUser.class)) return false;
+        Class<?> type = parameter.getParameterType();
+        return type == UserPrincipal.class || type == User.class;
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        UserPrincipal principal = currentPrincipal();
+        if (principal == null) {
+            if (parameter.getParameterAnnotation(CurrentUser.class).required()) {
+                throw new UnauthorizedException("Authorization required");
+            }
+            return null;
+        }
+        return parameter.getParameterType() == User.class ? principal.getUser() : principal;
+    }
+
+    private UserPrincipal currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal;
+        }
+        return null;
+    }
+}
@@ -2,11 +2,16 @@ package com.roadmate.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.time.Clock;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 public class JwtUtils {
@@ -17,28 +22,68 @@ public class JwtUtils {
     @Value("${jwt.expiration}")
     private int jwtExpirationMs;
 
+    @Value("${jwt.cache.max-entries:10000}")
+    private int cacheMaxEntries;
+
+    // Single time source for issuing, parsing and cache expiry; replaced in tests
+    Clock clock = Clock.systemUTC();
+
+    // Both are immutable and thread-safe, so they are built once
+    private Key signingKey;
+    private JwtParser parser;
+
+    // Recently verified tokens; a hit skips the HMAC check until the token expires
+    private Map<String, VerifiedToken> verified;
+
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    private record VerifiedToken(String subject, long expiresAtMillis) {
+    }
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .setClock(() -> new Date(clock.millis()))
+                .build();
+        verified = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > cacheMaxEntries;
+            }
+        };
+    }
+
     public String generateToken(String email) {
+        long now = clock.millis();
         return Jwts.builder()
                 .setSubject(email)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + jwtExpirationMs))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    private Key key() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
-    }
-
     public String getEmailFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-               .parseClaimsJws(token).getBody().getSubject();
+        String cached = cachedSubject(token);
+        if (cached != null) return cached;
+        return verify(token);
     }
 
     public boolean validateJwtToken(String authToken) {
+        return getEmailFromValidToken(authToken) != null;
+    }
+
+    /**
+     * Validate the token and return its subject in one parse, or null if the token is invalid.
+     */
+    public String getEmailFromValidToken(String authToken) {
+        String cached = cachedSubject(authToken);
+        if (cached != null) return cached;
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parse(authToken);
-            return true;
+            return verify(authToken);
         } catch (MalformedJwtException e) {
             System.err.println("Invalid JWT token: " + e.getMessage());
         } catch (ExpiredJwtException e) {
@@ -47,7 +92,48 @@ public class JwtUtils {
             System.err.println("JWT token is unsupported: " + e.getMessage());
         } catch (IllegalArgumentException e) {
             System.err.println("JWT claims string is empty: " + e.getMessage());
+        } catch (JwtException e) {
+            System.err.println("Invalid JWT signature: " + e.getMessage());
+        }
+        return null;
+    }
+
+    public Map<String, Object> cacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (verified) {
+            stats.put("cachedTokens", verified.size());
+        }
+        stats.put("hits", cacheHits.get());
+        stats.put("misses", cacheMisses.get());
+        return stats;
+    }
+
+    private String cachedSubject(String token) {
+        if (token == null) return null;
+        synchronized (verified) {
+            VerifiedToken entry = verified.get(token);
+            if (entry != null) {
+                if (entry.expiresAtMillis() > clock.millis()) {
+                    cacheHits.incrementAndGet();
+                    return entry.subject();
+                }
+                // Expired: drop it and let the parser report the expiry
+                verified.remove(token);
+            }
+        }
+        return null;
+    }
+
+    private String verify(String token) {
+        cacheMisses.incrementAndGet();
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Date expiration = claims.getExpiration();
+        if (claims.getSubject() != null) {
+            long expiresAt = expiration != null ? expiration.getTime() : Long.MAX_VALUE;
+            synchronized (verified) {
+                verified.put(token, new VerifiedToken(claims.getSubject(), expiresAt));
+            }
         }
-        return false;
+        return claims.getSubject();
     }
 }
@@ -0,0 +1,83 @@
+package com.roadmate.security;
+
+import com.roadmate.model.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The authenticated user of the current request.
+ *
+ * Built once by {@link JwtAuthenticationFilter} from the user row loaded for the
+ * token, and handed to controllers through {@link CurrentUser} so they neither
+ * re-parse the token nor look the user up again.
+ */
+public class UserPrincipal implements UserDetails {
+
+    private final User user;
+
+    public UserPrincipal(User user) {
+        this.user = user;
+    }
+
+    public Long getId() {
+        return user.getId();
+    }
+
+    public String getEmail() {
+        return user.getEmail();
+    }
+
+    public String getSubscriptionType() {
+        return user.getSubscriptionType();
+    }
+
+    public boolean isPro() {
+        return "pro".equals(user.getSubscriptionType());
+    }
+
+    /**
+     * The user row as loaded by the filter. It is detached from the request's
+     * persistence context; saving it merges the changes as before.
+     */
+    public User getUser() {
+        return user;
+    }
+
+    @Override
+    public String getUsername() {
+        return user.getEmail();
+    }
+
+    @Override
+    public String getPassword() {
+        return user.getPassword() != null ? user.getPassword() : "";
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of();
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
@@ -3,24 +3,39 @@ package com.roadmate.service;
 import com.roadmate.dto.ActivityDto;
 import com.roadmate.dto.CreateActivityRequest;
 import com.roadmate.dto.UpdateActivityRequest;
+import com.roadmate.exception.BadRequestException;
 import com.roadmate.model.Activity;
 import com.roadmate.model.Connection;
 import com.roadmate.model.User;
 import com.roadmate.repository.ActivityRepository;
 import com.roadmate.repository.ConnectionRepository;
 import com.roadmate.repository.UserRepository;
+import com.roadmate.util.GeoUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class ActivityService {
 
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
     @Autowired
     private ActivityRepository activityRepository;
 
@@ -33,16 +48,42 @@ public class ActivityService {
     @Autowired
     private UserRepository userRepository;
 
-    public List<ActivityDto> getActivities(User currentUser) {
-        List<Activity> activities = activityRepository.findActivitiesForUser(currentUser.getId());
+    /**
+     * One page of activities from the user's friends and the user, newest first.
+     * The friend ids are read once and the page comes from a single projection query.
+     */
+    public Slice<ActivityDto> getActivities(User currentUser, int page, int size) {
+        Set<Long> creatorIds = new HashSet<>(connectionRepository.findAcceptedConnectionIds(currentUser.getId()));
+        creatorIds.add(currentUser.getId());
+        return activityRepository.findFeed(creatorIds, currentUser.getId(), PageRequest.of(page, size))
+                .map(this::mapToDto);
+    }
 
-        return activities.stream().map(activity -> mapToDto(activity, currentUser)).collect(Collectors.toList());
+    /**
+     * Upcoming activities within radiusKm of a point, soonest first. The id query
+     * uses the date index and a bounding box; the page is then loaded with the feed projection.
+     */
+    public List<ActivityDto> getUpcomingNear(User currentUser, double lat, double lng, double radiusKm, int limit) {
+        GeoUtils.BoundingBox box = GeoUtils.boundingBox(lat, lng, radiusKm);
+        List<Long> ids = activityRepository.findUpcomingIdsNear(lat, lng, radiusKm,
+                box.minLat(), box.maxLat(), box.minLng(), box.maxLng(), limit);
+        if (ids.isEmpty()) return List.of();
+
+        Map<Long, ActivityRepository.ActivityFeedView> views = new HashMap<>();
+        for (ActivityRepository.ActivityFeedView view : activityRepository.findFeedItems(ids, currentUser.getId())) {
+            views.put(view.getId(), view);
+        }
+        return ids.stream()
+                .map(views::get)
+                .filter(Objects::nonNull)
+                .map(this::mapToDto)
+                .collect(Collectors.toList());
     }
 
     public ActivityDto getActivity(Long activityId, User currentUser) {
         Activity activity = activityRepository.findById(activityId)
                 .orElseThrow(() -> new RuntimeException("Activity not found"));
-        return mapToDto(activity, currentUser);
+        return mapToDto(activity, hasJoined(activity, currentUser));
     }
 
     @Transactional
@@ -52,8 +93,10 @@ public class ActivityService {
                 .title(request.getTitle())
                 .description(request.getDescription())
                 .location(request.getLocation())
-                .date(request.getDate())
-                .time(request.getTime())
+                .date(parseDate(request.getDate()))
+                .time(parseTime(request.getTime()))
+                .latitude(request.getLatitude())
+                .longitude(request.getLongitude())
                 .type(request.getType())
                 .image(request.getImage())
                 .createdAt(LocalDateTime.now())
@@ -64,7 +107,7 @@ public class ActivityService {
         // Notify all connected users
         notifyConnectedUsers(creator, savedActivity);
 
-        return mapToDto(savedActivity, creator);
+        return mapToDto(savedActivity, false);
     }
 
     @Transactional
@@ -79,13 +122,15 @@ public class ActivityService {
         activity.setTitle(request.getTitle());
         activity.setDescription(request.getDescription());
         activity.setLocation(request.getLocation());
-        activity.setDate(request.getDate());
-        activity.setTime(request.getTime());
+        activity.setDate(parseDate(request.getDate()));
+        activity.setTime(parseTime(request.getTime()));
+        activity.setLatitude(request.getLatitude());
+        activity.setLongitude(request.getLongitude());
         activity.setType(request.getType());
         activity.setImage(request.getImage());
 
         Activity savedActivity = activityRepository.save(activity);
-        return mapToDto(savedActivity, user);
+        return mapToDto(savedActivity, hasJoined(savedActivity, user));
     }
 
     @Transactional
@@ -97,12 +142,11 @@ public class ActivityService {
             throw new RuntimeException("Cannot join a past activity");
         }
 
-        if (activity.getParticipants().contains(user)) {
+        // The participant set is never loaded; the insert tells whether this is a new join
+        if (activityRepository.addParticipant(activityId, user.getId()) == 0) {
             throw new RuntimeException("You have already joined this activity");
         }
-
-        activity.getParticipants().add(user);
-        activityRepository.save(activity);
+        activityRepository.adjustParticipantCount(activityId, 1);
 
         // Notify activity creator
         if (!activity.getCreator().getId().equals(user.getId())) {
@@ -119,11 +163,13 @@ public class ActivityService {
 
     @Transactional
     public void leaveActivity(User user, Long activityId) {
-        Activity activity = activityRepository.findById(activityId)
-                .orElseThrow(() -> new RuntimeException("Activity not found"));
+        if (!activityRepository.existsById(activityId)) {
+            throw new RuntimeException("Activity not found");
+        }
 
-        activity.getParticipants().remove(user);
-        activityRepository.save(activity);
+        if (activityRepository.removeParticipant(activityId, user.getId()) > 0) {
+            activityRepository.adjustParticipantCount(activityId, -1);
+        }
     }
 
     @Transactional
@@ -139,18 +185,21 @@ public class ActivityService {
         activityRepository.save(activity);
 
         // Notify all participants about cancellation
+        List<User> participants = new ArrayList<>();
         for (User participant : activity.getParticipants()) {
             if (!participant.getId().equals(user.getId())) {
-                notificationService.createNotification(
-                        participant,
-                        user,
-                        "ACTIVITY_CANCELLED",
-                        "Activity Cancelled",
-                        user.getName() + " cancelled the activity: " + activity.getTitle(),
-                        "{\"activityId\": " + activityId + "}"
-                );
+                participants.add(participant);
             }
         }
+        notificationService.createNotifications(
+                participants,
+                user,
+                "ACTIVITY_CANCELLED",
+                "Activity Cancelled",
+                user.getName() + " cancelled the activity: " + activity.getTitle(),
+                "{\"activityId\": " + activityId + "}",
+                false
+        );
     }
 
     private void notifyConnectedUsers(User creator, Activity activity) {
@@ -159,45 +208,86 @@ public class ActivityService {
                 Connection.ConnectionStatus.ACCEPTED
         );
 
+        List<User> connectedUsers = new ArrayList<>(connections.size());
         for (Connection connection : connections) {
-            User otherUser = connection.getUser().getId().equals(creator.getId())
+            connectedUsers.add(connection.getUser().getId().equals(creator.getId())
                     ? connection.getConnectedUser()
-                    : connection.getUser();
-
-            notificationService.createNotification(
-                    otherUser,
-                    creator,
-                    "NEW_ACTIVITY",
-                    "New Activity",
-                    creator.getName() + " created a new activity: " + activity.getTitle(),
-                    "{\"activityId\": " + activity.getId() + "}"
-            );
+                    : connection.getUser());
         }
+
+        notificationService.createNotifications(
+                connectedUsers,
+                creator,
+                "NEW_ACTIVITY",
+                "New Activity",
+                creator.getName() + " created a new activity: " + activity.getTitle(),
+                "{\"activityId\": " + activity.getId() + "}",
+                false
+        );
     }
 
     private boolean isActivityPast(Activity activity) {
+        return activity.getDate() != null && activity.getDate().isBefore(LocalDate.now());
+    }
+
+    private static LocalDate parseDate(String date) {
         try {
-            if (activity.getDate() != null && !activity.getDate().isEmpty()) {
-                LocalDate activityDate = LocalDate.parse(activity.getDate());
-                return activityDate.isBefore(LocalDate.now());
-            }
-        } catch (Exception e) {
-            // If date parsing fails, treat as not past
+            return LocalDate.parse(date.trim());
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Date must be in YYYY-MM-DD format");
+        }
+    }
+
+    private static LocalTime parseTime(String time) {
+        if (time == null || time.isBlank()) return null;
+        try {
+            return LocalTime.parse(time.trim());
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Time must be in HH:MM format");
         }
-        return false;
     }
 
-    private ActivityDto mapToDto(Activity activity, User currentUser) {
-        boolean hasJoined = activity.getParticipants().stream()
-                .anyMatch(p -> p.getId().equals(currentUser.getId()));
+    private static String formatTime(LocalTime time) {
+        return time != null ? time.format(TIME_FORMAT) : null;
+    }
+
+    private boolean hasJoined(Activity activity, User user) {
+        return !activityRepository.findJoinedActivityIds(user.getId(), List.of(activity.getId())).isEmpty();
+    }
+
+    private ActivityDto mapToDto(ActivityRepository.ActivityFeedView view) {
+        return ActivityDto.builder()
+                .id(view.getId())
+                .title(view.getTitle())
+                .description(view.getDescription())
+                .location(view.getLocation())
+                .date(view.getDate() != null ? view.getDate().toString() : null)
+                .time(formatTime(view.getTime()))
+                .latitude(view.getLatitude())
+                .longitude(view.getLongitude())
+                .type(view.getType())
+                .image(view.getImage())
+                .status(view.getStatus())
+                .createdAt(view.getCreatedAt())
+                .creatorId(view.getCreatorId())
+                .creatorName(view.getCreatorName())
+                .creatorImage(view.getCreatorProfileImageUrl() != null && !view.getCreatorProfileImageUrl().isEmpty() ? view.getCreatorProfileImageUrl() : view.getCreatorImage())
+                .participantCount(view.getParticipantCount())
+                .hasJoined(Boolean.TRUE.equals(view.getJoined()))
+                .isPast(Boolean.TRUE.equals(view.getPast()))
+                .build();
+    }
 
+    private ActivityDto mapToDto(Activity activity, boolean hasJoined) {
         return ActivityDto.builder()
                 .id(activity.getId())
                 .title(activity.getTitle())
                 .description(activity.getDescription())
                 .location(activity.getLocation())
-                .date(activity.getDate())
-                .time(activity.getTime())
+                .date(activity.getDate() != null ? activity.getDate().toString() : null)
+                .time(formatTime(activity.getTime()))
+                .latitude(activity.getLatitude())
+                .longitude(activity.getLongitude())
                 .type(activity.getType())
                 .image(activity.getImage())
                 .status(activity.getStatus())
@@ -205,7 +295,7 @@ public class ActivityService {
                 .creatorId(activity.getCreator().getId())
                 .creatorName(activity.getCreator().getName())
                 .creatorImage(activity.getCreator().getProfileImageUrl() != null && !activity.getCreator().getProfileImageUrl().isEmpty() ? activity.getCreator().getProfileImageUrl() : activity.getCreator().getImage())
-                .participantCount(activity.getParticipants().size())
+                .participantCount(activity.getParticipantCount())
                 .hasJoined(hasJoined)
                 .isPast(isActivityPast(activity))
                 .build();
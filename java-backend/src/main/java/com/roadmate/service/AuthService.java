@@ -57,6 +57,9 @@ public class AuthService {
     @Autowired
     EmailService emailService;
 
+    @Autowired
+    NomadLocationIndex nomadLocationIndex;
+
     @Value("${google.client.id}")
     private String googleClientId;
 
@@ -217,5 +220,6 @@ public class AuthService {
                 .orElseThrow(() -> new ResourceNotFoundException("Kullanıcı bulunamadı"));
 
         userRepository.delete(user);
+        nomadLocationIndex.remove(user.getId());
     }
 }
@@ -0,0 +1,172 @@
+package com.roadmate.service;
+
+import com.roadmate.repository.BlockedUserRepository;
+import com.roadmate.util.LongHashSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * Per-user block relations held in memory so fan-out and listing paths can test
+ * membership without a query per candidate.
+ *
+ * Each cached entry holds two primitive sets: the users this user has blocked and
+ * the users who have blocked them. An entry is loaded with one query the first time
+ * the user is looked up and is evicted by {@link #invalidate(Long, Long)} whenever a
+ * block between the two users is created or removed.
+ */
+@Service
+public class BlockRelationCache {
+
+    private final int maxEntries;
+
+    @Autowired
+    private BlockedUserRepository blockedUserRepository;
+
+    private final Map<Long, BlockRelations> entries;
+    // Bumped on every invalidation; a load that raced with one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Users blocked by the owner of the entry, and users who blocked the owner.
+     */
+    public record BlockRelations(LongHashSet blocked, LongHashSet blockedBy) {
+
+        public boolean eitherWay(long otherUserId) {
+            return blocked.contains(otherUserId) || blockedBy.contains(otherUserId);
+        }
+    }
+
+    public BlockRelationCache(@Value("${blocks.cache.max-users:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, BlockRelations> eldest) {
+                return size() > BlockRelationCache.this.maxEntries;
+            }
+        };
+    }
+
+    public BlockRelations get(Long userId) {
+        synchronized (entries) {
+            BlockRelations cached = entries.get(userId);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+
+        long loadedAt = generation.get();
+        BlockRelations loaded = load(userId);
+        synchronized (entries) {
+            if (generation.get() == loadedAt) {
+                entries.put(userId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * True if either user has blocked the other.
+     */
+    public boolean isBlockedEitherWay(Long userId, Long otherUserId) {
+        if (userId == null || otherUserId == null) return false;
+        return get(userId).eitherWay(otherUserId);
+    }
+
+    /**
+     * Candidates with no block in either direction with the given user. Used by
+     * fan-outs, where neither side of a block should be notified about the other.
+     */
+    public <T> List<T> filterBlocked(Long userId, Collection<T> candidates, ToLongFunction<T> idOf) {
+        BlockRelations relations = get(userId);
+        List<T> result = new ArrayList<>(candidates.size());
+        for (T candidate : candidates) {
+            if (!relations.eitherWay(idOf.applyAsLong(candidate))) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Candidates the given user has not blocked. Used by listings, which only hide
+     * people the viewer chose to block.
+     */
+    public <T> List<T> filterBlockedByUser(Long userId, Collection<T> candidates, ToLongFunction<T> idOf) {
+        LongHashSet blocked = get(userId).blocked();
+        List<T> result = new ArrayList<>(candidates.size());
+        for (T candidate : candidates) {
+            if (!blocked.contains(idOf.applyAsLong(candidate))) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drop the cached relations of both users after a block between them changed.
+     * Inside a transaction the entries are evicted again after commit so a
+     * concurrent reload cannot keep the pre-commit state.
+     */
+    public void invalidate(Long userId, Long otherUserId) {
+        evict(userId, otherUserId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userId, otherUserId);
+                }
+            });
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("cachedUsers", entries.size());
+        }
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    private void evict(Long userId, Long otherUserId) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(userId);
+            entries.remove(otherUserId);
+        }
+        invalidations.incrementAndGet();
+    }
+
+    private BlockRelations load(Long userId) {
+        List<BlockedUserRepository.BlockPairView> pairs = blockedUserRepository.findBlockPairsInvolving(userId);
+        LongHashSet blocked = new LongHashSet(pairs.size());
+        LongHashSet blockedBy = new LongHashSet(pairs.size());
+        for (BlockedUserRepository.BlockPairView pair : pairs) {
+            if (userId.equals(pair.getBlockerId())) {
+                blocked.add(pair.getBlockedId());
+            } else {
+                blockedBy.add(pair.getBlockerId());
+            }
+        }
+        return new BlockRelations(blocked, blockedBy);
+    }
+}
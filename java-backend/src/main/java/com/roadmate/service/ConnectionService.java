@@ -8,17 +8,13 @@ import com.roadmate.exception.UnauthorizedException;
 import com.roadmate.model.Connection;
 import com.roadmate.model.Connection.ConnectionStatus;
 import com.roadmate.model.User;
-import com.roadmate.repository.BlockedUserRepository;
 import com.roadmate.repository.ConnectionRepository;
 import com.roadmate.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -29,8 +25,7 @@ public class ConnectionService {
     private final ConnectionRepository connectionRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
-    private final ExpoPushService expoPushService;
-    private final BlockedUserRepository blockedUserRepository;
+    private final BlockRelationCache blockRelationCache;
 
     /**
      * QR tarandığında bağlantı isteği oluştur
@@ -61,9 +56,10 @@ public class ConnectionService {
             } else if (conn.getStatus() == ConnectionStatus.PENDING) {
                 // Eğer karşı taraf daha önce istek göndermişse, otomatik kabul et
                 if (conn.getUser().getId().equals(targetUserId)) {
-                    conn.setStatus(ConnectionStatus.ACCEPTED);
-                    connectionRepository.save(conn);
-                    return toDTO(conn);
+                    if (connectionRepository.markAccepted(conn.getId(), ConnectionStatus.ACCEPTED) > 0) {
+                        userRepository.adjustConnectionCount(List.of(scannerUserId, targetUserId), 1);
+                    }
+                    return toAcceptedDTO(conn);
                 }
                 throw new ConflictException("Zaten bekleyen bir bağlantı isteğiniz var");
             } else if (conn.getStatus() == ConnectionStatus.REJECTED) {
@@ -100,8 +96,12 @@ public class ConnectionService {
             throw new UnauthorizedException("Bu isteği kabul etme yetkiniz yok");
         }
 
-        connection.setStatus(ConnectionStatus.ACCEPTED);
-        Connection saved = connectionRepository.save(connection);
+        // Koşullu güncelleme: eşzamanlı iki kabulden yalnızca biri sayacı artırır ve bildirim gönderir
+        if (connectionRepository.markAccepted(connectionId, ConnectionStatus.ACCEPTED) == 0) {
+            return toAcceptedDTO(connection);
+        }
+        userRepository.adjustConnectionCount(
+                List.of(connection.getUser().getId(), connection.getConnectedUser().getId()), 1);
 
         // Send FRIEND_ACCEPTED notification to the requester
         User acceptor = connection.getConnectedUser();
@@ -110,22 +110,11 @@ public class ConnectionService {
                 requester, acceptor, "FRIEND_ACCEPTED",
                 "Friend Request Accepted",
                 acceptor.getName() + " accepted your friend request!",
-                "{\"senderId\": " + acceptor.getId() + "}"
+                "{\"senderId\": " + acceptor.getId() + "}",
+                true
         );
-        // Push notification
-        if (requester.getExpoPushToken() != null) {
-            Map<String, Object> data = new HashMap<>();
-            data.put("type", "FRIEND_ACCEPTED");
-            data.put("senderId", acceptor.getId());
-            expoPushService.sendBatchPushNotifications(
-                    Collections.singletonList(requester.getExpoPushToken()),
-                    "Friend Request Accepted",
-                    acceptor.getName() + " accepted your friend request!",
-                    data
-            );
-        }
 
-        return toDTO(saved);
+        return toAcceptedDTO(connection);
     }
 
     /**
@@ -141,8 +130,13 @@ public class ConnectionService {
             throw new UnauthorizedException("Bu isteği reddetme yetkiniz yok");
         }
 
+        boolean wasAccepted = connection.getStatus() == ConnectionStatus.ACCEPTED;
         connection.setStatus(ConnectionStatus.REJECTED);
         Connection saved = connectionRepository.save(connection);
+        if (wasAccepted) {
+            userRepository.adjustConnectionCount(
+                    List.of(connection.getUser().getId(), connection.getConnectedUser().getId()), -1);
+        }
         return toDTO(saved);
     }
 
@@ -172,7 +166,8 @@ public class ConnectionService {
      * Kullanıcının bağlantı sayısını getir
      */
     public Long getConnectionCount(Long userId) {
-        return connectionRepository.countAcceptedConnections(userId);
+        Integer count = userRepository.findConnectionCountById(userId);
+        return count != null ? count.longValue() : 0L;
     }
 
     /**
@@ -181,7 +176,7 @@ public class ConnectionService {
     @Transactional
     public ConnectionDTO sendConnectionRequest(Long senderUserId, Long targetUserId) {
         // Block check
-        if (blockedUserRepository.existsBlockBetween(senderUserId, targetUserId)) {
+        if (blockRelationCache.isBlockedEitherWay(senderUserId, targetUserId)) {
             throw new BadRequestException("Cannot send request to this user");
         }
 
@@ -199,19 +194,9 @@ public class ConnectionService {
                     target, sender, "FRIEND_REQUEST",
                     "Friend Request",
                     sender.getName() + " sent you a friend request!",
-                    "{\"senderId\": " + sender.getId() + "}"
+                    "{\"senderId\": " + sender.getId() + "}",
+                    true
             );
-            if (target.getExpoPushToken() != null) {
-                Map<String, Object> data = new HashMap<>();
-                data.put("type", "FRIEND_REQUEST");
-                data.put("senderId", sender.getId());
-                expoPushService.sendBatchPushNotifications(
-                        Collections.singletonList(target.getExpoPushToken()),
-                        "Friend Request",
-                        sender.getName() + " sent you a friend request!",
-                        data
-                );
-            }
         }
 
         return result;
@@ -253,6 +238,9 @@ public class ConnectionService {
                 .orElseThrow(() -> new ResourceNotFoundException("Connection not found"));
 
         connectionRepository.delete(connection);
+        if (connection.getStatus() == ConnectionStatus.ACCEPTED) {
+            userRepository.adjustConnectionCount(List.of(currentUserId, targetUserId), -1);
+        }
     }
 
     /**
@@ -268,6 +256,13 @@ public class ConnectionService {
                 .build();
     }
 
+    // Durum veritabanında güncellendi; yönetilen entity'ye dokunmadan DTO'ya yansıt
+    private ConnectionDTO toAcceptedDTO(Connection connection) {
+        ConnectionDTO dto = toDTO(connection);
+        dto.setStatus(ConnectionStatus.ACCEPTED);
+        return dto;
+    }
+
     private ConnectionDTO.UserDTO toUserDTO(User user) {
         return ConnectionDTO.UserDTO.builder()
                 .id(user.getId())
@@ -0,0 +1,103 @@
+package com.roadmate.service;
+
+import com.roadmate.model.ConversationSummary;
+import com.roadmate.model.Message;
+import com.roadmate.repository.ConversationSummaryRepository;
+import com.roadmate.repository.MessageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Maintains the conversation_summary rows that back the chat list. Writes join
+ * the caller's transaction so a summary never disagrees with the messages table.
+ */
+@Slf4j
+@Service
+public class ConversationSummaryService {
+
+    private static final String BACKFILL_MARKER = "conversation_summary_backfill";
+
+    private static final String CREATE_MARKERS_SQL =
+            "CREATE TABLE IF NOT EXISTS schema_markers (name VARCHAR(100) PRIMARY KEY, completed_at TIMESTAMP NOT NULL)";
+
+    // Claims the marker; a second instance blocks on the key until the first commits, then gets 0
+    private static final String CLAIM_MARKER_SQL =
+            "INSERT INTO schema_markers (name, completed_at) VALUES (?, NOW()) ON CONFLICT (name) DO NOTHING";
+
+    @Autowired
+    private ConversationSummaryRepository conversationSummaryRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private UnreadCounterStore unreadCounterStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    public List<ConversationSummary> getConversations(Long userId) {
+        return conversationSummaryRepository.findByParticipant(userId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordMessage(Message message) {
+        String content = message.getContent();
+        String preview = content != null && content.length() > ConversationSummary.PREVIEW_LENGTH
+                ? content.substring(0, ConversationSummary.PREVIEW_LENGTH)
+                : content;
+        conversationSummaryRepository.recordMessage(
+                message.getSender().getId(), message.getReceiver().getId(),
+                message.getId(), preview, message.getCreatedAt());
+        unreadCounterStore.add(UnreadCounterStore.Kind.MESSAGES, message.getReceiver().getId(), 1);
+    }
+
+    /**
+     * Mark everything otherUserId sent to readerId as read.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void markAsRead(Long readerId, Long otherUserId) {
+        // Summary first: its row lock orders this against concurrent sends
+        conversationSummaryRepository.markAsRead(readerId, otherUserId);
+        int read = messageRepository.markAsRead(readerId, otherUserId);
+        unreadCounterStore.add(UnreadCounterStore.Kind.MESSAGES, readerId, -read);
+    }
+
+    /**
+     * Build summaries from the messages table once per database. The marker is
+     * written in the same transaction as the rebuild, so a failed run is retried
+     * on the next startup. Rows that sends created before the rebuild are
+     * recomputed rather than kept, so their unread counts come out right.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            jdbcTemplate.execute(CREATE_MARKERS_SQL);
+            Integer rows = transactionTemplate.execute(status -> {
+                if (jdbcTemplate.update(CLAIM_MARKER_SQL, BACKFILL_MARKER) == 0) return null;
+                long start = System.currentTimeMillis();
+                int rebuilt = conversationSummaryRepository.backfillFromMessages();
+                log.info("Backfilled {} conversation summaries in {} ms", rebuilt, System.currentTimeMillis() - start);
+                return rebuilt;
+            });
+            if (rows != null) {
+                // Cached message counts may predate the corrected summaries
+                unreadCounterStore.invalidate(UnreadCounterStore.Kind.MESSAGES);
+            }
+        } catch (Exception e) {
+            log.error("Conversation summary backfill failed: {}", e.getMessage());
+        }
+    }
+}
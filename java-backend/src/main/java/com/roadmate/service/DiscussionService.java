@@ -3,6 +3,7 @@ package com.roadmate.service;
 import com.roadmate.dto.CreateDiscussionRequest;
 import com.roadmate.dto.DiscussionCommentDto;
 import com.roadmate.dto.DiscussionDto;
+import com.roadmate.dto.SearchPage;
 import com.roadmate.model.Discussion;
 import com.roadmate.model.DiscussionBookmark;
 import com.roadmate.model.DiscussionComment;
@@ -10,13 +11,19 @@ import com.roadmate.model.User;
 import com.roadmate.repository.DiscussionBookmarkRepository;
 import com.roadmate.repository.DiscussionCommentRepository;
 import com.roadmate.repository.DiscussionRepository;
+import com.roadmate.repository.SearchHit;
+import com.roadmate.util.SearchCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,17 +38,41 @@ public class DiscussionService {
     @Autowired
     private DiscussionBookmarkRepository bookmarkRepository;
 
-    public List<DiscussionDto> getDiscussions(User currentUser) {
-        List<Discussion> discussions = discussionRepository.findAllByOrderByCreatedAtDesc();
-        return discussions.stream()
-                .map(d -> mapToDto(d, currentUser))
+    public Slice<DiscussionDto> getDiscussions(User currentUser, int page, int size) {
+        return discussionRepository.findFeed(currentUser.getId(), PageRequest.of(page, size))
+                .map(this::mapToDto);
+    }
+
+    /**
+     * Full-text search over title, tag and description, best matches first.
+     * The GIN index finds the matches; the page is then loaded with the feed projection.
+     */
+    public SearchPage<DiscussionDto> searchDiscussions(User currentUser, String query, String tag, String cursor, int limit) {
+        SearchCursor after = SearchCursor.parse(cursor);
+        List<SearchHit> hits = discussionRepository.search(
+                query, tag != null ? tag : "", after.rank(), after.id(), limit);
+        if (hits.isEmpty()) return new SearchPage<>(List.of(), null);
+
+        Map<Long, DiscussionRepository.DiscussionFeedView> views = new HashMap<>();
+        for (DiscussionRepository.DiscussionFeedView view : discussionRepository.findFeedItems(
+                hits.stream().map(SearchHit::getId).collect(Collectors.toList()), currentUser.getId())) {
+            views.put(view.getId(), view);
+        }
+        List<DiscussionDto> items = hits.stream()
+                .map(hit -> views.get(hit.getId()))
+                .filter(view -> view != null)
+                .map(this::mapToDto)
                 .collect(Collectors.toList());
+
+        SearchHit last = hits.get(hits.size() - 1);
+        String next = hits.size() == limit ? new SearchCursor(last.getRank(), last.getId()).encode() : null;
+        return new SearchPage<>(items, next);
     }
 
     public DiscussionDto getDiscussion(Long id, User currentUser) {
-        Discussion discussion = discussionRepository.findById(id)
+        return discussionRepository.findFeedItem(id, currentUser.getId())
+                .map(this::mapToDto)
                 .orElseThrow(() -> new RuntimeException("Discussion not found"));
-        return mapToDto(discussion, currentUser);
     }
 
     @Transactional
@@ -56,7 +87,20 @@ public class DiscussionService {
                 .build();
 
         Discussion saved = discussionRepository.save(discussion);
-        return mapToDto(saved, creator);
+        return DiscussionDto.builder()
+                .id(saved.getId())
+                .title(saved.getTitle())
+                .description(saved.getDescription())
+                .tag(saved.getTag())
+                .image(saved.getImage())
+                .createdAt(saved.getCreatedAt())
+                .creatorId(creator.getId())
+                .creatorName(creator.getName())
+                .creatorImage(displayImage(creator.getProfileImageUrl(), creator.getImage()))
+                .commentCount(0)
+                .isSaved(false)
+                .timeAgo(calculateTimeAgo(saved.getCreatedAt()))
+                .build();
     }
 
     public List<DiscussionCommentDto> getComments(Long discussionId) {
@@ -79,6 +123,7 @@ public class DiscussionService {
                 .build();
 
         DiscussionComment saved = commentRepository.save(comment);
+        discussionRepository.adjustCommentCount(discussionId, 1);
         return mapCommentToDto(saved);
     }
 
@@ -103,33 +148,32 @@ public class DiscussionService {
     }
 
     public List<DiscussionDto> getSavedDiscussions(User user) {
-        List<DiscussionBookmark> bookmarks = bookmarkRepository.findByUserId(user.getId());
-        return bookmarks.stream()
-                .map(b -> mapToDto(b.getDiscussion(), user))
+        return discussionRepository.findSavedFeed(user.getId()).stream()
+                .map(this::mapToDto)
                 .collect(Collectors.toList());
     }
 
-    private DiscussionDto mapToDto(Discussion discussion, User currentUser) {
-        long commentCount = commentRepository.countByDiscussionId(discussion.getId());
-        boolean isSaved = bookmarkRepository.existsByUserIdAndDiscussionId(
-                currentUser.getId(), discussion.getId());
-
+    private DiscussionDto mapToDto(DiscussionRepository.DiscussionFeedView view) {
         return DiscussionDto.builder()
-                .id(discussion.getId())
-                .title(discussion.getTitle())
-                .description(discussion.getDescription())
-                .tag(discussion.getTag())
-                .image(discussion.getImage())
-                .createdAt(discussion.getCreatedAt())
-                .creatorId(discussion.getCreator().getId())
-                .creatorName(discussion.getCreator().getName())
-                .creatorImage(discussion.getCreator().getProfileImageUrl() != null && !discussion.getCreator().getProfileImageUrl().isEmpty() ? discussion.getCreator().getProfileImageUrl() : discussion.getCreator().getImage())
-                .commentCount((int) commentCount)
-                .isSaved(isSaved)
-                .timeAgo(calculateTimeAgo(discussion.getCreatedAt()))
+                .id(view.getId())
+                .title(view.getTitle())
+                .description(view.getDescription())
+                .tag(view.getTag())
+                .image(view.getImage())
+                .createdAt(view.getCreatedAt())
+                .creatorId(view.getCreatorId())
+                .creatorName(view.getCreatorName())
+                .creatorImage(displayImage(view.getCreatorProfileImageUrl(), view.getCreatorImage()))
+                .commentCount(view.getCommentCount())
+                .isSaved(Boolean.TRUE.equals(view.getSaved()))
+                .timeAgo(calculateTimeAgo(view.getCreatedAt()))
                 .build();
     }
 
+    private String displayImage(String profileImageUrl, String image) {
+        return profileImageUrl != null && !profileImageUrl.isEmpty() ? profileImageUrl : image;
+    }
+
     private DiscussionCommentDto mapCommentToDto(DiscussionComment comment) {
         return DiscussionCommentDto.builder()
                 .id(comment.getId())
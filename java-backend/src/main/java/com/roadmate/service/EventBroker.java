@@ -0,0 +1,36 @@
+package com.roadmate.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Routes real-time events to the connections of a user.
+ *
+ * {@link LocalEventBroker} delivers within this JVM. Running more than one node
+ * needs an implementation backed by a shared channel (e.g. Postgres LISTEN/NOTIFY
+ * or Redis pub/sub) that fans each published event out to every node's subscribers.
+ */
+public interface EventBroker {
+
+    /**
+     * An event for one user: a name the client dispatches on and a JSON-serialisable payload.
+     */
+    record Event(String type, Object data) {
+    }
+
+    interface Subscription {
+        void cancel();
+    }
+
+    void publish(long userId, Event event);
+
+    /**
+     * The listener may be called on the publishing thread and must not block;
+     * queue the event and write it elsewhere.
+     */
+    Subscription subscribe(long userId, Consumer<Event> listener);
+
+    /**
+     * Number of users with at least one subscriber on this node.
+     */
+    int subscribedUsers();
+}
@@ -0,0 +1,218 @@
+package com.roadmate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-sent event streams of connected clients. Each stream subscribes its
+ * user on the {@link EventBroker} and is kept alive with periodic heartbeats.
+ *
+ * SseEmitter.send blocks until the client's socket accepts the bytes, so nothing
+ * writes to a stream except that stream's own drain task. Publishers and the
+ * heartbeat only enqueue into a small per-stream queue. A stream whose queue
+ * overflows, or whose current write has been stuck longer than SEND_TIMEOUT_MS,
+ * is closed; the client reconnects and refetches. A stalled client therefore
+ * ties up at most one writer thread and never delays anyone else's events.
+ */
+@Slf4j
+@Service
+public class EventStreamService {
+
+    // Clients reconnect after this; bounds how long a half-dead connection can linger
+    private static final long STREAM_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private static final int QUEUE_CAPACITY = 64;
+    private static final long SEND_TIMEOUT_MS = 10_000;
+    private static final long HEARTBEAT_INTERVAL_MS = 25_000;
+    private static final long WATCHDOG_INTERVAL_MS = 5_000;
+    private static final int MAX_WRITERS = 64;
+
+    @Autowired
+    private EventBroker eventBroker;
+
+    private final Map<SseEmitter, Stream> streams = new ConcurrentHashMap<>();
+
+    // Threads are only held while a stream has something to write; idle ones retire after a minute
+    private final ThreadPoolExecutor writers = new ThreadPoolExecutor(0, MAX_WRITERS, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), runnable -> daemon(runnable, "sse-writer"));
+
+    // Heartbeats and stall checks run here, not on the shared @Scheduled pool
+    private final ScheduledExecutorService heartbeats =
+            Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "sse-heartbeat"));
+
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong eventsSent = new AtomicLong();
+    private final AtomicLong closedOnOverflow = new AtomicLong();
+    private final AtomicLong closedOnStall = new AtomicLong();
+    private volatile long lastHeartbeat = System.currentTimeMillis();
+
+    private record Outgoing(SseEmitter.SseEventBuilder event, boolean counted) {
+    }
+
+    private static final class Stream {
+        final SseEmitter emitter;
+        final BlockingQueue<Outgoing> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile EventBroker.Subscription subscription;
+        volatile long sendingSince;
+        volatile boolean closed;
+
+        Stream(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+
+    @PostConstruct
+    void startHeartbeats() {
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, WATCHDOG_INTERVAL_MS, WATCHDOG_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        writers.shutdownNow();
+    }
+
+    public SseEmitter open(long userId) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        Stream stream = new Stream(emitter);
+        streams.put(emitter, stream);
+        stream.subscription = eventBroker.subscribe(userId, event -> enqueue(stream,
+                SseEmitter.event().name(event.type()).data(event.data()), true));
+        opened.incrementAndGet();
+
+        emitter.onCompletion(() -> release(stream));
+        emitter.onTimeout(() -> release(stream));
+        emitter.onError(e -> release(stream));
+
+        enqueue(stream, SseEmitter.event().name("connected").data(Map.of("userId", userId)), true);
+        return emitter;
+    }
+
+    /**
+     * Close streams stuck in a write, and every 25s queue a comment line so
+     * proxies and mobile networks keep idle connections open.
+     */
+    void heartbeat() {
+        long now = System.currentTimeMillis();
+        boolean ping = now - lastHeartbeat >= HEARTBEAT_INTERVAL_MS;
+        if (ping) lastHeartbeat = now;
+        for (Stream stream : streams.values()) {
+            long since = stream.sendingSince;
+            if (since != 0 && now - since > SEND_TIMEOUT_MS) {
+                closedOnStall.incrementAndGet();
+                close(stream);
+            } else if (ping) {
+                enqueue(stream, SseEmitter.event().comment("ping"), false);
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("openStreams", streams.size());
+        stats.put("connectedUsers", eventBroker.subscribedUsers());
+        stats.put("streamsOpened", opened.get());
+        stats.put("eventsSent", eventsSent.get());
+        stats.put("activeWriters", writers.getActiveCount());
+        stats.put("closedOnOverflow", closedOnOverflow.get());
+        stats.put("closedOnStall", closedOnStall.get());
+        return stats;
+    }
+
+    // Never blocks: called from publishing request threads and the heartbeat
+    private void enqueue(Stream stream, SseEmitter.SseEventBuilder event, boolean counted) {
+        if (stream.closed) return;
+        if (!stream.queue.offer(new Outgoing(event, counted))) {
+            closedOnOverflow.incrementAndGet();
+            close(stream);
+            return;
+        }
+        scheduleDrain(stream);
+    }
+
+    private void scheduleDrain(Stream stream) {
+        if (!stream.draining.compareAndSet(false, true)) return;
+        try {
+            writers.execute(() -> drain(stream));
+        } catch (RejectedExecutionException e) {
+            // Every writer is stuck on a dead client; shed this stream rather than queue behind them
+            stream.draining.set(false);
+            closedOnOverflow.incrementAndGet();
+            close(stream);
+        }
+    }
+
+    private void drain(Stream stream) {
+        try {
+            Outgoing next;
+            while (!stream.closed && (next = stream.queue.poll()) != null) {
+                stream.sendingSince = System.currentTimeMillis();
+                stream.emitter.send(next.event());
+                stream.sendingSince = 0;
+                if (next.counted()) eventsSent.incrementAndGet();
+            }
+        } catch (IOException | IllegalStateException e) {
+            close(stream);
+        } finally {
+            stream.sendingSince = 0;
+            stream.draining.set(false);
+        }
+        if (stream.closed) {
+            completeQuietly(stream.emitter);
+        } else if (!stream.queue.isEmpty()) {
+            // An event arrived between the last poll and releasing the flag
+            scheduleDrain(stream);
+        }
+    }
+
+    // Stop delivering right away; the emitter itself is completed by the drain task or here if idle,
+    // because complete() waits for a write that may be stuck
+    private void close(Stream stream) {
+        if (!release(stream)) return;
+        stream.queue.clear();
+        if (stream.draining.compareAndSet(false, true)) {
+            completeQuietly(stream.emitter);
+        }
+    }
+
+    private boolean release(Stream stream) {
+        if (streams.remove(stream.emitter) == null) return false;
+        stream.closed = true;
+        EventBroker.Subscription subscription = stream.subscription;
+        if (subscription != null) subscription.cancel();
+        return true;
+    }
+
+    private static void completeQuietly(SseEmitter emitter) {
+        try {
+            emitter.complete();
+        } catch (Exception ignored) {
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
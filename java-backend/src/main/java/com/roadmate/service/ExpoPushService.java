@@ -1,55 +1,371 @@
 package com.roadmate.service;
 
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roadmate.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+/**
+ * Client for the Expo push API.
+ *
+ * Messages are split into batches of 100 (the API limit) and posted with a shared
+ * HTTP/2 client, gzip-compressed. Batches are sent concurrently up to
+ * {@code expo.push.max-in-flight}; the rest wait in a queue and are started as
+ * earlier requests finish, so callers never block on the network.
+ *
+ * Accepted tickets are stored in push_tickets for PushReceiptService, and tokens
+ * Expo already rejects as DeviceNotRegistered are cleared from their users. That
+ * database work runs on a dedicated single-thread writer with a bounded queue,
+ * never on the HTTP client's threads.
+ */
+@Slf4j
 @Service
 public class ExpoPushService {
 
-    private static final String EXPO_PUSH_URL = "https://exp.host/--/api/v2/push/send";
-    private static final int BATCH_SIZE = 100;
+    public static final int BATCH_SIZE = 100;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(15);
+    private static final int TICKET_QUEUE_CAPACITY = 1000;
+    static final String DEVICE_NOT_REGISTERED = "DeviceNotRegistered";
 
-    public void sendBatchPushNotifications(List<String> tokens, String title, String body, Map<String, Object> data) {
-        if (tokens == null || tokens.isEmpty()) return;
+    private static final String INSERT_TICKET_SQL =
+            "INSERT INTO push_tickets (ticket_id, push_token, created_at) VALUES (?, ?, ?) " +
+            "ON CONFLICT (ticket_id) DO NOTHING";
 
-        List<Map<String, Object>> messages = new ArrayList<>();
-        for (String token : tokens) {
-            Map<String, Object> message = new HashMap<>();
-            message.put("to", token);
-            message.put("title", title);
-            message.put("body", body);
-            message.put("sound", "default");
-            message.put("priority", "high");
-            message.put("channelId", "sos-alerts");
-            if (data != null) {
-                message.put("data", data);
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final URI pushUri;
+    private final URI receiptsUri;
+    private final Semaphore permits;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final Queue<PendingBatch> pending = new ConcurrentLinkedQueue<>();
+
+    // One writer is enough: each task is a single batched insert; a full queue drops the batch
+    private final ThreadPoolExecutor ticketWriter = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(TICKET_QUEUE_CAPACITY), runnable -> new Thread(runnable, "expo-ticket-writer"));
+
+    private final AtomicLong batchesSent = new AtomicLong();
+    private final AtomicLong batchesFailed = new AtomicLong();
+    private final AtomicLong ticketsOk = new AtomicLong();
+    private final AtomicLong ticketsError = new AtomicLong();
+    private final AtomicLong tokensPruned = new AtomicLong();
+    private final AtomicLong ticketWritesDropped = new AtomicLong();
+    private final AtomicLong ticketsStored = new AtomicLong();
+
+    /**
+     * Expo's answer for one message: {@code status} is "ok" with a ticket id, or
+     * "error" with a message and, when Expo gives one, an error code such as
+     * DeviceNotRegistered. Requests that failed as a whole report "RequestFailed".
+     */
+    public record Ticket(String token, String status, String ticketId, String message, String error) {
+
+        public boolean isOk() {
+            return "ok".equals(status);
+        }
+    }
+
+    /**
+     * Delivery outcome Expo reports for a ticket once the message reached (or
+     * failed to reach) the platform push service.
+     */
+    public record Receipt(String status, String message, String error) {
+
+        public boolean isOk() {
+            return "ok".equals(status);
+        }
+    }
+
+    private record PendingBatch(List<String> tokens, byte[] body, CompletableFuture<List<Ticket>> result) {
+    }
+
+    public ExpoPushService(@Value("${expo.push.url:https://exp.host/--/api/v2/push/send}") String pushUrl,
+                           @Value("${expo.push.receipts-url:https://exp.host/--/api/v2/push/getReceipts}") String receiptsUrl,
+                           @Value("${expo.push.max-in-flight:8}") int maxInFlight) {
+        this.pushUri = URI.create(pushUrl);
+        this.receiptsUri = URI.create(receiptsUrl);
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Send the same notification to every token. The future completes with one
+     * ticket per token, in token order, once all batches have been answered; it
+     * never completes exceptionally.
+     */
+    public CompletableFuture<List<Ticket>> sendBatchPushNotifications(List<String> tokens, String title, String body, Map<String, Object> data) {
+        if (tokens == null || tokens.isEmpty()) return CompletableFuture.completedFuture(List.of());
+
+        List<CompletableFuture<List<Ticket>>> batches = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i += BATCH_SIZE) {
+            List<String> batchTokens = tokens.subList(i, Math.min(i + BATCH_SIZE, tokens.size()));
+            List<Map<String, Object>> messages = new ArrayList<>(batchTokens.size());
+            for (String token : batchTokens) {
+                Map<String, Object> message = new HashMap<>();
+                message.put("to", token);
+                message.put("title", title);
+                message.put("body", body);
+                message.put("sound", "default");
+                message.put("priority", "high");
+                message.put("channelId", "sos-alerts");
+                if (data != null) {
+                    message.put("data", data);
+                }
+                messages.add(message);
+            }
+            batches.add(submit(batchTokens, messages));
+        }
+
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<Ticket> tickets = new ArrayList<>(tokens.size());
+            for (CompletableFuture<List<Ticket>> batch : batches) {
+                tickets.addAll(batch.join());
+            }
+            return tickets;
+        });
+    }
+
+    /**
+     * Look up receipts for up to 1000 ticket ids. Tickets whose receipt is not
+     * ready yet are absent from the result.
+     */
+    public CompletableFuture<Map<String, Receipt>> fetchReceipts(List<String> ticketIds) {
+        byte[] body;
+        try {
+            body = gzip(objectMapper.writeValueAsBytes(Map.of("ids", ticketIds)));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return post(receiptsUri, body).thenApply(root -> {
+            Map<String, Receipt> receipts = new HashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = root.path("data").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode node = field.getValue();
+                receipts.put(field.getKey(), new Receipt(
+                        node.path("status").asText("error"),
+                        node.hasNonNull("message") ? node.get("message").asText() : null,
+                        node.path("details").hasNonNull("error") ? node.path("details").get("error").asText() : null));
+            }
+            return receipts;
+        });
+    }
+
+    /**
+     * Tickets written to push_tickets since startup.
+     */
+    public long ticketsStored() {
+        return ticketsStored.get();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("batchesSent", batchesSent.get());
+        stats.put("batchesFailed", batchesFailed.get());
+        stats.put("ticketsOk", ticketsOk.get());
+        stats.put("ticketsError", ticketsError.get());
+        long tickets = ticketsOk.get() + ticketsError.get();
+        stats.put("ticketSuccessRate", tickets > 0 ? (double) ticketsOk.get() / tickets : null);
+        stats.put("tokensPrunedOnSend", tokensPruned.get());
+        stats.put("queuedBatches", pending.size());
+        stats.put("queuedTicketWrites", ticketWriter.getQueue().size());
+        stats.put("ticketWritesDropped", ticketWritesDropped.get());
+        stats.put("ticketsStored", ticketsStored.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticketWriter.shutdown();
+        try {
+            // Let queued ticket writes land so their receipts can still be polled
+            if (!ticketWriter.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Expo ticket writer did not drain; {} writes abandoned", ticketWriter.shutdownNow().size());
             }
-            messages.add(message);
+        } catch (InterruptedException e) {
+            ticketWriter.shutdownNow();
+            Thread.currentThread().interrupt();
         }
+    }
 
-        // Send in batches of 100
-        for (int i = 0; i < messages.size(); i += BATCH_SIZE) {
-            List<Map<String, Object>> batch = messages.subList(i, Math.min(i + BATCH_SIZE, messages.size()));
-            try {
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.APPLICATION_JSON);
-                headers.set("Accept", "application/json");
+    private CompletableFuture<List<Ticket>> submit(List<String> tokens, List<Map<String, Object>> messages) {
+        CompletableFuture<List<Ticket>> result = new CompletableFuture<>();
+        try {
+            pending.add(new PendingBatch(List.copyOf(tokens), gzip(objectMapper.writeValueAsBytes(messages)), result));
+        } catch (IOException e) {
+            result.complete(failed(tokens, e));
+            return result;
+        }
+        dispatch();
+        return result;
+    }
 
-                HttpEntity<List<Map<String, Object>>> request = new HttpEntity<>(batch, headers);
-                restTemplate.postForEntity(EXPO_PUSH_URL, request, String.class);
-            } catch (Exception e) {
-                System.err.println("Expo push notification batch failed: " + e.getMessage());
+    // Start queued batches while permits are free; called on submit and whenever a request finishes
+    private void dispatch() {
+        while (!pending.isEmpty() && permits.tryAcquire()) {
+            PendingBatch batch = pending.poll();
+            if (batch == null) {
+                permits.release();
+                continue;
             }
+            send(batch).whenComplete((tickets, error) -> {
+                permits.release();
+                batch.result().complete(error == null ? tickets : failed(batch.tokens(), error));
+                dispatch();
+            });
+        }
+    }
+
+    private CompletableFuture<List<Ticket>> send(PendingBatch batch) {
+        return post(pushUri, batch.body()).thenApply(root -> {
+            List<Ticket> tickets = parseTickets(batch.tokens(), root);
+            batchesSent.incrementAndGet();
+            enqueueTicketWrite(tickets);
+            return tickets;
+        });
+    }
+
+    private CompletableFuture<JsonNode> post(URI uri, byte[] gzippedBody) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .header("Content-Encoding", "gzip")
+                .header("Accept-Encoding", "gzip")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(gzippedBody))
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    if (response.statusCode() / 100 != 2) {
+                        throw new IllegalStateException("Expo push returned HTTP " + response.statusCode());
+                    }
+                    boolean gzipped = response.headers().firstValue("Content-Encoding")
+                            .map(v -> v.equalsIgnoreCase("gzip")).orElse(false);
+                    InputStream raw = new ByteArrayInputStream(response.body());
+                    try (InputStream in = gzipped ? new GZIPInputStream(raw) : raw) {
+                        return objectMapper.readTree(in);
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Unreadable Expo push response: " + e.getMessage(), e);
+                    }
+                });
+    }
+
+    // Runs on the HTTP client's thread, so only hand off; the writer does the blocking JDBC work
+    private void enqueueTicketWrite(List<Ticket> tickets) {
+        try {
+            ticketWriter.execute(() -> recordTickets(tickets));
+        } catch (RejectedExecutionException e) {
+            ticketWritesDropped.incrementAndGet();
+            log.warn("Expo ticket writer saturated; dropped {} tickets", tickets.size());
+        }
+    }
+
+    // Persist accepted tickets for receipt polling and drop tokens Expo already knows are dead
+    private void recordTickets(List<Ticket> tickets) {
+        List<Object[]> accepted = new ArrayList<>();
+        List<String> deadTokens = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Ticket ticket : tickets) {
+            if (ticket.isOk() && ticket.ticketId() != null) {
+                accepted.add(new Object[] { ticket.ticketId(), ticket.token(), now });
+            } else if (DEVICE_NOT_REGISTERED.equals(ticket.error())) {
+                deadTokens.add(ticket.token());
+            }
+        }
+        try {
+            if (!accepted.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_TICKET_SQL, accepted);
+                // Rewritten batches report no per-row counts; ticket ids are unique, so conflicts are rare
+                ticketsStored.addAndGet(accepted.size());
+            }
+            if (!deadTokens.isEmpty()) {
+                tokensPruned.addAndGet(userRepository.clearExpoPushTokens(deadTokens));
+            }
+        } catch (Exception e) {
+            log.warn("Recording Expo push tickets failed: {}", e.getMessage());
+        }
+    }
+
+    private List<Ticket> parseTickets(List<String> tokens, JsonNode root) {
+        JsonNode data = root.path("data");
+        List<Ticket> tickets = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            JsonNode node = data.path(i);
+            Ticket ticket = node.isMissingNode()
+                    ? new Ticket(tokens.get(i), "error", null, "No ticket returned", "MissingTicket")
+                    : new Ticket(tokens.get(i),
+                            node.path("status").asText("error"),
+                            node.hasNonNull("id") ? node.get("id").asText() : null,
+                            node.hasNonNull("message") ? node.get("message").asText() : null,
+                            node.path("details").hasNonNull("error") ? node.path("details").get("error").asText() : null);
+            (ticket.isOk() ? ticketsOk : ticketsError).incrementAndGet();
+            tickets.add(ticket);
+        }
+        return tickets;
+    }
+
+    private List<Ticket> failed(List<String> tokens, Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        String reason = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        batchesFailed.incrementAndGet();
+        ticketsError.addAndGet(tokens.size());
+        log.warn("Expo push batch of {} failed: {}", tokens.size(), reason);
+        List<Ticket> tickets = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            tickets.add(new Ticket(token, "error", null, reason, "RequestFailed"));
+        }
+        return tickets;
+    }
+
+    private static byte[] gzip(byte[] json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(json);
         }
+        return out.toByteArray();
     }
 }
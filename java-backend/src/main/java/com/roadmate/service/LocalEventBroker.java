@@ -0,0 +1,49 @@
+package com.roadmate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process {@link EventBroker}. Listeners are called inline on the publishing
+ * thread; they only hand the event to their connection's own queue, so a slow
+ * client never holds up the publisher or other users' events.
+ */
+@Slf4j
+@Service
+public class LocalEventBroker implements EventBroker {
+
+    private final Map<Long, List<Consumer<Event>>> listeners = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish(long userId, Event event) {
+        List<Consumer<Event>> targets = listeners.get(userId);
+        if (targets == null || targets.isEmpty()) return;
+        for (Consumer<Event> listener : targets) {
+            try {
+                listener.accept(event);
+            } catch (Exception e) {
+                log.debug("Event listener for user {} failed: {}", userId, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public Subscription subscribe(long userId, Consumer<Event> listener) {
+        listeners.computeIfAbsent(userId, id -> new CopyOnWriteArrayList<>()).add(listener);
+        return () -> listeners.computeIfPresent(userId, (id, list) -> {
+            list.remove(listener);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    @Override
+    public int subscribedUsers() {
+        return listeners.size();
+    }
+}
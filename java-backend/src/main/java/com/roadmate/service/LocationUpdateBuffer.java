@@ -0,0 +1,134 @@
+package com.roadmate.service;
+
+import com.roadmate.model.User;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind buffer for GPS pings.
+ *
+ * Pings are coalesced per user (last write wins) and flushed on a fixed cadence
+ * with one multi-row UPDATE per chunk instead of a load + full-entity save per
+ * ping. Pending positions are visible through {@link #peek(Long)} so reads stay
+ * fresh until the flush lands.
+ */
+@Slf4j
+@Service
+public class LocationUpdateBuffer {
+
+    private static final int FLUSH_CHUNK_SIZE = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NomadLocationIndex nomadLocationIndex;
+
+    public record PendingLocation(double latitude, double longitude, LocalDateTime recordedAt) {
+    }
+
+    private final ConcurrentHashMap<Long, PendingLocation> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong pingsReceived = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+
+    public void record(long userId, double latitude, double longitude) {
+        pending.put(userId, new PendingLocation(latitude, longitude, LocalDateTime.now()));
+        pingsReceived.incrementAndGet();
+        nomadLocationIndex.update(userId, latitude, longitude);
+    }
+
+    /**
+     * Latest not-yet-flushed position for a user, or null if the database is current.
+     */
+    public PendingLocation peek(Long userId) {
+        return userId != null ? pending.get(userId) : null;
+    }
+
+    /**
+     * Copy a pending position onto a loaded entity before it is used. The location
+     * columns are not updatable through JPA, so the value still lands via {@link #flush()}.
+     */
+    public void applyPending(User user) {
+        PendingLocation location = peek(user.getId());
+        if (location != null) {
+            user.setLatitude(location.latitude());
+            user.setLongitude(location.longitude());
+            user.setLastActive(location.recordedAt());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${location.flush-interval-ms:2000}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+
+        List<Map.Entry<Long, PendingLocation>> snapshot = new ArrayList<>(pending.entrySet().size());
+        for (Map.Entry<Long, PendingLocation> entry : pending.entrySet()) {
+            snapshot.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+
+        for (int i = 0; i < snapshot.size(); i += FLUSH_CHUNK_SIZE) {
+            List<Map.Entry<Long, PendingLocation>> chunk =
+                    snapshot.subList(i, Math.min(i + FLUSH_CHUNK_SIZE, snapshot.size()));
+            try {
+                rowsWritten.addAndGet(writeChunk(chunk));
+                // Only drop entries that were not overwritten by a newer ping meanwhile
+                for (Map.Entry<Long, PendingLocation> entry : chunk) {
+                    pending.remove(entry.getKey(), entry.getValue());
+                }
+            } catch (Exception e) {
+                failedFlushes.incrementAndGet();
+                log.error("Location flush failed for {} users, will retry: {}", chunk.size(), e.getMessage());
+            }
+        }
+        flushCount.incrementAndGet();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pingsReceived", pingsReceived.get());
+        stats.put("rowsWritten", rowsWritten.get());
+        stats.put("pending", pending.size());
+        stats.put("flushes", flushCount.get());
+        stats.put("failedFlushes", failedFlushes.get());
+        return stats;
+    }
+
+    private int writeChunk(List<Map.Entry<Long, PendingLocation>> chunk) {
+        StringBuilder sql = new StringBuilder(
+                "UPDATE users AS u SET latitude = v.lat, longitude = v.lng, last_active = v.ts FROM (VALUES ");
+        Object[] args = new Object[chunk.size() * 4];
+        int a = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append("(CAST(? AS bigint), CAST(? AS double precision), CAST(? AS double precision), CAST(? AS timestamp))");
+            Map.Entry<Long, PendingLocation> entry = chunk.get(i);
+            args[a++] = entry.getKey();
+            args[a++] = entry.getValue().latitude();
+            args[a++] = entry.getValue().longitude();
+            args[a++] = Timestamp.valueOf(entry.getValue().recordedAt());
+        }
+        sql.append(") AS v(id, lat, lng, ts) WHERE u.id = v.id");
+        return jdbcTemplate.update(sql.toString(), args);
+    }
+}
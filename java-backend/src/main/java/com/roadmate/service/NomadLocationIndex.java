@@ -0,0 +1,329 @@
+package com.roadmate.service;
+
+import com.roadmate.repository.UserRepository;
+import com.roadmate.util.GeoUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory spatial index of user positions for nearby-nomad lookups.
+ *
+ * Positions are bucketed into a uniform lat/lng grid; coordinates live in
+ * primitive arrays addressed by slot and each grid cell only stores slot numbers.
+ * The index is filled from the database once after startup and then kept current
+ * by location updates. Until {@link #isWarm()} returns true callers should use the
+ * SQL queries in {@link UserRepository}.
+ */
+@Slf4j
+@Service
+public class NomadLocationIndex {
+
+    private static final double CELL_DEG = 0.25; // ~28km at the equator
+    private static final int ROWS = (int) Math.ceil(180 / CELL_DEG);
+    private static final int COLS = (int) Math.ceil(360 / CELL_DEG);
+    private static final double KM_PER_DEG = Math.toRadians(1) * GeoUtils.EARTH_RADIUS_KM;
+    // Past this many rings a linear scan over the coordinate arrays is cheaper than walking empty cells
+    private static final int MAX_RINGS = 40;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> slotByUser = new HashMap<>();
+    private final Map<Integer, Cell> cells = new HashMap<>();
+
+    private long[] userIds = new long[1024];
+    private double[] lats = new double[1024];
+    private double[] lngs = new double[1024];
+    private int[] cellOf = new int[1024];
+    private int highWater;
+    private int[] freeSlots = new int[64];
+    private int freeCount;
+
+    private volatile boolean warm;
+
+    public record Neighbor(long userId, double distanceKm) {
+    }
+
+    /**
+     * Load every known location from the database in the background once the
+     * application is up. Positions written while loading take precedence.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        try {
+            List<UserRepository.LocationView> locations = userRepository.findAllLocations();
+            lock.writeLock().lock();
+            try {
+                for (UserRepository.LocationView location : locations) {
+                    if (!slotByUser.containsKey(location.getId())) {
+                        put(location.getId(), location.getLatitude(), location.getLongitude());
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            warm = true;
+            log.info("Nomad location index warmed with {} users in {} ms",
+                    size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Nomad location index warm-up failed, nearby queries stay on SQL: {}", e.getMessage());
+        }
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotByUser.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void update(long userId, double lat, double lng) {
+        lock.writeLock().lock();
+        try {
+            put(userId, lat, lng);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long userId) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotByUser.remove(userId);
+            if (slot == null) return;
+            Cell cell = cells.get(cellOf[slot]);
+            if (cell != null && cell.remove(slot) == 0) {
+                cells.remove(cellOf[slot]);
+            }
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The k users closest to the given point, nearest first.
+     */
+    public List<Neighbor> nearest(double lat, double lng, int k, Long excludeUserId) {
+        if (k <= 0) return List.of();
+        long exclude = excludeUserId != null ? excludeUserId : Long.MIN_VALUE;
+        PriorityQueue<Neighbor> best = new PriorityQueue<>(k,
+                Comparator.comparingDouble(Neighbor::distanceKm).reversed());
+
+        lock.readLock().lock();
+        try {
+            int row0 = row(lat);
+            int col0 = col(lng);
+            boolean done = false;
+            for (int r = 0; r <= MAX_RINGS; r++) {
+                if (best.size() == k && ringLowerBoundKm(lat, r) > best.peek().distanceKm()) {
+                    done = true;
+                    break;
+                }
+                for (int dr = -r; dr <= r; dr++) {
+                    int row = row0 + dr;
+                    if (row < 0 || row >= ROWS) continue;
+                    int step = (Math.abs(dr) == r) ? 1 : Math.max(1, 2 * r);
+                    for (int dc = -r; dc <= r; dc += step) {
+                        Cell cell = cells.get(key(row, Math.floorMod(col0 + dc, COLS)));
+                        if (cell != null) {
+                            offer(cell.slots, cell.count, lat, lng, k, exclude, best);
+                        }
+                    }
+                }
+            }
+            if (!done) {
+                // Sparse neighbourhood: fall back to a scan over all live slots
+                best.clear();
+                for (Cell cell : cells.values()) {
+                    offer(cell.slots, cell.count, lat, lng, k, exclude, best);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Neighbor> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Neighbor::distanceKm));
+        return result;
+    }
+
+    /**
+     * All users within radiusKm of the given point, nearest first.
+     */
+    public List<Neighbor> withinRadius(double lat, double lng, double radiusKm, Long excludeUserId) {
+        long exclude = excludeUserId != null ? excludeUserId : Long.MIN_VALUE;
+        List<Neighbor> result = new ArrayList<>();
+
+        double latSpan = radiusKm / KM_PER_DEG;
+        double maxAbsLat = Math.min(90, Math.abs(lat) + latSpan);
+        double cos = Math.cos(Math.toRadians(maxAbsLat));
+        double lngSpan = cos > 1e-6 ? radiusKm / (KM_PER_DEG * cos) : 360;
+
+        lock.readLock().lock();
+        try {
+            int rowMin = row(lat - latSpan);
+            int rowMax = row(lat + latSpan);
+            int colSpan = lngSpan >= 180 ? COLS : (int) Math.ceil(lngSpan / CELL_DEG);
+            long boxCells = (long) (rowMax - rowMin + 1) * Math.min(COLS, 2L * colSpan + 1);
+
+            if (boxCells > cells.size()) {
+                for (Cell cell : cells.values()) {
+                    collect(cell, lat, lng, radiusKm, exclude, result);
+                }
+            } else {
+                boolean allCols = 2L * colSpan + 1 >= COLS;
+                int colStart = allCols ? 0 : col(lng) - colSpan;
+                int colCount = allCols ? COLS : 2 * colSpan + 1;
+                for (int row = rowMin; row <= rowMax; row++) {
+                    for (int c = 0; c < colCount; c++) {
+                        Cell cell = cells.get(key(row, Math.floorMod(colStart + c, COLS)));
+                        if (cell != null) {
+                            collect(cell, lat, lng, radiusKm, exclude, result);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        result.sort(Comparator.comparingDouble(Neighbor::distanceKm));
+        return result;
+    }
+
+    // Caller must hold the write lock
+    private void put(long userId, double lat, double lng) {
+        Integer existing = slotByUser.get(userId);
+        int slot;
+        if (existing != null) {
+            slot = existing;
+            int newCell = key(row(lat), col(lng));
+            if (newCell != cellOf[slot]) {
+                Cell old = cells.get(cellOf[slot]);
+                if (old != null && old.remove(slot) == 0) {
+                    cells.remove(cellOf[slot]);
+                }
+                cells.computeIfAbsent(newCell, c -> new Cell()).add(slot);
+                cellOf[slot] = newCell;
+            }
+        } else {
+            slot = freeCount > 0 ? freeSlots[--freeCount] : nextSlot();
+            slotByUser.put(userId, slot);
+            userIds[slot] = userId;
+            cellOf[slot] = key(row(lat), col(lng));
+            cells.computeIfAbsent(cellOf[slot], c -> new Cell()).add(slot);
+        }
+        lats[slot] = lat;
+        lngs[slot] = lng;
+    }
+
+    private int nextSlot() {
+        if (highWater == userIds.length) {
+            int capacity = userIds.length * 2;
+            userIds = Arrays.copyOf(userIds, capacity);
+            lats = Arrays.copyOf(lats, capacity);
+            lngs = Arrays.copyOf(lngs, capacity);
+            cellOf = Arrays.copyOf(cellOf, capacity);
+        }
+        return highWater++;
+    }
+
+    private void offer(int[] slots, int count, double lat, double lng, int k, long exclude,
+                       PriorityQueue<Neighbor> best) {
+        for (int i = 0; i < count; i++) {
+            int slot = slots[i];
+            if (userIds[slot] == exclude) continue;
+            double d = GeoUtils.haversineKm(lat, lng, lats[slot], lngs[slot]);
+            if (best.size() < k) {
+                best.add(new Neighbor(userIds[slot], d));
+            } else if (d < best.peek().distanceKm()) {
+                best.poll();
+                best.add(new Neighbor(userIds[slot], d));
+            }
+        }
+    }
+
+    private void collect(Cell cell, double lat, double lng, double radiusKm, long exclude, List<Neighbor> out) {
+        for (int i = 0; i < cell.count; i++) {
+            int slot = cell.slots[i];
+            if (userIds[slot] == exclude) continue;
+            double d = GeoUtils.haversineKm(lat, lng, lats[slot], lngs[slot]);
+            if (d <= radiusKm) {
+                out.add(new Neighbor(userIds[slot], d));
+            }
+        }
+    }
+
+    /**
+     * Conservative minimum distance from the query point to anything in ring r:
+     * such points are at least r-1 whole cells away in latitude or longitude.
+     */
+    private double ringLowerBoundKm(double lat, int r) {
+        if (r <= 1) return 0;
+        double maxAbsLat = Math.min(90, Math.abs(lat) + r * CELL_DEG);
+        double lngFactor = Math.cos(Math.toRadians(maxAbsLat));
+        // Small margin because great circles bow away from parallels
+        return (r - 1) * CELL_DEG * KM_PER_DEG * lngFactor * 0.95;
+    }
+
+    private static int row(double lat) {
+        int row = (int) Math.floor((lat + 90) / CELL_DEG);
+        return Math.max(0, Math.min(ROWS - 1, row));
+    }
+
+    private static int col(double lng) {
+        return Math.floorMod((int) Math.floor((lng + 180) / CELL_DEG), COLS);
+    }
+
+    private static int key(int row, int col) {
+        return row * COLS + col;
+    }
+
+    private static final class Cell {
+        int[] slots = new int[4];
+        int count;
+
+        void add(int slot) {
+            if (count == slots.length) {
+                slots = Arrays.copyOf(slots, count * 2);
+            }
+            slots[count++] = slot;
+        }
+
+        int remove(int slot) {
+            for (int i = 0; i < count; i++) {
+                if (slots[i] == slot) {
+                    slots[i] = slots[--count];
+                    break;
+                }
+            }
+            return count;
+        }
+    }
+}
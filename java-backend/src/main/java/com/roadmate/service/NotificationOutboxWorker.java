@@ -0,0 +1,410 @@
+package com.roadmate.service;
+
+import com.roadmate.dto.NotificationDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains notification_outbox into notifications.
+ *
+ * Each batch is claimed with DELETE ... RETURNING under SKIP LOCKED and written in
+ * the same transaction, so a crash leaves the rows in the outbox. Rows of a
+ * coalescable type are grouped by (recipient, type, sender): a group either
+ * folds into that recipient's unread notification from the last
+ * {@code notifications.coalesce.window-seconds}, or becomes one new notification
+ * ("Ayla sent you 5 messages"). New notifications get ids from the sequence in
+ * one round trip and are inserted with a single JDBC batch.
+ *
+ * After commit every notification is pushed to open event streams. New ones
+ * flagged for push go to Expo, grouped by identical content, within each
+ * recipient's {@link PushRateLimiter} budget. Pushes are at-most-once.
+ *
+ * The reported queue depth is rows enqueued on this node minus rows drained,
+ * reset to zero whenever a claim comes back short (the outbox was empty), so
+ * metrics scrapes never count the table.
+ */
+@Slf4j
+@Service
+public class NotificationOutboxWorker {
+
+    private static final int MAX_BATCHES_PER_RUN = 20;
+
+    private static final String CLAIM_SQL =
+            "DELETE FROM notification_outbox WHERE id IN (" +
+            "SELECT id FROM notification_outbox ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, user_id, sender_id, type, title, message, data, push, created_at";
+
+    private static final String NEXT_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('notifications', 'id')) FROM generate_series(1, ?)";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO notifications (id, user_id, sender_id, type, title, message, is_read, created_at, data, group_count) " +
+            "VALUES (?, ?, ?, ?, ?, ?, false, ?, ?, ?)";
+
+    private static final String RECENT_UNREAD_SQL =
+            "SELECT DISTINCT ON (user_id, type, sender_id) id, user_id, type, sender_id, " +
+            "COALESCE(group_count, 1) AS group_count FROM notifications " +
+            "WHERE user_id = ANY(?) AND type = ANY(?) AND is_read = false AND created_at > ? " +
+            "ORDER BY user_id, type, sender_id, created_at DESC";
+
+    // Only folds into a notification the recipient has not read in the meantime
+    private static final String MERGE_SQL =
+            "UPDATE notifications SET title = ?, message = ?, data = ?, created_at = ?, " +
+            "group_count = COALESCE(group_count, 1) + ? WHERE id = ? AND is_read = false";
+
+    private static final String USERS_SQL =
+            "SELECT id, name, image, expo_push_token FROM users WHERE id = ANY(?)";
+
+    @Value("${notifications.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${notifications.coalesce.window-seconds:120}")
+    private long coalesceWindowSeconds;
+
+    @Value("${notifications.coalesce.types:MESSAGE,ROUTE_UPDATE,NEW_ACTIVITY}")
+    private Set<String> coalescableTypes;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ExpoPushService expoPushService;
+
+    @Autowired
+    private RealtimeEventPublisher realtimeEventPublisher;
+
+    @Autowired
+    private PushRateLimiter pushRateLimiter;
+
+    @Autowired
+    private UnreadCounterStore unreadCounterStore;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong drained = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicLong merged = new AtomicLong();
+    private final AtomicLong pushed = new AtomicLong();
+    private final AtomicLong totalLagMs = new AtomicLong();
+    private volatile long lastMaxLagMs;
+    private volatile long lastBatchMs;
+    // Added to enqueued - drained; covers rows left from before a restart and rolled-back enqueues
+    private volatile long depthOffset;
+
+    private record OutboxRow(long outboxId, long userId, Long senderId, String type, String title,
+                             String message, String data, boolean push, LocalDateTime createdAt) {
+    }
+
+    private record UserInfo(String name, String image, String pushToken) {
+    }
+
+    private record GroupKey(long userId, String type, Long senderId) {
+    }
+
+    private record ExistingNotification(long id, int count) {
+    }
+
+    // One notification written by a drain, either new or merged into an unread one
+    private record Delivery(long notificationId, OutboxRow latest, int count, boolean isNew, boolean push) {
+    }
+
+    private record DrainedBatch(List<OutboxRow> claimed, List<Delivery> deliveries, Map<Long, UserInfo> users) {
+    }
+
+    private record PushGroup(String type, Long senderId, String title, String body) {
+    }
+
+    private static final RowMapper<OutboxRow> ROW_MAPPER = (rs, i) -> new OutboxRow(
+            rs.getLong("id"),
+            rs.getLong("user_id"),
+            rs.getObject("sender_id") != null ? rs.getLong("sender_id") : null,
+            rs.getString("type"),
+            rs.getString("title"),
+            rs.getString("message"),
+            rs.getString("data"),
+            rs.getBoolean("push"),
+            rs.getTimestamp("created_at").toLocalDateTime());
+
+    @Scheduled(fixedDelayString = "${notifications.outbox.drain-interval-ms:1000}")
+    public void drain() {
+        for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+            if (drainBatch() < batchSize) break;
+        }
+    }
+
+    /**
+     * Called by NotificationService for rows it has just inserted into the outbox.
+     */
+    public void recordEnqueued(int count) {
+        enqueued.addAndGet(count);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long drainedCount = drained.get();
+        stats.put("queueDepth", Math.max(0, enqueued.get() - drainedCount + depthOffset));
+        stats.put("drained", drainedCount);
+        stats.put("batches", batches.get());
+        stats.put("failedBatches", failedBatches.get());
+        stats.put("inserted", inserted.get());
+        stats.put("merged", merged.get());
+        stats.put("pushed", pushed.get());
+        stats.put("pushRateLimit", pushRateLimiter.stats());
+        stats.put("avgDrainLagMs", drainedCount > 0 ? totalLagMs.get() / drainedCount : 0);
+        stats.put("lastMaxDrainLagMs", lastMaxLagMs);
+        stats.put("lastBatchMs", lastBatchMs);
+        return stats;
+    }
+
+    private int drainBatch() {
+        long start = System.currentTimeMillis();
+        DrainedBatch batch;
+        try {
+            batch = transactionTemplate.execute(status -> claimAndWrite());
+        } catch (Exception e) {
+            failedBatches.incrementAndGet();
+            log.error("Notification outbox drain failed: {}", e.getMessage());
+            return 0;
+        }
+        if (batch == null || batch.claimed().isEmpty()) {
+            depthOffset = drained.get() - enqueued.get();
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        long maxLag = 0;
+        for (OutboxRow row : batch.claimed()) {
+            long lag = ChronoUnit.MILLIS.between(row.createdAt(), now);
+            totalLagMs.addAndGet(lag);
+            maxLag = Math.max(maxLag, lag);
+        }
+        lastMaxLagMs = maxLag;
+        drained.addAndGet(batch.claimed().size());
+        batches.incrementAndGet();
+        if (batch.claimed().size() < batchSize) {
+            depthOffset = drained.get() - enqueued.get();
+        }
+
+        // Merges fold into a notification that is already unread, so only new rows count
+        for (Delivery delivery : batch.deliveries()) {
+            if (delivery.isNew()) {
+                unreadCounterStore.add(UnreadCounterStore.Kind.NOTIFICATIONS, delivery.latest().userId(), 1);
+            }
+        }
+
+        try {
+            deliver(batch);
+        } catch (Exception e) {
+            log.error("Notification delivery after drain failed: {}", e.getMessage());
+        }
+        lastBatchMs = System.currentTimeMillis() - start;
+        return batch.claimed().size();
+    }
+
+    // Runs inside the drain transaction
+    private DrainedBatch claimAndWrite() {
+        List<OutboxRow> claimed = new ArrayList<>(jdbcTemplate.query(CLAIM_SQL, ROW_MAPPER, batchSize));
+        if (claimed.isEmpty()) return new DrainedBatch(claimed, List.of(), Map.of());
+        claimed.sort(Comparator.comparingLong(OutboxRow::outboxId));
+
+        Set<Long> userIds = new HashSet<>();
+        for (OutboxRow row : claimed) {
+            if (row.senderId() != null) userIds.add(row.senderId());
+            if (row.push()) userIds.add(row.userId());
+        }
+        Map<Long, UserInfo> users = loadUsers(userIds);
+
+        // Coalescable rows share a group per key; every other row is a group of its own
+        Map<GroupKey, List<OutboxRow>> coalesced = new LinkedHashMap<>();
+        List<List<OutboxRow>> groups = new ArrayList<>();
+        for (OutboxRow row : claimed) {
+            if (coalescableTypes.contains(row.type())) {
+                coalesced.computeIfAbsent(new GroupKey(row.userId(), row.type(), row.senderId()), k -> {
+                    List<OutboxRow> group = new ArrayList<>();
+                    groups.add(group);
+                    return group;
+                }).add(row);
+            } else {
+                groups.add(List.of(row));
+            }
+        }
+
+        Map<GroupKey, ExistingNotification> existing = findRecentUnread(coalesced.keySet());
+        List<Delivery> deliveries = new ArrayList<>(groups.size());
+        List<List<OutboxRow>> fresh = new ArrayList<>();
+        List<List<OutboxRow>> merging = new ArrayList<>();
+        List<Object[]> merges = new ArrayList<>();
+        for (List<OutboxRow> group : groups) {
+            OutboxRow latest = group.get(group.size() - 1);
+            ExistingNotification target = coalescableTypes.contains(latest.type())
+                    ? existing.get(new GroupKey(latest.userId(), latest.type(), latest.senderId()))
+                    : null;
+            if (target == null) {
+                fresh.add(group);
+                continue;
+            }
+            int count = target.count() + group.size();
+            merging.add(group);
+            merges.add(new Object[] {
+                    latest.title(), summarize(latest, count, users), latest.data(),
+                    Timestamp.valueOf(latest.createdAt()), group.size(), target.id()
+            });
+            deliveries.add(new Delivery(target.id(), latest, count, false, false));
+        }
+
+        if (!merges.isEmpty()) {
+            int[] updated = jdbcTemplate.batchUpdate(MERGE_SQL, merges);
+            // A target read since the lookup is left alone; its group becomes a new notification.
+            // deliveries holds only the merges so far, in the same order.
+            int missed = 0;
+            for (int i = updated.length - 1; i >= 0; i--) {
+                if (updated[i] == 0) {
+                    fresh.add(merging.get(i));
+                    deliveries.remove(i);
+                    missed++;
+                }
+            }
+            merged.addAndGet(merges.size() - missed);
+        }
+
+        if (!fresh.isEmpty()) {
+            List<Long> ids = jdbcTemplate.queryForList(NEXT_IDS_SQL, Long.class, fresh.size());
+            List<Object[]> inserts = new ArrayList<>(fresh.size());
+            for (int i = 0; i < fresh.size(); i++) {
+                List<OutboxRow> group = fresh.get(i);
+                OutboxRow latest = group.get(group.size() - 1);
+                long notificationId = ids.get(i);
+                inserts.add(new Object[] {
+                        notificationId, latest.userId(), latest.senderId(), latest.type(), latest.title(),
+                        summarize(latest, group.size(), users), Timestamp.valueOf(latest.createdAt()),
+                        latest.data(), group.size()
+                });
+                boolean push = group.stream().anyMatch(OutboxRow::push);
+                deliveries.add(new Delivery(notificationId, latest, group.size(), true, push));
+            }
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+            inserted.addAndGet(fresh.size());
+        }
+        return new DrainedBatch(claimed, deliveries, users);
+    }
+
+    private Map<GroupKey, ExistingNotification> findRecentUnread(Set<GroupKey> keys) {
+        Map<GroupKey, ExistingNotification> existing = new HashMap<>();
+        if (keys.isEmpty()) return existing;
+
+        Set<Long> userIds = new HashSet<>();
+        Set<String> types = new HashSet<>();
+        for (GroupKey key : keys) {
+            userIds.add(key.userId());
+            types.add(key.type());
+        }
+        Timestamp since = Timestamp.valueOf(LocalDateTime.now().minusSeconds(coalesceWindowSeconds));
+        jdbcTemplate.query(RECENT_UNREAD_SQL,
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("bigint", userIds.toArray()));
+                    ps.setArray(2, ps.getConnection().createArrayOf("varchar", types.toArray()));
+                    ps.setTimestamp(3, since);
+                },
+                rs -> {
+                    GroupKey key = new GroupKey(rs.getLong("user_id"), rs.getString("type"),
+                            rs.getObject("sender_id") != null ? rs.getLong("sender_id") : null);
+                    if (keys.contains(key)) {
+                        existing.put(key, new ExistingNotification(rs.getLong("id"), rs.getInt("group_count")));
+                    }
+                });
+        return existing;
+    }
+
+    // Text for a notification standing for count events; the latest event's text when there is one
+    private String summarize(OutboxRow latest, int count, Map<Long, UserInfo> users) {
+        if (count <= 1) return latest.message();
+        UserInfo sender = latest.senderId() != null ? users.get(latest.senderId()) : null;
+        String name = sender != null && sender.name() != null ? sender.name() : "Someone";
+        return switch (latest.type()) {
+            case "MESSAGE" -> name + " sent you " + count + " messages";
+            case "NEW_ACTIVITY" -> name + " created " + count + " new activities";
+            default -> latest.message();
+        };
+    }
+
+    private void deliver(DrainedBatch batch) {
+        Map<Long, UserInfo> users = batch.users();
+        Map<PushGroup, List<String>> pushGroups = new LinkedHashMap<>();
+        for (Delivery delivery : batch.deliveries()) {
+            OutboxRow row = delivery.latest();
+            UserInfo sender = row.senderId() != null ? users.get(row.senderId()) : null;
+            String message = summarize(row, delivery.count(), users);
+            NotificationDto dto = NotificationDto.builder()
+                    .id(delivery.notificationId())
+                    .type(row.type())
+                    .title(row.title())
+                    .message(message)
+                    .isRead(false)
+                    .createdAt(row.createdAt())
+                    .senderId(row.senderId())
+                    .senderName(sender != null ? sender.name() : null)
+                    .senderImage(sender != null ? sender.image() : null)
+                    .data(row.data())
+                    .count(delivery.count())
+                    .build();
+            realtimeEventPublisher.publish(row.userId(), "notification", dto);
+
+            // Merged notifications were already pushed when they were created
+            if (!delivery.isNew() || !delivery.push()) continue;
+            UserInfo recipient = users.get(row.userId());
+            if (recipient == null || recipient.pushToken() == null) continue;
+            if (!pushRateLimiter.tryAcquire(row.userId())) continue;
+            pushGroups.computeIfAbsent(
+                    new PushGroup(row.type(), row.senderId(), row.title(), message),
+                    k -> new ArrayList<>()).add(recipient.pushToken());
+        }
+
+        // Fan-outs (route updates, new activities) share content, so each group is one batched call
+        for (Map.Entry<PushGroup, List<String>> entry : pushGroups.entrySet()) {
+            PushGroup group = entry.getKey();
+            Map<String, Object> data = new HashMap<>();
+            data.put("type", group.type());
+            if (group.senderId() != null) {
+                data.put("senderId", group.senderId());
+            }
+            expoPushService.sendBatchPushNotifications(entry.getValue(), group.title(), group.body(), data)
+                    .thenAccept(tickets -> pushed.addAndGet(
+                            tickets.stream().filter(ExpoPushService.Ticket::isOk).count()));
+        }
+    }
+
+    private Map<Long, UserInfo> loadUsers(Set<Long> userIds) {
+        Map<Long, UserInfo> users = new HashMap<>();
+        if (userIds.isEmpty()) return users;
+        jdbcTemplate.query(USERS_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", userIds.toArray())),
+                rs -> {
+                    users.put(rs.getLong("id"), new UserInfo(
+                            rs.getString("name"), rs.getString("image"), rs.getString("expo_push_token")));
+                });
+        return users;
+    }
+}
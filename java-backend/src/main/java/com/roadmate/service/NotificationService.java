@@ -1,14 +1,22 @@
 package com.roadmate.service;
 
+import com.roadmate.dto.NotificationDto;
 import com.roadmate.model.Notification;
 import com.roadmate.model.User;
 import com.roadmate.repository.NotificationRepository;
 import com.roadmate.repository.UserRepository;
+import com.roadmate.util.InboxCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @Service
@@ -20,26 +28,52 @@ public class NotificationService {
     @Autowired
     private UserRepository userRepository;
 
-    public List<Notification> getNotifications(Long userId) {
-        return notificationRepository.findByUserIdOrderByCreatedAtDesc(userId);
+    @Autowired
+    private RealtimeEventPublisher realtimeEventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UnreadCounterStore unreadCounterStore;
+
+    @Autowired
+    private NotificationOutboxWorker notificationOutboxWorker;
+
+    private static final String ENQUEUE_SQL =
+            "INSERT INTO notification_outbox (user_id, sender_id, type, title, message, data, push, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * A page of the inbox, newest first. Pass the position of the oldest
+     * notification of the previous page to continue; null starts at the top.
+     */
+    public List<NotificationRepository.InboxView> getNotifications(Long userId, InboxCursor before, int limit) {
+        Pageable page = PageRequest.of(0, limit);
+        if (before == null) return notificationRepository.findLatestInboxPage(userId, page);
+        return notificationRepository.findInboxPageBefore(userId, before.createdAt(), before.id(), page);
     }
 
-    public List<Notification> getUnreadNotifications(Long userId) {
-        return notificationRepository.findByUserIdAndIsReadFalseOrderByCreatedAtDesc(userId);
+    public List<NotificationRepository.InboxView> getUnreadNotifications(Long userId, InboxCursor before, int limit) {
+        Pageable page = PageRequest.of(0, limit);
+        if (before == null) return notificationRepository.findLatestUnreadPage(userId, page);
+        return notificationRepository.findUnreadPageBefore(userId, before.createdAt(), before.id(), page);
     }
 
     public Long getUnreadCount(Long userId) {
-        return notificationRepository.countByUserIdAndIsReadFalse(userId);
+        return unreadCounterStore.get(UnreadCounterStore.Kind.NOTIFICATIONS, userId);
     }
 
     @Transactional
     public void markAllAsRead(Long userId) {
         notificationRepository.markAllAsRead(userId);
+        unreadCounterStore.reset(UnreadCounterStore.Kind.NOTIFICATIONS, userId);
     }
 
     @Transactional
-    public void markAsRead(Long notificationId) {
-        notificationRepository.markAsRead(notificationId);
+    public void markAsRead(Long userId, Long notificationId) {
+        int updated = notificationRepository.markAsRead(userId, notificationId);
+        unreadCounterStore.add(UnreadCounterStore.Kind.NOTIFICATIONS, userId, -updated);
     }
 
     @Transactional
@@ -58,22 +92,60 @@ public class NotificationService {
                 .data("{\"senderId\": " + sender.getId() + ", \"senderLat\": " + sender.getLatitude() + ", \"senderLng\": " + sender.getLongitude() + "}")
                 .build();
 
-        return notificationRepository.save(notification);
+        Notification saved = notificationRepository.save(notification);
+        unreadCounterStore.add(UnreadCounterStore.Kind.NOTIFICATIONS, targetUser.getId(), 1);
+        publish(saved);
+        return saved;
     }
 
     @Transactional
     public void createNotification(User targetUser, User sender, String type, String title, String message, String data) {
-        Notification notification = Notification.builder()
-                .user(targetUser)
-                .sender(sender)
-                .type(type)
-                .title(title)
-                .message(message)
-                .isRead(false)
-                .createdAt(LocalDateTime.now())
-                .data(data)
-                .build();
+        createNotification(targetUser, sender, type, title, message, data, false);
+    }
 
-        notificationRepository.save(notification);
+    /**
+     * Queue a notification in the outbox as part of the caller's transaction.
+     * NotificationOutboxWorker writes it to notifications shortly after commit and,
+     * when push is set, also sends it to the recipient's device.
+     */
+    @Transactional
+    public void createNotification(User targetUser, User sender, String type, String title, String message, String data, boolean push) {
+        createNotifications(List.of(targetUser), sender, type, title, message, data, push);
+    }
+
+    /**
+     * Queue the same notification for several recipients with one batched insert.
+     */
+    @Transactional
+    public void createNotifications(Collection<User> targetUsers, User sender, String type, String title, String message, String data, boolean push) {
+        if (targetUsers.isEmpty()) return;
+        Long senderId = sender != null ? sender.getId() : null;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(targetUsers.size());
+        for (User target : targetUsers) {
+            rows.add(new Object[] { target.getId(), senderId, type, title, message, data, push, now });
+        }
+        jdbcTemplate.batchUpdate(ENQUEUE_SQL, rows);
+        notificationOutboxWorker.recordEnqueued(rows.size());
+    }
+
+    /**
+     * Push a saved notification to the recipient's open event streams.
+     */
+    private void publish(Notification n) {
+        NotificationDto dto = NotificationDto.builder()
+                .id(n.getId())
+                .type(n.getType())
+                .title(n.getTitle())
+                .message(n.getMessage())
+                .isRead(n.getIsRead())
+                .createdAt(n.getCreatedAt())
+                .senderId(n.getSender() != null ? n.getSender().getId() : null)
+                .senderName(n.getSender() != null ? n.getSender().getName() : null)
+                .senderImage(n.getSender() != null ? n.getSender().getImage() : null)
+                .data(n.getData())
+                .count(n.getGroupCount() != null ? n.getGroupCount() : 1)
+                .build();
+        realtimeEventPublisher.publish(n.getUser().getId(), "notification", dto);
     }
 }
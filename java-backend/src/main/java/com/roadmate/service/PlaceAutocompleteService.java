@@ -0,0 +1,285 @@
+package com.roadmate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Place autocomplete with three layers in front of the Google API:
+ *
+ * 1. An LRU cache of normalized inputs with a short TTL.
+ * 2. A prefix trie over the same entries. Google returns at most five
+ *    predictions, so a cached prefix that came back with fewer is taken as
+ *    complete and its extensions are answered by filtering it locally
+ *    ("ista" answers "istanb").
+ * 3. Single-flight: concurrent identical inputs that miss both share one
+ *    in-flight request instead of each calling Google.
+ *
+ * Failed calls return no suggestions and are not cached.
+ */
+@Slf4j
+@Service
+public class PlaceAutocompleteService {
+
+    public static final int MIN_INPUT_LENGTH = 2;
+
+    // Google's cap on predictions per response; fewer means the prefix is exhausted
+    private static final int GOOGLE_MAX_PREDICTIONS = 5;
+    private static final long IN_FLIGHT_WAIT_SECONDS = 10;
+
+    @Value("${google.places.api.key}")
+    private String googlePlacesApiKey;
+
+    @Value("${google.places.base-url:https://maps.googleapis.com/maps/api/place}")
+    private String baseUrl;
+
+    @Value("${places.autocomplete.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${places.autocomplete.max-entries:10000}")
+    private int maxEntries;
+
+    private final RestTemplate restTemplate = new RestTemplate();
+
+    private final Object lock = new Object();
+    // Guarded by lock; eviction from the LRU also removes the prefix from the trie
+    private final Map<String, CachedPrefix> prefixes = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedPrefix> eldest) {
+            if (size() > maxEntries) {
+                trieRemove(eldest.getKey());
+                evicted.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+    private final TrieNode root = new TrieNode();
+
+    private final Map<String, CompletableFuture<List<Suggestion>>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong trieHits = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong upstreamCalls = new AtomicLong();
+    private final AtomicLong upstreamErrors = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    private record Suggestion(Object placeId, Object description, Object mainText, Object secondaryText,
+                              String searchText) {
+    }
+
+    private record CachedPrefix(List<Suggestion> suggestions, boolean complete, long expiresAtMillis) {
+        boolean isLive(long now) {
+            return expiresAtMillis > now;
+        }
+    }
+
+    private static final class TrieNode {
+        final Map<Character, TrieNode> children = new HashMap<>(4);
+        CachedPrefix entry;
+    }
+
+    public List<Map<String, Object>> suggest(String input) {
+        String key = normalize(input);
+        if (key.length() < MIN_INPUT_LENGTH) return Collections.emptyList();
+        requests.incrementAndGet();
+
+        List<Suggestion> local = lookup(key);
+        if (local != null) return toResponse(local);
+
+        CompletableFuture<List<Suggestion>> mine = new CompletableFuture<>();
+        CompletableFuture<List<Suggestion>> shared = inFlight.putIfAbsent(key, mine);
+        if (shared != null) {
+            coalesced.incrementAndGet();
+            try {
+                return toResponse(shared.get(IN_FLIGHT_WAIT_SECONDS, TimeUnit.SECONDS));
+            } catch (Exception e) {
+                return Collections.emptyList();
+            }
+        }
+
+        try {
+            List<Suggestion> fetched = fetch(key);
+            mine.complete(fetched != null ? fetched : List.of());
+            return toResponse(fetched != null ? fetched : List.of());
+        } catch (RuntimeException e) {
+            mine.complete(List.of());
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long total = requests.get();
+        long served = cacheHits.get() + trieHits.get() + coalesced.get();
+        synchronized (lock) {
+            stats.put("cachedPrefixes", prefixes.size());
+        }
+        stats.put("requests", total);
+        stats.put("cacheHits", cacheHits.get());
+        stats.put("trieHits", trieHits.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("upstreamCalls", upstreamCalls.get());
+        stats.put("upstreamErrors", upstreamErrors.get());
+        stats.put("evicted", evicted.get());
+        stats.put("savedCallRate", total > 0 ? (double) served / total : 0.0);
+        return stats;
+    }
+
+    static String normalize(String input) {
+        if (input == null) return "";
+        return input.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // Exact cached input, else the longest complete cached prefix filtered to the input
+    private List<Suggestion> lookup(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (lock) {
+            CachedPrefix exact = prefixes.get(key);
+            if (exact != null) {
+                if (exact.isLive(now)) {
+                    cacheHits.incrementAndGet();
+                    return exact.suggestions();
+                }
+                prefixes.remove(key);
+                trieRemove(key);
+            }
+
+            CachedPrefix best = null;
+            TrieNode node = root;
+            for (int i = 0; i < key.length() - 1 && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+                if (node != null && node.entry != null && node.entry.complete() && node.entry.isLive(now)) {
+                    best = node.entry;
+                }
+            }
+            if (best == null) return null;
+
+            List<Suggestion> filtered = new ArrayList<>();
+            for (Suggestion suggestion : best.suggestions()) {
+                if (matches(suggestion.searchText(), key)) filtered.add(suggestion);
+            }
+            // No local match is not proof of no remote match (Google matches loosely), so ask
+            if (filtered.isEmpty()) return null;
+            trieHits.incrementAndGet();
+            return filtered;
+        }
+    }
+
+    private static boolean matches(String text, String key) {
+        return text.startsWith(key) || text.contains(" " + key);
+    }
+
+    private void store(String key, List<Suggestion> suggestions, boolean complete) {
+        CachedPrefix entry = new CachedPrefix(suggestions, complete, System.currentTimeMillis() + ttlSeconds * 1000);
+        synchronized (lock) {
+            prefixes.put(key, entry);
+            TrieNode node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new TrieNode());
+            }
+            node.entry = entry;
+        }
+    }
+
+    // Caller holds lock; prunes nodes left without entry or children
+    private void trieRemove(String key) {
+        Deque<TrieNode> path = new ArrayDeque<>(key.length() + 1);
+        TrieNode node = root;
+        path.push(node);
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.get(key.charAt(i));
+            if (node == null) return;
+            path.push(node);
+        }
+        node.entry = null;
+        for (int i = key.length() - 1; i >= 0; i--) {
+            TrieNode child = path.pop();
+            if (child.entry != null || !child.children.isEmpty()) break;
+            path.peek().children.remove(key.charAt(i));
+        }
+    }
+
+    private List<Suggestion> fetch(String key) {
+        upstreamCalls.incrementAndGet();
+        String url = String.format(
+            "%s/autocomplete/json?input=%s&key=%s",
+            baseUrl, URLEncoder.encode(key, StandardCharsets.UTF_8), googlePlacesApiKey
+        );
+
+        Map<String, Object> response;
+        try {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> body = restTemplate.getForObject(url, Map.class);
+            response = body;
+        } catch (Exception e) {
+            upstreamErrors.incrementAndGet();
+            log.error("Error fetching autocomplete suggestions: {}", e.getMessage());
+            return null;
+        }
+        if (response == null) {
+            upstreamErrors.incrementAndGet();
+            return null;
+        }
+
+        String status = (String) response.get("status");
+        if (!"OK".equals(status) && !"ZERO_RESULTS".equals(status)) {
+            upstreamErrors.incrementAndGet();
+            log.error("Autocomplete API Error: {} - {}", status, response.get("error_message"));
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> predictions = (List<Map<String, Object>>) response.getOrDefault("predictions", Collections.emptyList());
+
+        List<Suggestion> suggestions = new ArrayList<>(predictions.size());
+        for (Map<String, Object> prediction : predictions) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> structuredFormatting = (Map<String, Object>) prediction.get("structured_formatting");
+            Object description = prediction.get("description");
+            suggestions.add(new Suggestion(
+                    prediction.get("place_id"),
+                    description,
+                    structuredFormatting != null ? structuredFormatting.get("main_text") : description,
+                    structuredFormatting != null ? structuredFormatting.get("secondary_text") : "",
+                    normalize(description != null ? description.toString() : "")));
+        }
+        List<Suggestion> result = List.copyOf(suggestions);
+        store(key, result, predictions.size() < GOOGLE_MAX_PREDICTIONS);
+        return result;
+    }
+
+    private static List<Map<String, Object>> toResponse(List<Suggestion> suggestions) {
+        List<Map<String, Object>> response = new ArrayList<>(suggestions.size());
+        for (Suggestion s : suggestions) {
+            Map<String, Object> suggestion = new HashMap<>();
+            suggestion.put("placeId", s.placeId());
+            suggestion.put("description", s.description());
+            suggestion.put("mainText", s.mainText());
+            suggestion.put("secondaryText", s.secondaryText());
+            response.add(suggestion);
+        }
+        return response;
+    }
+}
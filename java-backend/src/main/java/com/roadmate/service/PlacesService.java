@@ -0,0 +1,363 @@
+package com.roadmate.service;
+
+import com.roadmate.util.GeoHash;
+import com.roadmate.util.GeoUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Nearby places from the Google Places API, cached per geohash tile.
+ *
+ * A lookup is keyed on (category, radius, tile). On a miss the API is asked
+ * once from the tile's center with the radius widened by half the tile's
+ * diagonal, so the answer covers every caller inside the tile. Each caller
+ * then gets the cached places filtered to their own radius and ranked by
+ * distance from their exact coordinates. Tiles are about half the radius
+ * wide, which keeps the widened query close to what was asked for.
+ *
+ * A tile answer is only trusted when it is complete. Nearby Search returns
+ * at most 20 places ranked by prominence, so a full page may leave out the
+ * caller's nearest places; such a tile is remembered as dense. Callers in a
+ * dense tile, or whose widened radius would exceed the API's 50 km limit, are
+ * answered from a much finer tile (about a twentieth of the radius) fetched
+ * from its own center, which is cached the same way, so a busy town still
+ * costs one call per block rather than one per request.
+ *
+ * Concurrent misses on the same key share one upstream call.
+ */
+@Slf4j
+@Service
+public class PlacesService {
+
+    public static final int MAX_RESULTS = 15;
+    public static final int MAX_RADIUS_METERS = 50000;
+
+    // Nearby Search page size; a full page means more results were cut off
+    static final int API_PAGE_SIZE = 20;
+
+    // Direct answers are shared within tiles this fraction of the radius wide
+    private static final double DIRECT_TILE_FRACTION = 1.0 / 20;
+    private static final long IN_FLIGHT_WAIT_SECONDS = 10;
+
+    // Keywords for better search results in Turkey
+    private static final Map<String, String> SEARCH_STRATEGY = Map.of(
+        "mechanics", "keyword=oto+tamir",
+        "markets", "keyword=market",
+        "fuel", "type=gas_station"
+    );
+
+    @Value("${google.places.api.key}")
+    private String googlePlacesApiKey;
+
+    @Value("${google.places.base-url:https://maps.googleapis.com/maps/api/place}")
+    private String baseUrl;
+
+    @Value("${places.cache.ttl-minutes:10}")
+    private long cacheTtlMinutes;
+
+    @Value("${places.cache.max-entries:5000}")
+    private int cacheMaxEntries;
+
+    private final RestTemplate restTemplate = new RestTemplate();
+
+    // Upstream calls in progress per cache key; later callers wait for the first one's answer
+    private final Map<String, CompletableFuture<CachedTile>> inFlight = new ConcurrentHashMap<>();
+
+    // Tiles in access order; the least recently used one goes first when full
+    private Map<String, CachedTile> tiles;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong upstreamErrors = new AtomicLong();
+    private final AtomicLong truncatedTiles = new AtomicLong();
+    private final AtomicLong directFetches = new AtomicLong();
+    private final AtomicLong directHits = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    private record Place(Object id, Object name, double lat, double lng, String image, String status,
+                         Object rating, Object address) {
+    }
+
+    // places is null for a dense tile, whose callers are served from finer tiles
+    private record CachedTile(List<Place> places, long expiresAtMillis) {
+    }
+
+    private record FetchResult(List<Place> places, boolean truncated) {
+    }
+
+    @PostConstruct
+    void init() {
+        tiles = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedTile> eldest) {
+                if (size() > cacheMaxEntries) {
+                    evicted.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static boolean isSupportedCategory(String category) {
+        return SEARCH_STRATEGY.containsKey(category);
+    }
+
+    /**
+     * Up to MAX_RESULTS places of the category within radiusMeters, nearest first.
+     */
+    public List<Map<String, Object>> findNearby(String category, double lat, double lng, int radiusMeters) {
+        int radius = Math.max(1, Math.min(radiusMeters, MAX_RADIUS_METERS));
+        double radiusKm = radius / 1000.0;
+        int precision = GeoHash.precisionFor(radiusKm / 2);
+        GeoHash.Tile tile = GeoHash.tile(lat, lng, precision);
+        String key = category + ":" + radius + ":" + tile.hash();
+        double halfDiagonalMeters = GeoHash.maxTileSideKm(precision) * Math.sqrt(2) / 2 * 1000;
+        int fetchRadius = (int) Math.ceil(radius + halfDiagonalMeters);
+
+        List<Place> places;
+        if (fetchRadius > MAX_RADIUS_METERS) {
+            // No tile-wide answer can cover this caller
+            places = findDirect(category, lat, lng, radius);
+        } else {
+            CachedTile entry = cached(key);
+            if (entry != null) {
+                hits.incrementAndGet();
+            } else {
+                misses.incrementAndGet();
+                entry = load(key, () -> fetchTile(key, category, tile, fetchRadius));
+                if (entry == null) return Collections.emptyList();
+            }
+            places = entry.places() != null ? entry.places() : findDirect(category, lat, lng, radius);
+        }
+        if (places == null) return Collections.emptyList();
+
+        List<Map<String, Object>> nearby = new ArrayList<>();
+        for (Place place : places) {
+            double distance = GeoUtils.haversineKm(lat, lng, place.lat(), place.lng());
+            if (distance > radiusKm) continue;
+
+            Map<String, Object> placeData = new HashMap<>();
+            placeData.put("id", place.id());
+            placeData.put("name", place.name());
+            placeData.put("type", category);
+            placeData.put("distance", Math.round(distance * 10.0) / 10.0); // Round to 1 decimal
+            placeData.put("coordinate", Map.of("latitude", place.lat(), "longitude", place.lng()));
+            placeData.put("image", place.image());
+            placeData.put("status", place.status());
+            placeData.put("rating", place.rating());
+            placeData.put("address", place.address());
+            nearby.add(placeData);
+        }
+        nearby.sort(Comparator.comparingDouble(p -> (Double) p.get("distance")));
+        return nearby.size() > MAX_RESULTS ? new ArrayList<>(nearby.subList(0, MAX_RESULTS)) : nearby;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hitCount = hits.get();
+        long lookups = hitCount + misses.get();
+        synchronized (tiles) {
+            stats.put("cachedTiles", tiles.size());
+        }
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.get());
+        stats.put("hitRate", lookups > 0 ? (double) hitCount / lookups : 0.0);
+        stats.put("expired", expired.get());
+        stats.put("evicted", evicted.get());
+        stats.put("upstreamErrors", upstreamErrors.get());
+        stats.put("truncatedTiles", truncatedTiles.get());
+        stats.put("directFetches", directFetches.get());
+        stats.put("directHits", directHits.get());
+        stats.put("coalesced", coalesced.get());
+        return stats;
+    }
+
+    private CachedTile cached(String key) {
+        synchronized (tiles) {
+            CachedTile entry = tiles.get(key);
+            if (entry == null) return null;
+            if (entry.expiresAtMillis() > System.currentTimeMillis()) {
+                return entry;
+            }
+            tiles.remove(key);
+            expired.incrementAndGet();
+            return null;
+        }
+    }
+
+    private CachedTile cache(String key, List<Place> places) {
+        CachedTile entry = new CachedTile(places, System.currentTimeMillis() + cacheTtlMinutes * 60_000);
+        synchronized (tiles) {
+            tiles.put(key, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Runs loader for key unless a call for the same key is already in progress,
+     * in which case that call's answer is returned. Null when the upstream failed.
+     */
+    private CachedTile load(String key, Supplier<CachedTile> loader) {
+        CompletableFuture<CachedTile> mine = new CompletableFuture<>();
+        CompletableFuture<CachedTile> shared = inFlight.putIfAbsent(key, mine);
+        if (shared != null) {
+            coalesced.incrementAndGet();
+            try {
+                return shared.get(IN_FLIGHT_WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        try {
+            // The previous call for this key may have finished just before ours registered
+            CachedTile loaded = cached(key);
+            if (loaded == null) loaded = loader.get();
+            mine.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            mine.complete(null);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private CachedTile fetchTile(String key, String category, GeoHash.Tile tile, int fetchRadius) {
+        FetchResult result = fetch(category, tile.centerLat(), tile.centerLng(), fetchRadius);
+        if (result == null) return null;
+        if (result.truncated()) {
+            truncatedTiles.incrementAndGet();
+            return cache(key, null);
+        }
+        return cache(key, result.places());
+    }
+
+    // The API's own cap and ranking apply to these, as before caching, but over a block rather than a tile
+    private List<Place> findDirect(String category, double lat, double lng, int radius) {
+        int precision = GeoHash.precisionFor(radius / 1000.0 * DIRECT_TILE_FRACTION);
+        GeoHash.Tile tile = GeoHash.tile(lat, lng, precision);
+        String key = category + ":" + radius + ":direct:" + tile.hash();
+        CachedTile entry = cached(key);
+        if (entry != null) {
+            directHits.incrementAndGet();
+            return entry.places();
+        }
+        double halfDiagonalMeters = GeoHash.maxTileSideKm(precision) * Math.sqrt(2) / 2 * 1000;
+        int fetchRadius = Math.min((int) Math.ceil(radius + halfDiagonalMeters), MAX_RADIUS_METERS);
+        entry = load(key, () -> {
+            directFetches.incrementAndGet();
+            FetchResult result = fetch(category, tile.centerLat(), tile.centerLng(), fetchRadius);
+            return result != null ? cache(key, result.places()) : null;
+        });
+        return entry != null ? entry.places() : null;
+    }
+
+    // Places around a point, or null when the API failed (failures are not cached)
+    private FetchResult fetch(String category, double lat, double lng, int radius) {
+        String searchParam = SEARCH_STRATEGY.get(category);
+        String url = String.format(
+            Locale.US,
+            "%s/nearbysearch/json?location=%f,%f&radius=%d&%s&key=%s",
+            baseUrl, lat, lng, radius, searchParam, googlePlacesApiKey
+        );
+
+        Map<String, Object> response;
+        try {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> body = restTemplate.getForObject(url, Map.class);
+            response = body;
+        } catch (Exception e) {
+            upstreamErrors.incrementAndGet();
+            log.error("Error fetching places: {}", e.getMessage());
+            return null;
+        }
+        if (response == null) {
+            upstreamErrors.incrementAndGet();
+            return null;
+        }
+
+        String status = (String) response.get("status");
+        if (!"OK".equals(status) && !"ZERO_RESULTS".equals(status)) {
+            upstreamErrors.incrementAndGet();
+            log.error("Places API Error: {} - {}", status, response.get("error_message"));
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> results = (List<Map<String, Object>>) response.getOrDefault("results", Collections.emptyList());
+
+        List<Place> places = new ArrayList<>(results.size());
+        for (Map<String, Object> place : results) {
+            // Only keep places that have a name
+            if (place.get("name") == null) continue;
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> geometry = (Map<String, Object>) place.get("geometry");
+            @SuppressWarnings("unchecked")
+            Map<String, Object> location = geometry != null ? (Map<String, Object>) geometry.get("location") : null;
+            if (location == null) continue;
+
+            // Get photo reference if available
+            String imageUrl = getDefaultImage(category);
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> photos = (List<Map<String, Object>>) place.get("photos");
+            if (photos != null && !photos.isEmpty()) {
+                String photoRef = (String) photos.get(0).get("photo_reference");
+                imageUrl = String.format(
+                    "%s/photo?maxwidth=200&photoreference=%s&key=%s",
+                    baseUrl, photoRef, googlePlacesApiKey
+                );
+            }
+
+            // Get opening hours
+            @SuppressWarnings("unchecked")
+            Map<String, Object> openingHours = (Map<String, Object>) place.get("opening_hours");
+            String openStatus = "Unknown";
+            if (openingHours != null) {
+                Boolean openNow = (Boolean) openingHours.get("open_now");
+                openStatus = Boolean.TRUE.equals(openNow) ? "Open" : "Closed";
+            }
+
+            places.add(new Place(
+                    place.get("place_id"),
+                    place.get("name"),
+                    ((Number) location.get("lat")).doubleValue(),
+                    ((Number) location.get("lng")).doubleValue(),
+                    imageUrl,
+                    openStatus,
+                    place.getOrDefault("rating", 0),
+                    place.getOrDefault("vicinity", "")));
+        }
+        log.info("Fetched {} {} places around {},{}", places.size(), category, lat, lng);
+        return new FetchResult(places, results.size() >= API_PAGE_SIZE || response.get("next_page_token") != null);
+    }
+
+    private String getDefaultImage(String category) {
+        return switch (category) {
+            case "mechanics" -> "https://images.unsplash.com/photo-1487754180477-db33d3d63b0a?w=200&q=80";
+            case "markets" -> "https://images.unsplash.com/photo-1542838132-92c53300491e?w=200&q=80";
+            case "fuel" -> "https://images.unsplash.com/photo-1545459720-aac3e5c2fa0c?w=200&q=80";
+            default -> "https://via.placeholder.com/200";
+        };
+    }
+}
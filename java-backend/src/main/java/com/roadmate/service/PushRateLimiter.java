@@ -0,0 +1,88 @@
+package com.roadmate.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket per recipient for outbound pushes from the notification outbox.
+ *
+ * A recipient can receive {@code notifications.push.burst} pushes at once and then
+ * {@code notifications.push.per-minute} a minute; further notifications are still
+ * stored in-app but not pushed. SOS alerts are sent by SosFanoutService and never
+ * pass through here.
+ */
+@Service
+public class PushRateLimiter {
+
+    private final double capacity;
+    private final double tokensPerMs;
+    private final Map<Long, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private final AtomicLong allowed = new AtomicLong();
+    private final AtomicLong limited = new AtomicLong();
+
+    private static final class Bucket {
+        private double tokens;
+        private long updatedAt;
+
+        Bucket(double tokens, long updatedAt) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+        }
+    }
+
+    public PushRateLimiter(@Value("${notifications.push.burst:5}") int burst,
+                           @Value("${notifications.push.per-minute:6}") double perMinute) {
+        this.capacity = burst;
+        this.tokensPerMs = perMinute / 60_000.0;
+    }
+
+    /**
+     * Take one push from the recipient's bucket; false if they are over the limit.
+     */
+    public boolean tryAcquire(long userId) {
+        long now = System.currentTimeMillis();
+        Bucket bucket = buckets.computeIfAbsent(userId, id -> new Bucket(capacity, now));
+        synchronized (bucket) {
+            refill(bucket, now);
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                allowed.incrementAndGet();
+                return true;
+            }
+        }
+        limited.incrementAndGet();
+        return false;
+    }
+
+    // A bucket that has refilled completely behaves like a new one, so it can be dropped
+    @Scheduled(fixedRate = 600000)
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        buckets.values().removeIf(bucket -> {
+            synchronized (bucket) {
+                refill(bucket, now);
+                return bucket.tokens >= capacity;
+            }
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedRecipients", buckets.size());
+        stats.put("allowed", allowed.get());
+        stats.put("limited", limited.get());
+        return stats;
+    }
+
+    private void refill(Bucket bucket, long now) {
+        bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.updatedAt) * tokensPerMs);
+        bucket.updatedAt = now;
+    }
+}
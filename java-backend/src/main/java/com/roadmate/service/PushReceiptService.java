@@ -0,0 +1,143 @@
+package com.roadmate.service;
+
+import com.roadmate.model.PushTicket;
+import com.roadmate.repository.PushTicketRepository;
+import com.roadmate.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads Expo delivery receipts for stored push tickets.
+ *
+ * Expo publishes a receipt some minutes after accepting a message and keeps it for
+ * a day, so tickets are polled once they are old enough, up to 1000 ids per request.
+ * Tokens whose receipt says DeviceNotRegistered are cleared from users in one
+ * update per batch, which keeps them out of later SOS and route fan-outs.
+ *
+ * Pending tickets are counted once, on the first poll; after that the figure is
+ * kept from tickets stored by {@link ExpoPushService} minus tickets deleted here.
+ */
+@Slf4j
+@Service
+public class PushReceiptService {
+
+    private static final int RECEIPT_BATCH_SIZE = 1000;
+    private static final long RECEIPT_RETENTION_HOURS = 24;
+
+    @Value("${expo.receipts.delay-minutes:15}")
+    private long receiptDelayMinutes;
+
+    @Autowired
+    private PushTicketRepository pushTicketRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExpoPushService expoPushService;
+
+    private final AtomicLong receiptsOk = new AtomicLong();
+    private final AtomicLong receiptsError = new AtomicLong();
+    private final AtomicLong ticketsExpired = new AtomicLong();
+    private final AtomicLong tokensPruned = new AtomicLong();
+    private final AtomicLong ticketsDeleted = new AtomicLong();
+    // pending = base + stored - deleted; null until the first poll has counted the table
+    private volatile Long pendingBase;
+    private final Map<String, AtomicLong> errorsByCode = new ConcurrentHashMap<>();
+
+    @Scheduled(fixedDelayString = "${expo.receipts.poll-interval-ms:300000}", initialDelay = 60000)
+    public void pollReceipts() {
+        if (pendingBase == null) {
+            pendingBase = pushTicketRepository.count() - expoPushService.ticketsStored() + ticketsDeleted.get();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int expired = pushTicketRepository.deleteCreatedBefore(now.minusHours(RECEIPT_RETENTION_HOURS));
+        ticketsExpired.addAndGet(expired);
+        ticketsDeleted.addAndGet(expired);
+
+        LocalDateTime readyBefore = now.minusMinutes(receiptDelayMinutes);
+        long afterId = 0;
+        while (true) {
+            List<PushTicket> tickets = pushTicketRepository.findReadyAfter(
+                    afterId, readyBefore, PageRequest.of(0, RECEIPT_BATCH_SIZE));
+            if (tickets.isEmpty()) return;
+            afterId = tickets.get(tickets.size() - 1).getId();
+
+            try {
+                processBatch(tickets);
+            } catch (Exception e) {
+                log.warn("Expo receipt poll failed, retrying next run: {}", e.getMessage());
+                return;
+            }
+            if (tickets.size() < RECEIPT_BATCH_SIZE) return;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long ok = receiptsOk.get();
+        long error = receiptsError.get();
+        stats.put("receiptsOk", ok);
+        stats.put("receiptsError", error);
+        stats.put("deliverySuccessRate", ok + error > 0 ? (double) ok / (ok + error) : null);
+        Map<String, Long> byCode = new TreeMap<>();
+        errorsByCode.forEach((code, count) -> byCode.put(code, count.get()));
+        stats.put("errorsByCode", byCode);
+        stats.put("tokensPruned", tokensPruned.get());
+        stats.put("ticketsExpired", ticketsExpired.get());
+        Long base = pendingBase;
+        stats.put("pendingTickets", base != null
+                ? Math.max(0, base + expoPushService.ticketsStored() - ticketsDeleted.get())
+                : null);
+        return stats;
+    }
+
+    private void processBatch(List<PushTicket> tickets) {
+        List<String> ticketIds = new ArrayList<>(tickets.size());
+        for (PushTicket ticket : tickets) {
+            ticketIds.add(ticket.getTicketId());
+        }
+        Map<String, ExpoPushService.Receipt> receipts = expoPushService.fetchReceipts(ticketIds).join();
+
+        // Tickets without a receipt yet stay queued until they expire
+        List<Long> processed = new ArrayList<>();
+        Set<String> deadTokens = new HashSet<>();
+        for (PushTicket ticket : tickets) {
+            ExpoPushService.Receipt receipt = receipts.get(ticket.getTicketId());
+            if (receipt == null) continue;
+            processed.add(ticket.getId());
+            if (receipt.isOk()) {
+                receiptsOk.incrementAndGet();
+                continue;
+            }
+            receiptsError.incrementAndGet();
+            String code = receipt.error() != null ? receipt.error() : "Unknown";
+            errorsByCode.computeIfAbsent(code, k -> new AtomicLong()).incrementAndGet();
+            if (ExpoPushService.DEVICE_NOT_REGISTERED.equals(receipt.error())) {
+                deadTokens.add(ticket.getPushToken());
+            }
+        }
+
+        if (!deadTokens.isEmpty()) {
+            tokensPruned.addAndGet(userRepository.clearExpoPushTokens(deadTokens));
+        }
+        if (!processed.isEmpty()) {
+            ticketsDeleted.addAndGet(pushTicketRepository.deleteByIds(processed));
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.roadmate.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Publishes user events once the data they describe is visible: inside a
+ * transaction the event is held until after commit and dropped on rollback.
+ */
+@Service
+public class RealtimeEventPublisher {
+
+    @Autowired
+    private EventBroker eventBroker;
+
+    public void publish(long userId, String type, Object data) {
+        EventBroker.Event event = new EventBroker.Event(type, data);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eventBroker.publish(userId, event);
+                }
+            });
+        } else {
+            eventBroker.publish(userId, event);
+        }
+    }
+}
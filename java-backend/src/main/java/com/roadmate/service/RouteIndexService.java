@@ -0,0 +1,110 @@
+package com.roadmate.service;
+
+import com.roadmate.model.RouteToken;
+import com.roadmate.repository.RouteTokenRepository;
+import com.roadmate.util.RouteParser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps route_tokens in step with users.route. Routes are parsed once when
+ * they are saved; matching travellers is then an equality lookup on the
+ * token index.
+ */
+@Slf4j
+@Service
+public class RouteIndexService {
+
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+
+    private static final String INSERT_TOKEN_SQL =
+            "INSERT INTO route_tokens (user_id, token, role) VALUES (?, ?, ?) " +
+            "ON CONFLICT (user_id, token) DO NOTHING";
+
+    @Autowired
+    private RouteTokenRepository routeTokenRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Replace the user's tokens with those of the new route; a blank route just clears them.
+     */
+    @Transactional
+    public void updateRoute(Long userId, String route) {
+        routeTokenRepository.deleteByUserId(userId);
+
+        Map<String, RouteToken.Role> tokens = tokenize(route);
+        if (tokens.isEmpty()) return;
+
+        List<RouteToken> rows = new ArrayList<>(tokens.size());
+        tokens.forEach((token, role) -> rows.add(RouteToken.builder()
+                .userId(userId)
+                .token(token)
+                .role(role)
+                .build()));
+        routeTokenRepository.saveAll(rows);
+    }
+
+    /**
+     * Normalized places of a route keyed by token. A place that appears twice
+     * (round trips) keeps its last role.
+     */
+    public static Map<String, RouteToken.Role> tokenize(String route) {
+        List<String> places = RouteParser.places(route);
+        Map<String, RouteToken.Role> tokens = new LinkedHashMap<>();
+        for (int i = 0; i < places.size(); i++) {
+            String token = RouteParser.normalize(places.get(i));
+            if (token == null) continue;
+            RouteToken.Role role = i == places.size() - 1 ? RouteToken.Role.DESTINATION
+                    : i == 0 ? RouteToken.Role.ORIGIN
+                    : RouteToken.Role.STOP;
+            tokens.remove(token);
+            tokens.put(token, role);
+        }
+        return tokens;
+    }
+
+    /**
+     * Index routes saved before route_tokens existed. Only users with a route
+     * and no tokens are read, so this is a cheap no-op once caught up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            long start = System.currentTimeMillis();
+            long afterId = 0;
+            int users = 0;
+            List<RouteTokenRepository.UserRouteView> page;
+            do {
+                page = routeTokenRepository.findUnindexedRoutes(afterId, BACKFILL_BATCH_SIZE);
+                List<Object[]> rows = new ArrayList<>();
+                for (RouteTokenRepository.UserRouteView view : page) {
+                    tokenize(view.getRoute()).forEach((token, role) ->
+                            rows.add(new Object[] { view.getId(), token, role.name() }));
+                    afterId = view.getId();
+                }
+                if (!rows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_TOKEN_SQL, rows);
+                }
+                users += page.size();
+            } while (page.size() == BACKFILL_BATCH_SIZE);
+
+            if (users > 0) {
+                log.info("Indexed routes of {} users in {} ms", users, System.currentTimeMillis() - start);
+            }
+        } catch (Exception e) {
+            log.error("Route token backfill failed: {}", e.getMessage());
+        }
+    }
+}
@@ -1,9 +1,9 @@
 package com.roadmate.service;
 
 import com.roadmate.model.User;
-import com.roadmate.repository.BlockedUserRepository;
 import com.roadmate.repository.ConnectionRepository;
 import com.roadmate.repository.UserRepository;
+import com.roadmate.util.RouteParser;
 import lombok.RequiredArgsConstructor;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -18,108 +18,51 @@ public class RouteNotificationService {
     private final ConnectionRepository connectionRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
-    private final ExpoPushService expoPushService;
-    private final BlockedUserRepository blockedUserRepository;
+    private final BlockRelationCache blockRelationCache;
 
     @Async
     public void handleRouteChange(User user, String newRoute) {
         if (newRoute == null || newRoute.isBlank()) return;
 
         Set<Long> notifiedUserIds = new HashSet<>();
+        String data = "{\"senderId\": " + user.getId() + ", \"route\": \"" + newRoute.replace("\"", "\\\"") + "\"}";
 
         // 1. Notify all accepted friends
-        List<User> friends = connectionRepository.findAcceptedConnectionUsers(user.getId());
-        List<String> friendPushTokens = new ArrayList<>();
-
+        List<User> friends = blockRelationCache.filterBlocked(
+                user.getId(), connectionRepository.findAcceptedConnectionUsers(user.getId()), User::getId);
         for (User friend : friends) {
-            if (blockedUserRepository.existsBlockBetween(user.getId(), friend.getId())) continue;
-
             notifiedUserIds.add(friend.getId());
-
-            notificationService.createNotification(
-                    friend, user, "ROUTE_UPDATE",
-                    "Route Update",
-                    user.getName() + " is on the road: " + newRoute + "!",
-                    "{\"senderId\": " + user.getId() + ", \"route\": \"" + newRoute.replace("\"", "\\\"") + "\"}"
-            );
-
-            if (friend.getExpoPushToken() != null) {
-                friendPushTokens.add(friend.getExpoPushToken());
-            }
         }
 
-        if (!friendPushTokens.isEmpty()) {
-            Map<String, Object> data = new HashMap<>();
-            data.put("type", "ROUTE_UPDATE");
-            data.put("senderId", user.getId());
-            expoPushService.sendBatchPushNotifications(
-                    friendPushTokens,
-                    "Route Update",
-                    user.getName() + " is on the road: " + newRoute + "!",
-                    data
-            );
-        }
+        notificationService.createNotifications(
+                friends, user, "ROUTE_UPDATE",
+                "Route Update",
+                user.getName() + " is on the road: " + newRoute + "!",
+                data, true
+        );
 
         // 2. Notify users with matching route (non-friends)
-        String destination = extractDestination(newRoute);
-        if (destination == null || destination.isBlank()) return;
+        String destination = RouteParser.destination(newRoute);
+        String destinationToken = RouteParser.normalize(destination);
+        if (destinationToken == null) return;
 
-        List<User> matchingUsers = userRepository.findUsersWithMatchingRoute(destination, user.getId());
-        List<String> matchPushTokens = new ArrayList<>();
+        List<User> matchingUsers = blockRelationCache.filterBlocked(
+                user.getId(), userRepository.findUsersWithMatchingRoute(destinationToken, user.getId()), User::getId);
+        List<User> matches = new ArrayList<>();
 
-        int count = 0;
         for (User matchUser : matchingUsers) {
-            if (count >= 20) break;
+            if (matches.size() >= 20) break;
             if (notifiedUserIds.contains(matchUser.getId())) continue;
-            if (blockedUserRepository.existsBlockBetween(user.getId(), matchUser.getId())) continue;
 
             notifiedUserIds.add(matchUser.getId());
-            count++;
-
-            notificationService.createNotification(
-                    matchUser, user, "ROUTE_UPDATE",
-                    "Route Match",
-                    user.getName() + " is also heading to " + destination + "!",
-                    "{\"senderId\": " + user.getId() + ", \"route\": \"" + newRoute.replace("\"", "\\\"") + "\"}"
-            );
-
-            if (matchUser.getExpoPushToken() != null) {
-                matchPushTokens.add(matchUser.getExpoPushToken());
-            }
-        }
-
-        if (!matchPushTokens.isEmpty()) {
-            Map<String, Object> data = new HashMap<>();
-            data.put("type", "ROUTE_UPDATE");
-            data.put("senderId", user.getId());
-            expoPushService.sendBatchPushNotifications(
-                    matchPushTokens,
-                    "Route Match",
-                    user.getName() + " is also heading to " + destination + "!",
-                    data
-            );
-        }
-    }
-
-    /**
-     * Extract destination from route string.
-     * Supports formats like "Istanbul → Antalya", "Istanbul - Antalya", "Istanbul > Antalya"
-     */
-    private String extractDestination(String route) {
-        if (route == null) return null;
-
-        // Try arrow separator first
-        String[] separators = {"→", "->", "➔", "»", " - ", " > "};
-        for (String sep : separators) {
-            if (route.contains(sep)) {
-                String[] parts = route.split(sep);
-                if (parts.length >= 2) {
-                    return parts[parts.length - 1].trim();
-                }
-            }
+            matches.add(matchUser);
         }
 
-        // If no separator found, use the whole route as keyword
-        return route.trim();
+        notificationService.createNotifications(
+                matches, user, "ROUTE_UPDATE",
+                "Route Match",
+                user.getName() + " is also heading to " + destination + "!",
+                data, true
+        );
     }
 }
@@ -0,0 +1,248 @@
+package com.roadmate.service;
+
+import com.roadmate.model.User;
+import com.roadmate.repository.UserRepository;
+import com.roadmate.util.GeoUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers SOS alerts to nearby users off the request thread.
+ *
+ * A fan-out loads recipients in one query, drops blocked users through the
+ * {@link BlockRelationCache}, inserts every in-app notification with a single JDBC batch, then pushes
+ * to Expo with the batches in flight concurrently. Recipients are located on
+ * the caller's thread so the activation response can report how many will be
+ * notified; the inserts and pushes run in the background. Progress is kept per
+ * job so the client can poll it.
+ */
+@Slf4j
+@Service
+public class SosFanoutService {
+
+    public static final double SOS_RADIUS_KM = 100.0;
+
+    private static final String SOS_TITLE = "\uD83D\uDEA8 SOS Alert Nearby!";
+    private static final int INSERT_BATCH_SIZE = 500;
+    private static final long JOB_RETENTION_MINUTES = 60;
+
+    private static final String INSERT_NOTIFICATION_SQL =
+            "INSERT INTO notifications (user_id, sender_id, type, title, message, is_read, created_at, data) " +
+            "VALUES (?, ?, ?, ?, ?, false, ?, ?)";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BlockRelationCache blockRelationCache;
+
+    @Autowired
+    private ExpoPushService expoPushService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RealtimeEventPublisher realtimeEventPublisher;
+
+    @Autowired
+    private UnreadCounterStore unreadCounterStore;
+
+    private final ExecutorService fanoutExecutor = Executors.newFixedThreadPool(2);
+    private final Map<String, FanoutJob> jobs = new ConcurrentHashMap<>();
+
+    public enum Stage { QUEUED, LOCATING, NOTIFYING, PUSHING, COMPLETED, FAILED }
+
+    /**
+     * Progress of one SOS fan-out. Fields are written by the worker and read by status polls.
+     */
+    public static class FanoutJob {
+        private final String id;
+        private final long senderId;
+        private final String senderName;
+        private final double latitude;
+        private final double longitude;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile Stage stage = Stage.QUEUED;
+        private volatile int recipientCount;
+        private final AtomicInteger notifiedCount = new AtomicInteger();
+        private final AtomicInteger pushedCount = new AtomicInteger();
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        FanoutJob(String id, long senderId, String senderName, double latitude, double longitude) {
+            this.id = id;
+            this.senderId = senderId;
+            this.senderName = senderName;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public long getSenderId() {
+            return senderId;
+        }
+
+        public int getRecipientCount() {
+            return recipientCount;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("fanoutId", id);
+            map.put("stage", stage.name());
+            map.put("recipientCount", recipientCount);
+            map.put("notifiedCount", notifiedCount.get());
+            map.put("pushedCount", pushedCount.get());
+            map.put("startedAt", startedAt.toString());
+            map.put("finishedAt", finishedAt != null ? finishedAt.toString() : null);
+            if (error != null) {
+                map.put("error", error);
+            }
+            return map;
+        }
+    }
+
+    /**
+     * Locate recipients and queue delivery for a user whose SOS state has already
+     * been persisted. The returned job already carries the recipient count.
+     */
+    public FanoutJob start(User sender) {
+        purgeFinishedJobs();
+        FanoutJob job = new FanoutJob(
+                UUID.randomUUID().toString(),
+                sender.getId(),
+                sender.getName() != null ? sender.getName() : "A nomad",
+                sender.getLatitude(),
+                sender.getLongitude());
+        job.stage = Stage.LOCATING;
+        List<User> recipients = findRecipients(job);
+        job.recipientCount = recipients.size();
+        job.stage = Stage.QUEUED;
+
+        jobs.put(job.id, job);
+        fanoutExecutor.execute(() -> run(job, recipients));
+        return job;
+    }
+
+    public FanoutJob getJob(String fanoutId) {
+        return jobs.get(fanoutId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanoutExecutor.shutdown();
+    }
+
+    private void run(FanoutJob job, List<User> recipients) {
+        try {
+            job.stage = Stage.NOTIFYING;
+            insertNotifications(job, recipients);
+
+            job.stage = Stage.PUSHING;
+            push(job, recipients);
+
+            job.stage = Stage.COMPLETED;
+        } catch (Exception e) {
+            log.error("SOS fan-out {} failed: {}", job.id, e.getMessage(), e);
+            job.error = e.getMessage();
+            job.stage = Stage.FAILED;
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    private List<User> findRecipients(FanoutJob job) {
+        List<User> nearby = userRepository.findUsersWithPushTokenWithinRadius(
+                job.latitude, job.longitude, SOS_RADIUS_KM, job.senderId);
+        return blockRelationCache.filterBlocked(job.senderId, nearby, User::getId);
+    }
+
+    private void insertNotifications(FanoutJob job, List<User> recipients) {
+        String data = String.format(java.util.Locale.US,
+                "{\"type\": \"SOS\", \"sosUserId\": %d, \"lat\": %f, \"lng\": %f}",
+                job.senderId, job.latitude, job.longitude);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        for (int i = 0; i < recipients.size(); i += INSERT_BATCH_SIZE) {
+            List<User> chunk = recipients.subList(i, Math.min(i + INSERT_BATCH_SIZE, recipients.size()));
+            List<Object[]> rows = new ArrayList<>(chunk.size());
+            for (User recipient : chunk) {
+                double distance = GeoUtils.haversineKm(job.latitude, job.longitude,
+                        recipient.getLatitude(), recipient.getLongitude());
+                rows.add(new Object[] {
+                        recipient.getId(), job.senderId, "SOS_ALERT", SOS_TITLE,
+                        job.senderName + " needs roadside help " + Math.round(distance) + "km away",
+                        now, data
+                });
+            }
+            jdbcTemplate.batchUpdate(INSERT_NOTIFICATION_SQL, rows);
+            job.notifiedCount.addAndGet(chunk.size());
+
+            // Rows are committed; connected recipients see the alert immediately
+            for (User recipient : chunk) {
+                unreadCounterStore.add(UnreadCounterStore.Kind.NOTIFICATIONS, recipient.getId(), 1);
+                Map<String, Object> alert = new LinkedHashMap<>();
+                alert.put("sosUserId", job.senderId);
+                alert.put("senderName", job.senderName);
+                alert.put("lat", job.latitude);
+                alert.put("lng", job.longitude);
+                alert.put("distanceKm", GeoUtils.haversineKm(job.latitude, job.longitude,
+                        recipient.getLatitude(), recipient.getLongitude()));
+                realtimeEventPublisher.publish(recipient.getId(), "sos", alert);
+            }
+        }
+    }
+
+    private void push(FanoutJob job, List<User> recipients) {
+        List<String> tokens = new ArrayList<>();
+        for (User recipient : recipients) {
+            if (recipient.getExpoPushToken() != null) {
+                tokens.add(recipient.getExpoPushToken());
+            }
+        }
+        if (tokens.isEmpty()) return;
+
+        Map<String, Object> pushData = new HashMap<>();
+        pushData.put("type", "SOS");
+        pushData.put("sosUserId", job.senderId);
+        pushData.put("lat", job.latitude);
+        pushData.put("lng", job.longitude);
+        String body = job.senderName + " needs roadside help nearby!";
+
+        // ExpoPushService sends these concurrently; per-batch callbacks keep the job progress live
+        List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i += ExpoPushService.BATCH_SIZE) {
+            List<String> batch = tokens.subList(i, Math.min(i + ExpoPushService.BATCH_SIZE, tokens.size()));
+            inFlight.add(expoPushService.sendBatchPushNotifications(batch, SOS_TITLE, body, pushData)
+                    .thenAccept(tickets -> job.pushedCount.addAndGet(
+                            (int) tickets.stream().filter(ExpoPushService.Ticket::isOk).count())));
+        }
+        CompletableFuture.allOf(inFlight.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    private void purgeFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(JOB_RETENTION_MINUTES);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+}
@@ -0,0 +1,190 @@
+package com.roadmate.service;
+
+import com.roadmate.repository.MessageRepository;
+import com.roadmate.repository.NotificationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user unread message and notification counts served from memory, so the
+ * polled unread-count endpoints do not query the database.
+ *
+ * A user's count is read from the database the first time it is asked for
+ * and then moved by the write paths. Changes made inside a transaction are
+ * applied after commit and dropped on rollback; changes for users not in the
+ * store are ignored because the next seed reads them anyway. A scheduled pass
+ * evicts users who stopped polling and recounts the rest, which bounds any
+ * drift from races between a seed and a concurrent write.
+ */
+@Slf4j
+@Service
+public class UnreadCounterStore {
+
+    public enum Kind { MESSAGES, NOTIFICATIONS }
+
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
+    private static final class Entry {
+        final AtomicLong count;
+        volatile long lastReadAt;
+
+        Entry(long count) {
+            this.count = new AtomicLong(count);
+            this.lastReadAt = System.currentTimeMillis();
+        }
+    }
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Value("${unread.idle-eviction-minutes:30}")
+    private long idleEvictionMinutes;
+
+    private final Map<Kind, ConcurrentHashMap<Long, Entry>> counters = new EnumMap<>(Kind.class);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong seeds = new AtomicLong();
+    private final AtomicLong corrections = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public UnreadCounterStore() {
+        for (Kind kind : Kind.values()) {
+            counters.put(kind, new ConcurrentHashMap<>());
+        }
+    }
+
+    public long get(Kind kind, long userId) {
+        ConcurrentHashMap<Long, Entry> map = counters.get(kind);
+        Entry entry = map.get(userId);
+        if (entry != null) {
+            hits.incrementAndGet();
+            entry.lastReadAt = System.currentTimeMillis();
+            return entry.count.get();
+        }
+        // Seeded outside computeIfAbsent so the query never runs under a map bin lock
+        long count = countFromDatabase(kind, userId);
+        seeds.incrementAndGet();
+        Entry existing = map.putIfAbsent(userId, new Entry(count));
+        return existing != null ? existing.count.get() : count;
+    }
+
+    /**
+     * Move a user's count by delta once the current transaction (if any) commits.
+     */
+    public void add(Kind kind, long userId, long delta) {
+        if (delta == 0) return;
+        afterCommit(() -> {
+            Entry entry = counters.get(kind).get(userId);
+            if (entry != null) {
+                entry.count.updateAndGet(v -> Math.max(0, v + delta));
+            }
+        });
+    }
+
+    /**
+     * Set a user's count to zero once the current transaction (if any) commits.
+     */
+    public void reset(Kind kind, long userId) {
+        afterCommit(() -> {
+            Entry entry = counters.get(kind).get(userId);
+            if (entry != null) {
+                entry.count.set(0);
+            }
+        });
+    }
+
+    /**
+     * Forget every count of a kind, e.g. after a bulk delete; users are reseeded on their next read.
+     */
+    public void invalidate(Kind kind) {
+        counters.get(kind).clear();
+    }
+
+    @Scheduled(initialDelay = 300000, fixedDelayString = "${unread.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        long idleBefore = System.currentTimeMillis() - idleEvictionMinutes * 60_000;
+        for (Kind kind : Kind.values()) {
+            try {
+                ConcurrentHashMap<Long, Entry> map = counters.get(kind);
+                int before = map.size();
+                map.values().removeIf(entry -> entry.lastReadAt < idleBefore);
+                evictions.addAndGet(before - map.size());
+
+                List<Long> userIds = new ArrayList<>(map.keySet());
+                for (int i = 0; i < userIds.size(); i += RECONCILE_BATCH_SIZE) {
+                    List<Long> chunk = userIds.subList(i, Math.min(i + RECONCILE_BATCH_SIZE, userIds.size()));
+                    Map<Long, Long> actual = countFromDatabase(kind, chunk);
+                    for (Long userId : chunk) {
+                        Entry entry = map.get(userId);
+                        if (entry == null) continue;
+                        long expected = actual.getOrDefault(userId, 0L);
+                        if (entry.count.getAndSet(expected) != expected) {
+                            corrections.incrementAndGet();
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Unread counter reconciliation failed for {}: {}", kind, e.getMessage());
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("messageUsers", counters.get(Kind.MESSAGES).size());
+        stats.put("notificationUsers", counters.get(Kind.NOTIFICATIONS).size());
+        stats.put("hits", hits.get());
+        stats.put("seeds", seeds.get());
+        stats.put("corrections", corrections.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private long countFromDatabase(Kind kind, long userId) {
+        Long count = kind == Kind.MESSAGES
+                ? messageRepository.countUnreadMessages(userId)
+                : notificationRepository.countUnread(userId);
+        return count != null ? count : 0;
+    }
+
+    private Map<Long, Long> countFromDatabase(Kind kind, List<Long> userIds) {
+        List<Object[]> rows = kind == Kind.MESSAGES
+                ? messageRepository.countUnreadByReceivers(userIds)
+                : notificationRepository.countUnreadByUsers(userIds);
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.roadmate.util;
+
+/**
+ * Geohash encoding (base32, interleaved lng/lat bits) used to bucket
+ * coordinates into fixed tiles for caching.
+ */
+public final class GeoHash {
+
+    public static final int MAX_PRECISION = 9;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    private static final double KM_PER_DEG = Math.toRadians(1) * GeoUtils.EARTH_RADIUS_KM;
+
+    private GeoHash() {
+    }
+
+    /**
+     * Lat/lng bounds of a tile; center() is where a tile-wide lookup is anchored.
+     */
+    public record Tile(String hash, double minLat, double maxLat, double minLng, double maxLng) {
+        public double centerLat() {
+            return (minLat + maxLat) / 2;
+        }
+
+        public double centerLng() {
+            return (minLng + maxLng) / 2;
+        }
+    }
+
+    public static Tile tile(double lat, double lng, int precision) {
+        double minLat = -90, maxLat = 90, minLng = -180, maxLng = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLng + maxLng) / 2;
+                if (lng >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLng = mid;
+                } else {
+                    ch <<= 1;
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch <<= 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                hash.append(BASE32[ch]);
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return new Tile(hash.toString(), minLat, maxLat, minLng, maxLng);
+    }
+
+    /**
+     * Longest side in km of a tile at the given precision, measured at the
+     * equator where tiles are widest.
+     */
+    public static double maxTileSideKm(int precision) {
+        int bits = precision * 5;
+        int lngBits = (bits + 1) / 2;
+        int latBits = bits / 2;
+        double lngDeg = 360.0 / (1L << lngBits);
+        double latDeg = 180.0 / (1L << latBits);
+        return Math.max(lngDeg, latDeg) * KM_PER_DEG;
+    }
+
+    /**
+     * The coarsest precision whose tiles are no wider than maxSideKm.
+     */
+    public static int precisionFor(double maxSideKm) {
+        for (int precision = 1; precision < MAX_PRECISION; precision++) {
+            if (maxTileSideKm(precision) <= maxSideKm) return precision;
+        }
+        return MAX_PRECISION;
+    }
+}
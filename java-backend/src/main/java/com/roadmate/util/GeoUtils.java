@@ -0,0 +1,53 @@
+package com.roadmate.util;
+
+/**
+ * Shared geo helpers for distance calculations on user/place coordinates.
+ */
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_KM = 6371;
+
+    private static final double KM_PER_DEG = Math.toRadians(1) * EARTH_RADIUS_KM;
+
+    private GeoUtils() {
+    }
+
+    /**
+     * Lat/lng rectangle that fully contains the circle of radiusKm around a point.
+     * Used as an index-friendly prefilter before the exact Haversine check.
+     */
+    public record BoundingBox(double minLat, double maxLat, double minLng, double maxLng) {
+    }
+
+    public static BoundingBox boundingBox(double lat, double lng, double radiusKm) {
+        double latDelta = radiusKm / KM_PER_DEG;
+        double minLat = lat - latDelta;
+        double maxLat = lat + latDelta;
+        if (minLat <= -90 || maxLat >= 90) {
+            // Circle touches a pole: every longitude is in range
+            return new BoundingBox(Math.max(minLat, -90), Math.min(maxLat, 90), -180, 180);
+        }
+        double lngDelta = Math.toDegrees(Math.asin(Math.min(1, Math.sin(radiusKm / EARTH_RADIUS_KM)
+                / Math.cos(Math.toRadians(lat)))));
+        double minLng = lng - lngDelta;
+        double maxLng = lng + lngDelta;
+        if (minLng < -180 || maxLng > 180) {
+            // Crossing the antimeridian; keep the predicate a single range
+            return new BoundingBox(minLat, maxLat, -180, 180);
+        }
+        return new BoundingBox(minLat, maxLat, minLng, maxLng);
+    }
+
+    /**
+     * Great-circle distance between two points in kilometres (Haversine formula).
+     */
+    public static double haversineKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                   Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                   Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return EARTH_RADIUS_KM * c;
+    }
+}
@@ -0,0 +1,39 @@
+package com.roadmate.util;
+
+import com.roadmate.exception.BadRequestException;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Keyset position in the notification inbox: pages continue after (createdAt, id)
+ * in "created_at DESC, id DESC" order. Encoded for clients as "micros:id", with
+ * createdAt as microseconds since the epoch so it round-trips at Postgres
+ * timestamp precision.
+ *
+ * The cursor carries the position itself rather than a notification id to look
+ * up, so paging still works when that notification has been deleted or had its
+ * created_at moved by a merge in the meantime.
+ */
+public record InboxCursor(LocalDateTime createdAt, long id) {
+
+    public static InboxCursor parse(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        int separator = cursor.indexOf(':');
+        try {
+            long micros = Long.parseLong(cursor.substring(0, separator));
+            return new InboxCursor(
+                    LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                            (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC),
+                    Long.parseLong(cursor.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid inbox cursor");
+        }
+    }
+
+    public String encode() {
+        long micros = ChronoUnit.MICROS.between(LocalDateTime.of(1970, 1, 1, 0, 0), createdAt);
+        return micros + ":" + id;
+    }
+}
@@ -0,0 +1,107 @@
+package com.roadmate.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of primitive longs (linear probing, no boxing).
+ *
+ * Not thread-safe; callers either confine an instance to one thread or stop
+ * mutating it before publishing it.
+ */
+public final class LongHashSet {
+
+    private static final long EMPTY = 0L;
+
+    // 0 marks a free slot, so a stored zero is tracked separately
+    private long[] keys;
+    private boolean containsZero;
+    private int size;
+
+    public LongHashSet(int expectedSize) {
+        keys = new long[tableSizeFor(expectedSize)];
+    }
+
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsZero) return false;
+            containsZero = true;
+            size++;
+            return true;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int i = mix(value) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == value) return false;
+            i = (i + 1) & mask;
+        }
+        keys[i] = value;
+        size++;
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) return containsZero;
+        if (size == 0) return false;
+        int mask = keys.length - 1;
+        int i = mix(value) & mask;
+        long key;
+        while ((key = keys[i]) != EMPTY) {
+            if (key == value) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long[] toArray() {
+        long[] out = new long[size];
+        int n = 0;
+        if (containsZero) out[n++] = 0L;
+        for (long key : keys) {
+            if (key != EMPTY) out[n++] = key;
+        }
+        return out;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        keys = new long[capacity];
+        int mask = capacity - 1;
+        for (long key : old) {
+            if (key == EMPTY) continue;
+            int i = mix(key) & mask;
+            while (keys[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+        }
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = 4;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,67 @@
+package com.roadmate.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Splits free-text routes ("Istanbul → Antalya", "Izmir - Kaş") into places
+ * and folds each place into a match key, so "İstanbul", "ISTANBUL" and
+ * "istanbul" all index and look up as the same token.
+ */
+public final class RouteParser {
+
+    public static final int MAX_TOKEN_LENGTH = 100;
+
+    private static final String[] SEPARATORS = {"→", "->", "➔", "»", " - ", " > "};
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALNUM = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private RouteParser() {
+    }
+
+    /**
+     * The places of a route in travel order, as typed. A route without a
+     * separator is a single place.
+     */
+    public static List<String> places(String route) {
+        if (route == null || route.isBlank()) return Collections.emptyList();
+
+        for (String sep : SEPARATORS) {
+            if (route.contains(sep)) {
+                List<String> places = new ArrayList<>();
+                for (String part : route.split(Pattern.quote(sep))) {
+                    if (!part.isBlank()) places.add(part.trim());
+                }
+                if (places.size() >= 2) return places;
+            }
+        }
+        return List.of(route.trim());
+    }
+
+    /**
+     * The last place of the route as typed, or null for an empty route.
+     */
+    public static String destination(String route) {
+        List<String> places = places(route);
+        return places.isEmpty() ? null : places.get(places.size() - 1);
+    }
+
+    /**
+     * Lowercased, accent-folded key of a place with punctuation collapsed to
+     * single spaces; null when nothing indexable remains.
+     */
+    public static String normalize(String place) {
+        if (place == null) return null;
+        // Dotless ı has no decomposition, fold it by hand before stripping marks
+        String folded = Normalizer.normalize(place, Normalizer.Form.NFD)
+                .replace('ı', 'i');
+        folded = COMBINING_MARKS.matcher(folded).replaceAll("");
+        folded = NON_ALNUM.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+        if (folded.isEmpty()) return null;
+        return folded.length() > MAX_TOKEN_LENGTH ? folded.substring(0, MAX_TOKEN_LENGTH) : folded;
+    }
+}
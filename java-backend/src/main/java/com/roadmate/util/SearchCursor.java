@@ -0,0 +1,29 @@
+package com.roadmate.util;
+
+import com.roadmate.exception.BadRequestException;
+
+/**
+ * Keyset position in a ranked search: results continue after (rank, id) in
+ * "rank DESC, id DESC" order. Encoded for clients as "rank:id".
+ */
+public record SearchCursor(float rank, long id) {
+
+    // Sorts before every real match; ts_rank never reaches it
+    public static final SearchCursor FIRST = new SearchCursor(Float.MAX_VALUE, Long.MAX_VALUE);
+
+    public static SearchCursor parse(String cursor) {
+        if (cursor == null || cursor.isBlank()) return FIRST;
+        int separator = cursor.indexOf(':');
+        try {
+            return new SearchCursor(
+                    Float.parseFloat(cursor.substring(0, separator)),
+                    Long.parseLong(cursor.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid search cursor");
+        }
+    }
+
+    public String encode() {
+        return rank + ":" + id;
+    }
+}
@@ -0,0 +1,119 @@
+package com.roadmate.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ActivitySchemaMigrationTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private final List<String[]> legacyRows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class))).thenReturn(2);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class))).thenAnswer(invocation -> {
+            RowMapper<?> mapper = invocation.getArgument(1);
+            List<Object> rows = new ArrayList<>();
+            for (int i = 0; i < legacyRows.size(); i++) {
+                rows.add(mapper.mapRow(resultSet(i + 1, legacyRows.get(i)), i));
+            }
+            return rows;
+        });
+    }
+
+    @Test
+    void convertsTheFormatsTheAppWroteAndDropsLegacyColumns() throws Exception {
+        legacyRows.add(new String[] { "2024-02-29", "9:05" });
+        legacyRows.add(new String[] { " 2023-12-31 ", "18:30:15" });
+        legacyRows.add(new String[] { "2024-06-01", null });
+
+        run();
+
+        List<Object[]> updates = capturedUpdates();
+        assertThat(updates).hasSize(3);
+        assertThat(updates.get(0)).containsExactly(Date.valueOf(LocalDate.of(2024, 2, 29)), Time.valueOf(LocalTime.of(9, 5)), 1L);
+        assertThat(updates.get(1)).containsExactly(Date.valueOf(LocalDate.of(2023, 12, 31)), Time.valueOf(LocalTime.of(18, 30, 15)), 2L);
+        assertThat(updates.get(2)).containsExactly(Date.valueOf(LocalDate.of(2024, 6, 1)), null, 3L);
+        verify(jdbcTemplate).execute("ALTER TABLE activities DROP COLUMN date");
+        verify(jdbcTemplate).execute("ALTER TABLE activities DROP COLUMN time");
+    }
+
+    @Test
+    void impossibleValuesAreNotRolledOverAndKeepLegacyColumns() throws Exception {
+        legacyRows.add(new String[] { "2024-02-30", "25:00" });
+        legacyRows.add(new String[] { "2023-02-29", "12:00" });
+        legacyRows.add(new String[] { "2024-04-31", "7:61" });
+
+        run();
+
+        // Only the time of row 2 is valid; lenient parsing would have turned the dates into March 1st and May 1st
+        List<Object[]> updates = capturedUpdates();
+        assertThat(updates).hasSize(1);
+        assertThat(updates.get(0)).containsExactly(null, Time.valueOf(LocalTime.of(12, 0)), 2L);
+        verify(jdbcTemplate, never()).execute(startsWith("ALTER TABLE"));
+    }
+
+    @Test
+    void otherFormatsAreLeftForManualFixing() throws Exception {
+        legacyRows.add(new String[] { "01/06/2024", "9am" });
+        legacyRows.add(new String[] { "2024-6-1", "09:05 PM" });
+
+        run();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        verify(jdbcTemplate, never()).execute(startsWith("ALTER TABLE"));
+    }
+
+    @Test
+    void skipsEverythingOnceLegacyColumnsAreGone() throws Exception {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class))).thenReturn(0);
+
+        run();
+
+        verify(jdbcTemplate, never()).query(anyString(), any(RowMapper.class));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    private void run() throws Exception {
+        new ActivitySchemaMigration().migrateActivityDates(jdbcTemplate).run();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> capturedUpdates() {
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), captor.capture());
+        return captor.getValue();
+    }
+
+    private static ResultSet resultSet(long id, String[] values) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(id);
+        when(rs.getString("date")).thenReturn(values[0]);
+        when(rs.getString("time")).thenReturn(values[1]);
+        return rs;
+    }
+}
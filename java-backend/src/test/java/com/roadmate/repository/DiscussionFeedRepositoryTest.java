@@ -0,0 +1,148 @@
+package com.roadmate.repository;
+
+import com.roadmate.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Loads the discussion feed over 10k discussions and checks that every page, single
+ * item and saved list is one SQL statement however many creators and bookmarks it
+ * touches, printing the time per call. Needs the same scratch database as
+ * {@link DiscussionRepositoryTest}; each test rolls back.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "ROADMATE_TEST_DB_URL", matches = ".+")
+class DiscussionFeedRepositoryTest {
+
+    private static final int DISCUSSIONS = 10_000;
+    private static final int CREATORS = 200;
+    private static final int PAGE_SIZE = 20;
+    private static final int PAGES = 50;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("ROADMATE_TEST_DB_URL"));
+        registry.add("spring.datasource.username", () -> System.getenv("ROADMATE_TEST_DB_USER"));
+        registry.add("spring.datasource.password", () -> System.getenv("ROADMATE_TEST_DB_PASSWORD"));
+    }
+
+    @Autowired
+    private DiscussionRepository discussionRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User viewer;
+    private long newestId;
+
+    @BeforeEach
+    void setUp() {
+        String prefix = "rmfeed" + Long.toString(System.nanoTime(), 36);
+        viewer = entityManager.persist(User.builder()
+                .email(prefix + "@example.com")
+                .username(prefix)
+                .name("Feed Viewer")
+                .build());
+        for (int i = 0; i < CREATORS; i++) {
+            entityManager.persist(User.builder()
+                    .email(prefix + "c" + i + "@example.com")
+                    .username(prefix + "c" + i)
+                    .name("Creator " + i)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // Newest first from now, so these rows make up the first pages even in a shared database
+        jdbcTemplate.update(
+                "INSERT INTO discussions (creator_id, title, description, tag, created_at) " +
+                "SELECT u.id, 'Feed ' || g, 'Body ' || g, 'Mechanical', " +
+                "now() + interval '1 hour' - g * interval '1 second' " +
+                "FROM generate_series(1, ?) g " +
+                "JOIN (SELECT id, row_number() OVER (ORDER BY id) - 1 AS n FROM users WHERE username LIKE ?) u " +
+                "ON u.n = g % ?",
+                DISCUSSIONS, prefix + "c%", CREATORS);
+        jdbcTemplate.update(
+                "INSERT INTO discussion_bookmarks (user_id, discussion_id, created_at) " +
+                "SELECT ?, s.id, s.created_at FROM (" +
+                "SELECT d.id, d.created_at, row_number() OVER (ORDER BY d.id) AS n FROM discussions d " +
+                "WHERE d.creator_id IN (SELECT id FROM users WHERE username LIKE ?)) s " +
+                "WHERE s.n % 10 = 0",
+                viewer.getId(), prefix + "c%");
+        newestId = jdbcTemplate.queryForObject(
+                "SELECT d.id FROM discussions d ORDER BY d.created_at DESC, d.id DESC LIMIT 1", Long.class);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void everyFeedPageIsOneStatement() {
+        int rows = 0;
+        for (int page = 0; page < PAGES; page++) {
+            int index = page;
+            Slice<DiscussionRepository.DiscussionFeedView> slice = timed("findFeed page", () ->
+                    discussionRepository.findFeed(viewer.getId(), PageRequest.of(index, PAGE_SIZE)));
+            assertThat(slice.getContent()).hasSize(PAGE_SIZE);
+            assertThat(slice.hasNext()).isTrue();
+            rows += slice.getNumberOfElements();
+        }
+
+        assertThat(rows).isEqualTo(PAGES * PAGE_SIZE);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(PAGES);
+    }
+
+    @Test
+    void feedItemIsOneStatement() {
+        Optional<DiscussionRepository.DiscussionFeedView> item = timed("findFeedItem",
+                () -> discussionRepository.findFeedItem(newestId, viewer.getId()));
+
+        assertThat(item).isPresent();
+        assertThat(item.get().getCreatorName()).startsWith("Creator ");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void savedFeedIsOneStatement() {
+        List<DiscussionRepository.DiscussionFeedView> saved = timed("findSavedFeed",
+                () -> discussionRepository.findSavedFeed(viewer.getId()));
+
+        assertThat(saved).hasSize(DISCUSSIONS / 10);
+        assertThat(saved).allMatch(DiscussionRepository.DiscussionFeedView::getSaved);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private static <T> T timed(String label, Supplier<T> call) {
+        long start = System.nanoTime();
+        T result = call.get();
+        System.out.printf("%-16s discussions=%,d  %.2f ms%n", label, DISCUSSIONS, (System.nanoTime() - start) / 1e6);
+        return result;
+    }
+}
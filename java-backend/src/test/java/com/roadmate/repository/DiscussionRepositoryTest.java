@@ -0,0 +1,118 @@
+package com.roadmate.repository;
+
+import com.roadmate.config.SearchSchemaInitializer;
+import com.roadmate.model.Discussion;
+import com.roadmate.model.User;
+import com.roadmate.util.SearchCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the native full-text queries against a real Postgres (tsvector, websearch_to_tsquery
+ * and generated columns have no embedded equivalent). Point ROADMATE_TEST_DB_URL,
+ * ROADMATE_TEST_DB_USER and ROADMATE_TEST_DB_PASSWORD at a scratch database to enable it;
+ * each test rolls back.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SearchSchemaInitializer.class)
+@EnabledIfEnvironmentVariable(named = "ROADMATE_TEST_DB_URL", matches = ".+")
+class DiscussionRepositoryTest {
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("ROADMATE_TEST_DB_URL"));
+        registry.add("spring.datasource.username", () -> System.getenv("ROADMATE_TEST_DB_USER"));
+        registry.add("spring.datasource.password", () -> System.getenv("ROADMATE_TEST_DB_PASSWORD"));
+    }
+
+    @Autowired
+    private DiscussionRepository discussionRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    // Unique per run so rows left in a shared scratch database never match
+    private String term;
+    private User creator;
+
+    @BeforeEach
+    void setUp() {
+        term = "rmtest" + Long.toString(System.nanoTime(), 36);
+        creator = entityManager.persist(User.builder()
+                .email(term + "@example.com")
+                .username(term)
+                .name("Test Nomad")
+                .build());
+    }
+
+    @Test
+    void titleMatchesOutrankDescriptionMatches() {
+        Discussion inDescription = persist("Solar panel wiring", "Question about " + term, "Electrical");
+        Discussion inTitle = persist("Help with " + term, "Anything helps", "Electrical");
+
+        List<SearchHit> hits = discussionRepository.search(term, "", SearchCursor.FIRST.rank(), SearchCursor.FIRST.id(), 10);
+
+        assertThat(hits).extracting(SearchHit::getId).containsExactly(inTitle.getId(), inDescription.getId());
+        assertThat(hits.get(0).getRank()).isGreaterThan(hits.get(1).getRank());
+    }
+
+    @Test
+    void keysetPagesCoverEveryMatchOnceAcrossRankTies() {
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expected.add(persist(term + " water pump", "Same text, same rank", "Plumbing").getId());
+        }
+        persist("Unrelated", "Nothing to see", "Plumbing");
+        expected.sort(Comparator.reverseOrder());
+
+        List<Long> seen = new ArrayList<>();
+        SearchCursor cursor = SearchCursor.FIRST;
+        for (int page = 0; page < 10; page++) {
+            List<SearchHit> hits = discussionRepository.search(term, "", cursor.rank(), cursor.id(), 2);
+            hits.forEach(hit -> seen.add(hit.getId()));
+            if (hits.size() < 2) break;
+            SearchHit last = hits.get(hits.size() - 1);
+            // Round-trip through the client encoding, as the controller does
+            cursor = SearchCursor.parse(new SearchCursor(last.getRank(), last.getId()).encode());
+        }
+
+        assertThat(seen).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void tagFilterRestrictsMatches() {
+        Discussion plumbing = persist(term + " leak", null, "Plumbing");
+        persist(term + " fuse", null, "Electrical");
+
+        List<SearchHit> hits = discussionRepository.search(term, "Plumbing", SearchCursor.FIRST.rank(), SearchCursor.FIRST.id(), 10);
+
+        assertThat(hits.stream().map(SearchHit::getId).collect(Collectors.toList())).containsExactly(plumbing.getId());
+    }
+
+    private Discussion persist(String title, String description, String tag) {
+        Discussion discussion = entityManager.persist(Discussion.builder()
+                .creator(creator)
+                .title(title)
+                .description(description)
+                .tag(tag)
+                .build());
+        entityManager.flush();
+        return discussion;
+    }
+}
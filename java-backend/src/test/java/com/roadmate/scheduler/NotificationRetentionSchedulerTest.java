@@ -0,0 +1,177 @@
+package com.roadmate.scheduler;
+
+import com.roadmate.service.UnreadCounterStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationRetentionSchedulerTest {
+
+    private static final int BATCH_SIZE = 100;
+
+    private record Statement(String sql, List<Object> args) {
+        Object arg(int index) {
+            return args.get(index);
+        }
+    }
+
+    private NotificationRetentionScheduler scheduler;
+    private JdbcTemplate jdbcTemplate;
+    private UnreadCounterStore unreadCounterStore;
+    private final List<Statement> statements = new ArrayList<>();
+    // Rows each DELETE reports; none by default
+    private ToIntFunction<Statement> rowsRemoved = statement -> 0;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        unreadCounterStore = mock(UnreadCounterStore.class);
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            Object[] arguments = invocation.getArguments();
+            Statement statement = new Statement(arguments[0].toString(),
+                    Arrays.asList(Arrays.copyOfRange(arguments, 1, arguments.length)));
+            statements.add(statement);
+            return rowsRemoved.applyAsInt(statement);
+        });
+
+        scheduler = new NotificationRetentionScheduler();
+        ReflectionTestUtils.setField(scheduler, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(scheduler, "unreadCounterStore", unreadCounterStore);
+        ReflectionTestUtils.setField(scheduler, "readDays", 30);
+        ReflectionTestUtils.setField(scheduler, "readDaysByType", "");
+        ReflectionTestUtils.setField(scheduler, "unreadDays", 0);
+        ReflectionTestUtils.setField(scheduler, "batchSize", BATCH_SIZE);
+        ReflectionTestUtils.setField(scheduler, "maxBatchesPerRun", 5);
+        ReflectionTestUtils.setField(scheduler, "archive", false);
+        ReflectionTestUtils.setField(scheduler, "archiveDays", 365);
+    }
+
+    @Test
+    void defaultsPurgeOnlyReadNotifications() {
+        run();
+
+        assertThat(statements).hasSize(1);
+        Statement statement = statements.get(0);
+        assertThat(statement.sql()).isEqualTo("DELETE FROM notifications WHERE id IN (" +
+                "SELECT id FROM notifications WHERE is_read = true AND created_at < ? LIMIT ?)");
+        assertThat(statement.args()).hasSize(2);
+        assertCutoff(statement.arg(0), 30);
+        assertThat(statement.arg(1)).isEqualTo(BATCH_SIZE);
+    }
+
+    @Test
+    void perTypeRetentionExcludesThoseTypesFromTheDefault() {
+        ReflectionTestUtils.setField(scheduler, "readDaysByType", " SOS_ALERT:7, MESSAGE:14,malformed ");
+
+        run();
+
+        assertThat(statements).hasSize(3);
+        assertThat(statements.get(0).sql()).contains("WHERE is_read = true AND type = ? AND created_at < ?");
+        assertThat(statements.get(0).arg(0)).isEqualTo("SOS_ALERT");
+        assertCutoff(statements.get(0).arg(1), 7);
+        assertThat(statements.get(1).arg(0)).isEqualTo("MESSAGE");
+        assertCutoff(statements.get(1).arg(1), 14);
+
+        Statement fallback = statements.get(2);
+        assertThat(fallback.sql()).contains("WHERE is_read = true AND type NOT IN (?, ?) AND created_at < ?");
+        assertThat(fallback.args().subList(0, 2)).containsExactly("SOS_ALERT", "MESSAGE");
+        assertCutoff(fallback.arg(2), 30);
+        assertThat(fallback.arg(3)).isEqualTo(BATCH_SIZE);
+    }
+
+    @Test
+    void unreadRetentionIsOptInAndResetsUnreadCounts() {
+        ReflectionTestUtils.setField(scheduler, "unreadDays", 90);
+        rowsRemoved = statement -> statement.sql().contains("is_read = false") ? 3 : 0;
+
+        run();
+
+        assertThat(statements).hasSize(2);
+        assertThat(statements.get(1).sql()).contains("WHERE is_read = false AND created_at < ?");
+        assertCutoff(statements.get(1).arg(0), 90);
+        verify(unreadCounterStore).invalidate(UnreadCounterStore.Kind.NOTIFICATIONS);
+    }
+
+    @Test
+    void purgingOnlyReadRowsLeavesUnreadCountsAlone() {
+        rowsRemoved = statement -> 10;
+
+        run();
+
+        verify(unreadCounterStore, never()).invalidate(any());
+    }
+
+    @Test
+    void fullChunksRepeatUpToTheRunLimit() {
+        rowsRemoved = statement -> BATCH_SIZE;
+
+        run();
+
+        assertThat(statements).hasSize(5);
+        assertThat(scheduler.stats()).containsEntry("purgedTotal", 5L * BATCH_SIZE).containsEntry("batches", 5L);
+    }
+
+    @Test
+    void aShortChunkEndsThePolicy() {
+        int[] calls = { 0 };
+        rowsRemoved = statement -> ++calls[0] < 3 ? BATCH_SIZE : 7;
+
+        run();
+
+        assertThat(statements).hasSize(3);
+        @SuppressWarnings("unchecked")
+        Map<String, Long> byPolicy = (Map<String, Long>) scheduler.stats().get("purgedByPolicy");
+        assertThat(byPolicy).containsEntry("*", 2L * BATCH_SIZE + 7);
+    }
+
+    @Test
+    void archiveModeMovesRowsAndCreatesTheTableOnce() {
+        ReflectionTestUtils.setField(scheduler, "archive", true);
+
+        run();
+        run();
+
+        assertThat(statements.get(0).sql()).isEqualTo(
+                "WITH moved AS (DELETE FROM notifications WHERE id IN (" +
+                "SELECT id FROM notifications WHERE is_read = true AND created_at < ? LIMIT ?) " +
+                "RETURNING id, user_id, sender_id, type, title, message, is_read, created_at, data, group_count) " +
+                "INSERT INTO notifications_archive (id, user_id, sender_id, type, title, message, is_read, created_at, data, group_count) " +
+                "SELECT id, user_id, sender_id, type, title, message, is_read, created_at, data, group_count FROM moved");
+        Statement trim = statements.get(1);
+        assertThat(trim.sql()).isEqualTo("DELETE FROM notifications_archive WHERE id IN " +
+                "(SELECT id FROM notifications_archive WHERE archived_at < ? LIMIT ?)");
+        assertCutoff(trim.arg(0), 365);
+        verify(jdbcTemplate, times(3)).execute(anyString());
+    }
+
+    private void run() {
+        scheduler.buildPolicies();
+        scheduler.purgeExpiredNotifications();
+    }
+
+    private static void assertCutoff(Object value, int days) {
+        assertThat(value).isInstanceOf(Timestamp.class);
+        LocalDateTime expected = LocalDateTime.now().minusDays(days);
+        assertThat(((Timestamp) value).toLocalDateTime()).isCloseTo(expected, within(1, ChronoUnit.MINUTES));
+    }
+}
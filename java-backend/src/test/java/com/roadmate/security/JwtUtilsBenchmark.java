@@ -0,0 +1,54 @@
+package com.roadmate.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cost of the per-request validate + extract step, with and without the
+ * verified-token cache. Opt-in: run with -Droadmate.benchmarks=true.
+ */
+@EnabledIfSystemProperty(named = "roadmate.benchmarks", matches = "true")
+class JwtUtilsBenchmark {
+
+    private static final int TOKENS = 1_000;
+    private static final int ROUNDS = 50;
+
+    @Test
+    void validateAndExtract() {
+        for (int cacheEntries : new int[] { 0, 10_000 }) {
+            JwtUtils utils = new JwtUtils();
+            ReflectionTestUtils.setField(utils, "jwtSecret", "benchmark-secret-benchmark-secret-benchmark-secret");
+            ReflectionTestUtils.setField(utils, "jwtExpirationMs", 3_600_000);
+            ReflectionTestUtils.setField(utils, "cacheMaxEntries", cacheEntries);
+            utils.init();
+
+            List<String> tokens = new ArrayList<>();
+            for (int i = 0; i < TOKENS; i++) {
+                tokens.add(utils.generateToken("nomad" + i + "@example.com"));
+            }
+
+            // Warm-up round fills the cache (when enabled) and compiles the hot path
+            for (int round = 0; round < 5; round++) {
+                for (String token : tokens) utils.getEmailFromValidToken(token);
+            }
+            long start = System.nanoTime();
+            int valid = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                for (String token : tokens) {
+                    if (utils.validateJwtToken(token) && utils.getEmailFromJwtToken(token) != null) valid++;
+                }
+            }
+            double nanos = (double) (System.nanoTime() - start) / ((long) ROUNDS * TOKENS);
+
+            assertThat(valid).isEqualTo(ROUNDS * TOKENS);
+            System.out.printf("JwtUtils validate+extract  cache=%-6s %,.0f ns/request%n",
+                    cacheEntries > 0 ? "on" : "off", nanos);
+        }
+    }
+}
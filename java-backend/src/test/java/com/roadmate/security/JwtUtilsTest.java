@@ -0,0 +1,117 @@
+package com.roadmate.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilsTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-test-secret";
+
+    // Clock the tests move by hand instead of sleeping
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private final MutableClock clock = new MutableClock();
+
+    private JwtUtils jwtUtils(int expirationMs, int maxEntries) {
+        JwtUtils utils = new JwtUtils();
+        utils.clock = clock;
+        ReflectionTestUtils.setField(utils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(utils, "jwtExpirationMs", expirationMs);
+        ReflectionTestUtils.setField(utils, "cacheMaxEntries", maxEntries);
+        utils.init();
+        return utils;
+    }
+
+    @Test
+    void repeatedValidationIsServedFromCache() {
+        JwtUtils utils = jwtUtils(60_000, 10);
+        String token = utils.generateToken("nomad@example.com");
+
+        assertThat(utils.getEmailFromValidToken(token)).isEqualTo("nomad@example.com");
+        assertThat(utils.getEmailFromValidToken(token)).isEqualTo("nomad@example.com");
+        assertThat(utils.validateJwtToken(token)).isTrue();
+
+        assertThat(utils.cacheStats())
+                .containsEntry("misses", 1L)
+                .containsEntry("hits", 2L)
+                .containsEntry("cachedTokens", 1);
+    }
+
+    @Test
+    void cachedTokenIsRejectedOnceItExpires() {
+        JwtUtils utils = jwtUtils(60_000, 10);
+        String token = utils.generateToken("nomad@example.com");
+
+        assertThat(utils.getEmailFromValidToken(token)).isEqualTo("nomad@example.com");
+        clock.advance(Duration.ofSeconds(59));
+        assertThat(utils.getEmailFromValidToken(token)).isEqualTo("nomad@example.com");
+        clock.advance(Duration.ofSeconds(2));
+
+        assertThat(utils.getEmailFromValidToken(token)).isNull();
+        assertThat(utils.validateJwtToken(token)).isFalse();
+        assertThat(utils.cacheStats())
+                .containsEntry("hits", 1L)
+                .containsEntry("cachedTokens", 0);
+    }
+
+    @Test
+    void tamperedTokenIsNeverCached() {
+        JwtUtils utils = jwtUtils(60_000, 10);
+        String token = utils.generateToken("nomad@example.com");
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThat(utils.getEmailFromValidToken(tampered)).isNull();
+        assertThat(utils.getEmailFromValidToken(tampered)).isNull();
+        assertThat(utils.cacheStats()).containsEntry("cachedTokens", 0);
+    }
+
+    @Test
+    void leastRecentlyUsedTokenIsEvictedAtCapacity() {
+        JwtUtils utils = jwtUtils(60_000, 2);
+        String first = utils.generateToken("a@example.com");
+        String second = utils.generateToken("b@example.com");
+        String third = utils.generateToken("c@example.com");
+
+        utils.getEmailFromValidToken(first);
+        utils.getEmailFromValidToken(second);
+        utils.getEmailFromValidToken(first);
+        utils.getEmailFromValidToken(third);
+        utils.getEmailFromValidToken(second);
+
+        // first hit once; second was evicted by third and had to be re-verified
+        assertThat(utils.cacheStats())
+                .containsEntry("hits", 1L)
+                .containsEntry("misses", 4L)
+                .containsEntry("cachedTokens", 2);
+    }
+}
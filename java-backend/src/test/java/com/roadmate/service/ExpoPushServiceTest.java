@@ -0,0 +1,136 @@
+package com.roadmate.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roadmate.repository.UserRepository;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExpoPushServiceTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int MAX_IN_FLIGHT = 2;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ExpoPushService service;
+    private JdbcTemplate jdbcTemplate;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxObservedInFlight = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final Set<String> ticketWriterThreads = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/push/send", this::handleSend);
+        // More server threads than the client limit, so any excess concurrency would show
+        serverExecutor = Executors.newFixedThreadPool(8);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        service = new ExpoPushService(base + "/push/send", base + "/push/getReceipts", MAX_IN_FLIGHT);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            ticketWriterThreads.add(Thread.currentThread().getName());
+            return new int[0];
+        });
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "userRepository", mock(UserRepository.class));
+    }
+
+    @AfterEach
+    void stopStub() {
+        service.shutdown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void concurrentBatchesNeverExceedMaxInFlight() throws Exception {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 10 * ExpoPushService.BATCH_SIZE; i++) {
+            tokens.add("ExponentPushToken[" + i + "]");
+        }
+
+        List<ExpoPushService.Ticket> tickets = service
+                .sendBatchPushNotifications(tokens, "SOS", "Help nearby", Map.of("type", "sos"))
+                .get(30, TimeUnit.SECONDS);
+
+        assertThat(requests.get()).isEqualTo(10);
+        assertThat(maxObservedInFlight.get()).isEqualTo(MAX_IN_FLIGHT);
+        assertThat(tickets).hasSize(tokens.size()).allMatch(ExpoPushService.Ticket::isOk);
+        assertThat(tickets.get(123).token()).isEqualTo(tokens.get(123));
+        assertThat(service.stats()).containsEntry("batchesSent", 10L).containsEntry("queuedBatches", 0);
+    }
+
+    @Test
+    void ticketsArePersistedOffTheHttpClientThreads() throws Exception {
+        service.sendBatchPushNotifications(List.of("ExponentPushToken[a]", "ExponentPushToken[b]"), "SOS", "Help", null)
+                .get(30, TimeUnit.SECONDS);
+
+        verify(jdbcTemplate, timeout(5_000)).batchUpdate(anyString(), anyList());
+        assertThat(ticketWriterThreads).containsExactly("expo-ticket-writer");
+    }
+
+    private void handleSend(HttpExchange exchange) throws IOException {
+        int now = inFlight.incrementAndGet();
+        maxObservedInFlight.accumulateAndGet(now, Math::max);
+        requests.incrementAndGet();
+        try {
+            JsonNode messages;
+            try (InputStream in = new GZIPInputStream(exchange.getRequestBody())) {
+                messages = objectMapper.readTree(in);
+            }
+            // Hold the request long enough for the client to try to overlap more of them
+            Thread.sleep(150);
+
+            StringBuilder body = new StringBuilder("{\"data\":[");
+            for (int i = 0; i < messages.size(); i++) {
+                if (i > 0) body.append(',');
+                body.append("{\"status\":\"ok\",\"id\":\"ticket-").append(messages.get(i).path("to").asText()).append("\"}");
+            }
+            body.append("]}");
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.roadmate.service;
+
+import com.roadmate.repository.UserRepository;
+import com.roadmate.util.GeoUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Nearest-20 latency of NomadLocationIndex against the SQL that
+ * UserRepository.findNearbyNomads issues, at 10k/100k/1M users.
+ *
+ * Opt-in: run with -Droadmate.benchmarks=true. The database half also needs
+ * ROADMATE_TEST_DB_URL/_USER/_PASSWORD; it works on a session-local TEMP table
+ * named users, which shadows the real one, so no application data is touched.
+ */
+@EnabledIfSystemProperty(named = "roadmate.benchmarks", matches = "true")
+class NomadLocationIndexBenchmark {
+
+    private static final int[] SIZES = { 10_000, 100_000, 1_000_000 };
+    private static final int QUERIES = 2_000;
+    private static final int DB_QUERIES = 200;
+    private static final int K = UserRepository.NEARBY_LIMIT;
+
+    @Test
+    void indexNearest() {
+        for (int size : SIZES) {
+            double[][] points = points(size);
+            NomadLocationIndex index = new NomadLocationIndex();
+            for (int i = 0; i < size; i++) {
+                index.update(i + 1, points[i][0], points[i][1]);
+            }
+            for (boolean sparse : new boolean[] { false, true }) {
+                double[][] queries = queries(QUERIES, sparse);
+                // Warm-up pass, then the measured one
+                for (double[] q : queries) index.nearest(q[0], q[1], K, null);
+                long start = System.nanoTime();
+                long found = 0;
+                for (double[] q : queries) {
+                    found += index.nearest(q[0], q[1], K, null).size();
+                }
+                double micros = (System.nanoTime() - start) / 1_000.0 / QUERIES;
+
+                assertThat(found).isEqualTo((long) QUERIES * K);
+                System.out.printf("NomadLocationIndex.nearest  users=%,d  %s  %.1f us/query%n",
+                        size, sparse ? "sparse" : "hub   ", micros);
+            }
+        }
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "ROADMATE_TEST_DB_URL", matches = ".+")
+    void nativeFindNearbyNomads() {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                System.getenv("ROADMATE_TEST_DB_URL"), System.getenv("ROADMATE_TEST_DB_USER"),
+                System.getenv("ROADMATE_TEST_DB_PASSWORD"), true);
+        try {
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            NamedParameterJdbcTemplate named = new NamedParameterJdbcTemplate(jdbc);
+            jdbc.execute("CREATE TEMP TABLE users (id bigint PRIMARY KEY, latitude double precision, longitude double precision)");
+            jdbc.execute("CREATE INDEX ON users (latitude, longitude)");
+
+            int loaded = 0;
+            for (int size : SIZES) {
+                double[][] points = points(size);
+                List<Object[]> rows = new ArrayList<>();
+                for (int i = loaded; i < size; i++) {
+                    rows.add(new Object[] { (long) i + 1, points[i][0], points[i][1] });
+                }
+                jdbc.batchUpdate("INSERT INTO users VALUES (?, ?, ?)", rows);
+                jdbc.execute("ANALYZE users");
+                loaded = size;
+
+                for (boolean sparse : new boolean[] { false, true }) {
+                    double[][] queries = queries(DB_QUERIES, sparse);
+                    for (int i = 0; i < 20; i++) nearest(named, queries[i][0], queries[i][1]);
+                    long start = System.nanoTime();
+                    for (double[] q : queries) {
+                        assertThat(nearest(named, q[0], q[1])).hasSize(K);
+                    }
+                    double micros = (System.nanoTime() - start) / 1_000.0 / DB_QUERIES;
+                    System.out.printf("findNearbyNomads (SQL)     users=%,d  %s  %.1f us/query%n",
+                            size, sparse ? "sparse" : "hub   ", micros);
+                }
+            }
+        } finally {
+            dataSource.destroy();
+        }
+    }
+
+    // Same escalation as UserRepository.findNearbyNomads: 50 km box, 500 km box, then the whole table
+    private static List<Long> nearest(NamedParameterJdbcTemplate named, double lat, double lng) {
+        for (double radiusKm : new double[] { 50, 500 }) {
+            GeoUtils.BoundingBox box = GeoUtils.boundingBox(lat, lng, radiusKm);
+            MapSqlParameterSource params = new MapSqlParameterSource("lat", lat).addValue("lng", lng)
+                    .addValue("minLat", box.minLat()).addValue("maxLat", box.maxLat())
+                    .addValue("minLng", box.minLng()).addValue("maxLng", box.maxLng());
+            List<double[]> rows = named.query("SELECT latitude, longitude, id, " + UserRepository.DISTANCE_SQL +
+                    " AS distance FROM users WHERE " + UserRepository.IN_BOX_SQL + "ORDER BY distance LIMIT " + K,
+                    params, (rs, n) -> new double[] { rs.getDouble("distance"), rs.getLong("id") });
+            if (rows.size() == K && rows.get(K - 1)[0] <= radiusKm) {
+                return rows.stream().map(r -> (long) r[1]).toList();
+            }
+        }
+        return named.query("SELECT id, " + UserRepository.DISTANCE_SQL + " AS distance FROM users " +
+                "ORDER BY distance LIMIT " + K,
+                new MapSqlParameterSource("lat", lat).addValue("lng", lng), (rs, n) -> rs.getLong("id"));
+    }
+
+    // Query points either near the hubs or anywhere on land-ish latitudes, where few users are
+    private static double[][] queries(int count, boolean sparse) {
+        if (!sparse) return points(count, 0, -count);
+        Random random = new Random(count);
+        double[][] queries = new double[count][];
+        for (int i = 0; i < count; i++) {
+            queries[i] = new double[] { random.nextDouble() * 140 - 70, random.nextDouble() * 360 - 180 };
+        }
+        return queries;
+    }
+
+    private static double[][] points(int count) {
+        return points(count, 10, count);
+    }
+
+    // Users clustered like real traffic: dense around a few hubs, with a sparse worldwide tail (1 in oneInSparse)
+    private static double[][] points(int count, int oneInSparse, long seed) {
+        double[][] hubs = { { 41.01, 28.97 }, { 36.89, 30.71 }, { 38.42, 27.14 }, { 48.85, 2.35 }, { 40.42, -3.70 } };
+        Random random = new Random(seed);
+        double[][] points = new double[count][];
+        for (int i = 0; i < count; i++) {
+            if (oneInSparse > 0 && random.nextInt(oneInSparse) == 0) {
+                points[i] = new double[] { random.nextDouble() * 140 - 70, random.nextDouble() * 360 - 180 };
+            } else {
+                double[] hub = hubs[random.nextInt(hubs.length)];
+                points[i] = new double[] { hub[0] + random.nextGaussian() * 1.5, hub[1] + random.nextGaussian() * 2 };
+            }
+        }
+        return points;
+    }
+}
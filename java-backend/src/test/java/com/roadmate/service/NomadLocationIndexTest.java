@@ -0,0 +1,121 @@
+package com.roadmate.service;
+
+import com.roadmate.util.GeoUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class NomadLocationIndexTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void nearestMatchesBruteForceAroundDenseCluster() {
+        NomadLocationIndex index = new NomadLocationIndex();
+        Random random = new Random(42);
+        List<double[]> points = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            double lat = 38 + random.nextDouble() * 4;
+            double lng = 26 + random.nextDouble() * 8;
+            points.add(new double[] { lat, lng });
+            index.update(i, lat, lng);
+        }
+
+        for (int q = 0; q < 50; q++) {
+            double lat = 38 + random.nextDouble() * 4;
+            double lng = 26 + random.nextDouble() * 8;
+            List<NomadLocationIndex.Neighbor> actual = index.nearest(lat, lng, 20, null);
+            assertSameDistances(actual, bruteForceNearest(points, lat, lng, 20, -1));
+        }
+    }
+
+    @Test
+    void nearestFallsBackToScanWhenNeighbourhoodIsEmpty() {
+        NomadLocationIndex index = new NomadLocationIndex();
+        // Both far beyond the ring budget (40 rings of 0.25 degrees) from the query point
+        index.update(1, -33.87, 151.21);
+        index.update(2, 51.51, -0.13);
+
+        List<NomadLocationIndex.Neighbor> nearest = index.nearest(41.01, 28.98, 1, null);
+
+        assertThat(nearest).extracting(NomadLocationIndex.Neighbor::userId).containsExactly(2L);
+    }
+
+    @Test
+    void nearestExcludesCallerAndFollowsMovesAndRemovals() {
+        NomadLocationIndex index = new NomadLocationIndex();
+        index.update(1, 41.00, 29.00);
+        index.update(2, 41.01, 29.01);
+        index.update(3, 41.50, 29.50);
+
+        assertThat(index.nearest(41.00, 29.00, 1, 1L))
+                .extracting(NomadLocationIndex.Neighbor::userId).containsExactly(2L);
+
+        index.update(3, 41.00, 29.001);
+        index.remove(2);
+
+        assertThat(index.nearest(41.00, 29.00, 2, 1L))
+                .extracting(NomadLocationIndex.Neighbor::userId).containsExactly(3L);
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void nearestWrapsAcrossAntimeridian() {
+        NomadLocationIndex index = new NomadLocationIndex();
+        index.update(1, 0, 179.95);
+        index.update(2, 0, 175.0);
+
+        assertThat(index.nearest(0, -179.95, 1, null))
+                .extracting(NomadLocationIndex.Neighbor::userId).containsExactly(1L);
+    }
+
+    @Test
+    void withinRadiusMatchesBruteForce() {
+        NomadLocationIndex index = new NomadLocationIndex();
+        Random random = new Random(7);
+        List<double[]> points = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            double lat = 36 + random.nextDouble() * 6;
+            double lng = 26 + random.nextDouble() * 10;
+            points.add(new double[] { lat, lng });
+            index.update(i, lat, lng);
+        }
+
+        for (double radiusKm : new double[] { 5, 50, 100, 2000 }) {
+            List<NomadLocationIndex.Neighbor> actual = index.withinRadius(39, 31, radiusKm, 0L);
+            List<Double> expected = new ArrayList<>();
+            for (int i = 1; i < points.size(); i++) {
+                double d = GeoUtils.haversineKm(39, 31, points.get(i)[0], points.get(i)[1]);
+                if (d <= radiusKm) expected.add(d);
+            }
+            expected.sort(Comparator.naturalOrder());
+            assertThat(actual).hasSize(expected.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertThat(actual.get(i).distanceKm()).isCloseTo(expected.get(i), offset(EPSILON));
+            }
+        }
+    }
+
+    private static List<Double> bruteForceNearest(List<double[]> points, double lat, double lng, int k, int exclude) {
+        List<Double> distances = new ArrayList<>();
+        for (int i = 0; i < points.size(); i++) {
+            if (i == exclude) continue;
+            distances.add(GeoUtils.haversineKm(lat, lng, points.get(i)[0], points.get(i)[1]));
+        }
+        distances.sort(Comparator.naturalOrder());
+        return distances.subList(0, Math.min(k, distances.size()));
+    }
+
+    private static void assertSameDistances(List<NomadLocationIndex.Neighbor> actual, List<Double> expected) {
+        assertThat(actual).hasSize(expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).distanceKm()).isCloseTo(expected.get(i), offset(EPSILON));
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.roadmate.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs PlaceAutocompleteService against a local stand-in for the Autocomplete
+ * endpoint. The stub answers with up to five known places whose name starts with
+ * the input or has a word starting with it, like Google's predictions.
+ */
+class PlaceAutocompleteServiceTest {
+
+    private static final List<String> KNOWN = List.of(
+            "Istanbul, Turkey",
+            "Istanbul Airport, Arnavutköy",
+            "Istasyon Caddesi, Eskisehir",
+            "Izmir, Turkey",
+            "Izmit, Kocaeli",
+            "Iznik, Bursa",
+            "Izmir Airport, Gaziemir",
+            "Izmir Clock Tower, Konak");
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private PlaceAutocompleteService service;
+    private final List<String> inputs = new CopyOnWriteArrayList<>();
+    private volatile boolean failing;
+    private volatile CountDownLatch release;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/autocomplete/json", this::handleAutocomplete);
+        serverExecutor = Executors.newFixedThreadPool(4);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        service = new PlaceAutocompleteService();
+        ReflectionTestUtils.setField(service, "googlePlacesApiKey", "test-key");
+        ReflectionTestUtils.setField(service, "baseUrl", "http://127.0.0.1:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(service, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(service, "maxEntries", 100);
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void concurrentIdenticalInputsMakeOneUpstreamCall() throws Exception {
+        release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<Map<String, Object>>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> service.suggest("  Izm ")));
+            }
+            // Hold the one upstream call until every caller has either joined it or is queued behind it
+            Thread.sleep(300);
+            release.countDown();
+            for (Future<List<Map<String, Object>>> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).extracting(s -> s.get("mainText"))
+                        .containsExactly("Izmir", "Izmit", "Izmir Airport", "Izmir Clock Tower");
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertThat(inputs).containsExactly("izm");
+        assertThat(service.stats()).containsEntry("upstreamCalls", 1L).containsEntry("coalesced", 7L);
+    }
+
+    @Test
+    void completePrefixAnswersItsExtensionsLocally() {
+        // Three predictions, under Google's five, so "ist" is complete
+        assertThat(service.suggest("Ist")).hasSize(3);
+
+        assertThat(service.suggest("istanb")).extracting(s -> s.get("description"))
+                .containsExactly("Istanbul, Turkey", "Istanbul Airport, Arnavutköy");
+        // Nothing cached matches, which does not prove Google has nothing, so it is asked
+        assertThat(service.suggest("ist airport")).isEmpty();
+
+        assertThat(inputs).containsExactly("ist", "ist airport");
+        assertThat(service.stats()).containsEntry("trieHits", 1L);
+    }
+
+    @Test
+    void truncatedPrefixIsNotUsedForExtensions() {
+        // Five predictions: Google may have left some out, so "iz" answers only itself
+        assertThat(service.suggest("iz")).hasSize(5);
+        service.suggest("izmi");
+
+        assertThat(inputs).containsExactly("iz", "izmi");
+        assertThat(service.stats()).containsEntry("trieHits", 0L);
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        failing = true;
+        assertThat(service.suggest("istanbul")).isEmpty();
+
+        failing = false;
+        assertThat(service.suggest("istanbul")).hasSize(2);
+        assertThat(service.suggest("istanbul")).hasSize(2);
+
+        assertThat(inputs).containsExactly("istanbul", "istanbul");
+        assertThat(service.stats()).containsEntry("upstreamErrors", 1L).containsEntry("cacheHits", 1L);
+    }
+
+    @Test
+    void evictionPrunesTheTrie() {
+        ReflectionTestUtils.setField(service, "maxEntries", 1);
+        service.suggest("ist");
+        service.suggest("izmit");
+
+        // "ist" was evicted from the LRU, so its branch is gone and extensions go upstream
+        assertThat(rootChildren()).containsOnlyKeys('i');
+        Map<Character, ?> afterI = children(rootChildren().get('i'));
+        assertThat(afterI).containsOnlyKeys('z');
+        service.suggest("istanb");
+
+        assertThat(inputs).containsExactly("ist", "izmit", "istanb");
+        assertThat(service.stats()).containsEntry("evicted", 2L).containsEntry("trieHits", 0L);
+    }
+
+    private Map<Character, ?> rootChildren() {
+        return children(ReflectionTestUtils.getField(service, "root"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Character, ?> children(Object node) {
+        return (Map<Character, ?>) ReflectionTestUtils.getField(node, "children");
+    }
+
+    private void handleAutocomplete(HttpExchange exchange) throws IOException {
+        String input = "";
+        for (String pair : exchange.getRequestURI().getRawQuery().split("&")) {
+            if (pair.startsWith("input=")) {
+                input = URLDecoder.decode(pair.substring(6), StandardCharsets.UTF_8);
+            }
+        }
+        inputs.add(input);
+        CountDownLatch gate = release;
+        if (gate != null) {
+            try {
+                gate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        String body;
+        if (failing) {
+            body = "{\"status\":\"OVER_QUERY_LIMIT\",\"error_message\":\"quota\",\"predictions\":[]}";
+        } else {
+            List<String> predictions = new ArrayList<>();
+            for (String place : KNOWN) {
+                String text = PlaceAutocompleteService.normalize(place).replace(",", "");
+                if (predictions.size() < 5 && (text.startsWith(input) || text.contains(" " + input))) {
+                    int comma = place.indexOf(',');
+                    predictions.add("{\"place_id\":\"" + predictions.size() + "\",\"description\":\"" + place + "\","
+                            + "\"structured_formatting\":{\"main_text\":\"" + place.substring(0, comma) + "\","
+                            + "\"secondary_text\":\"" + place.substring(comma + 2) + "\"}}");
+                }
+            }
+            body = "{\"status\":\"" + (predictions.isEmpty() ? "ZERO_RESULTS" : "OK") + "\","
+                    + "\"predictions\":[" + String.join(",", predictions) + "]}";
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
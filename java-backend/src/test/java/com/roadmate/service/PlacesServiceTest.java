@@ -0,0 +1,245 @@
+package com.roadmate.service;
+
+import com.roadmate.util.GeoHash;
+import com.roadmate.util.GeoUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+/**
+ * Runs PlacesService against a local stand-in for the Nearby Search endpoint.
+ * The stub returns the known places inside the requested circle in list order
+ * (standing in for prominence), capped at the API's page size.
+ */
+class PlacesServiceTest {
+
+    private record StubPlace(String name, double lat, double lng) {
+    }
+
+    private record NearbyRequest(double lat, double lng, int radius) {
+    }
+
+    private HttpServer server;
+    private PlacesService service;
+    private final List<StubPlace> known = new CopyOnWriteArrayList<>();
+    private final List<NearbyRequest> requests = new CopyOnWriteArrayList<>();
+    private volatile boolean failing;
+    private volatile long delayMillis;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/nearbysearch/json", this::handleNearby);
+        server.start();
+
+        service = new PlacesService();
+        ReflectionTestUtils.setField(service, "googlePlacesApiKey", "test-key");
+        ReflectionTestUtils.setField(service, "baseUrl", "http://127.0.0.1:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(service, "cacheTtlMinutes", 10L);
+        ReflectionTestUtils.setField(service, "cacheMaxEntries", 100);
+        ReflectionTestUtils.invokeMethod(service, "init");
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    void callersInSameTileShareOneUpstreamCall() {
+        known.add(new StubPlace("Garage A", 41.010, 28.970));
+        known.add(new StubPlace("Garage B", 41.030, 29.000));
+        known.add(new StubPlace("Far Garage", 41.300, 29.400));
+        GeoHash.Tile tile = tileFor(41.012, 28.975, 10_000);
+
+        List<Map<String, Object>> first = service.findNearby("mechanics", 41.012, 28.975, 10_000);
+        List<Map<String, Object>> second = service.findNearby("mechanics", tile.centerLat(), tile.centerLng(), 10_000);
+
+        assertThat(requests).hasSize(1);
+        assertThat(requests.get(0).lat()).isEqualTo(tile.centerLat(), offset(1e-5));
+        assertThat(first).extracting(p -> p.get("name")).containsExactly("Garage A", "Garage B");
+        assertThat(second).extracting(p -> p.get("name")).doesNotContain("Far Garage");
+        assertThat(service.stats()).containsEntry("hits", 1L).containsEntry("misses", 1L);
+    }
+
+    @Test
+    void widenedTileQueryCoversCallerAtTileCorner() {
+        GeoHash.Tile tile = tileFor(41.012, 28.975, 10_000);
+        // Caller in the tile's corner; the place is 9 km further out, beyond the tile center's 10 km
+        double callerLat = tile.maxLat() - 0.0001;
+        double callerLng = tile.maxLng() - 0.0001;
+        known.add(new StubPlace("Corner Market", callerLat + 0.081, callerLng));
+        assertThat(GeoUtils.haversineKm(tile.centerLat(), tile.centerLng(), callerLat + 0.081, callerLng)).isGreaterThan(10);
+
+        List<Map<String, Object>> nearby = service.findNearby("markets", callerLat, callerLng, 10_000);
+
+        assertThat(nearby).extracting(p -> p.get("name")).containsExactly("Corner Market");
+    }
+
+    @Test
+    void denseTileCallersAreServedFromACachedFinerTile() {
+        GeoHash.Tile tile = tileFor(41.012, 28.975, 10_000);
+        // 20 prominent places south of the tile fill the widened page but are out of the caller's 10 km
+        for (int i = 0; i < PlacesService.API_PAGE_SIZE; i++) {
+            known.add(new StubPlace("South " + i, tile.centerLat() - 0.08 - i * 0.0001, tile.centerLng()));
+        }
+        double callerLat = tile.maxLat() - 0.0001;
+        double callerLng = tile.maxLng() - 0.0001;
+        assertThat(GeoUtils.haversineKm(callerLat, callerLng, tile.centerLat() - 0.08, tile.centerLng())).isGreaterThan(10);
+        known.add(new StubPlace("Next Door", callerLat, callerLng + 0.001));
+
+        List<Map<String, Object>> first = service.findNearby("fuel", callerLat, callerLng, 10_000);
+        List<Map<String, Object>> second = service.findNearby("fuel", callerLat, callerLng, 10_000);
+
+        assertThat(first).extracting(p -> p.get("name")).containsExactly("Next Door");
+        assertThat(second).extracting(p -> p.get("name")).containsExactly("Next Door");
+        // Tile fetch, then one fetch for the caller's block; the second caller hits both cache entries
+        GeoHash.Tile block = blockFor(callerLat, callerLng, 10_000);
+        assertThat(requests).hasSize(2);
+        assertThat(requests.get(1).lat()).isEqualTo(block.centerLat(), offset(1e-5));
+        assertThat(requests.get(1).lng()).isEqualTo(block.centerLng(), offset(1e-5));
+        assertThat(requests.get(1).radius()).isBetween(10_000, 10_200);
+        assertThat(service.stats()).containsEntry("truncatedTiles", 1L)
+                .containsEntry("directFetches", 1L).containsEntry("directHits", 1L);
+    }
+
+    @Test
+    void denseTileCallersInDifferentBlocksEachFetchTheirOwn() {
+        GeoHash.Tile tile = tileFor(41.012, 28.975, 10_000);
+        for (int i = 0; i < PlacesService.API_PAGE_SIZE; i++) {
+            known.add(new StubPlace("Station " + i, tile.centerLat() + i * 0.0001, tile.centerLng()));
+        }
+        GeoHash.Tile block = blockFor(tile.centerLat(), tile.centerLng(), 10_000);
+        double otherLat = block.maxLat() + 0.002;
+
+        service.findNearby("fuel", tile.centerLat(), tile.centerLng(), 10_000);
+        service.findNearby("fuel", otherLat, tile.centerLng(), 10_000);
+
+        // One tile fetch and one per block
+        assertThat(requests).hasSize(3);
+        assertThat(service.stats()).containsEntry("truncatedTiles", 1L).containsEntry("directFetches", 2L);
+    }
+
+    @Test
+    void concurrentMissesShareOneUpstreamCall() throws Exception {
+        known.add(new StubPlace("Garage A", 41.010, 28.970));
+        delayMillis = 300;
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<Map<String, Object>>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> service.findNearby("mechanics", 41.012, 28.975, 10_000)));
+            }
+            for (Future<List<Map<String, Object>>> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).extracting(p -> p.get("name")).containsExactly("Garage A");
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertThat(requests).hasSize(1);
+    }
+
+    @Test
+    void maximumRadiusIsFetchedOncePerBlock() {
+        known.add(new StubPlace("Edge Garage", 41.012 + 0.44, 28.975));
+        GeoHash.Tile block = blockFor(41.012, 28.975, PlacesService.MAX_RADIUS_METERS);
+
+        List<Map<String, Object>> nearby = service.findNearby("mechanics", 41.012, 28.975, PlacesService.MAX_RADIUS_METERS);
+        service.findNearby("mechanics", block.centerLat(), block.centerLng(), PlacesService.MAX_RADIUS_METERS);
+
+        assertThat(nearby).extracting(p -> p.get("name")).containsExactly("Edge Garage");
+        // Already at the API limit, so the block is not widened
+        assertThat(requests).hasSize(1)
+                .allMatch(r -> isAt(r, block.centerLat(), block.centerLng(), PlacesService.MAX_RADIUS_METERS));
+        assertThat(service.stats()).containsEntry("cachedTiles", 1).containsEntry("directHits", 1L);
+    }
+
+    @Test
+    void upstreamErrorsAreNotCached() {
+        known.add(new StubPlace("Garage A", 41.010, 28.970));
+        failing = true;
+        assertThat(service.findNearby("mechanics", 41.012, 28.975, 10_000)).isEmpty();
+
+        failing = false;
+        assertThat(service.findNearby("mechanics", 41.012, 28.975, 10_000)).hasSize(1);
+        assertThat(requests).hasSize(2);
+        assertThat(service.stats()).containsEntry("upstreamErrors", 1L);
+    }
+
+    // The URL carries coordinates to six decimals
+    private static boolean isAt(NearbyRequest request, double lat, double lng, int radius) {
+        return Math.abs(request.lat() - lat) < 1e-6 && Math.abs(request.lng() - lng) < 1e-6 && request.radius() == radius;
+    }
+
+    private static GeoHash.Tile tileFor(double lat, double lng, int radiusMeters) {
+        return GeoHash.tile(lat, lng, GeoHash.precisionFor(radiusMeters / 1000.0 / 2));
+    }
+
+    private static GeoHash.Tile blockFor(double lat, double lng, int radiusMeters) {
+        return GeoHash.tile(lat, lng, GeoHash.precisionFor(radiusMeters / 1000.0 / 20));
+    }
+
+    private void handleNearby(HttpExchange exchange) throws IOException {
+        Map<String, String> query = new HashMap<>();
+        for (String pair : exchange.getRequestURI().getRawQuery().split("&")) {
+            int eq = pair.indexOf('=');
+            query.put(pair.substring(0, eq), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        String[] location = query.get("location").split(",");
+        NearbyRequest request = new NearbyRequest(
+                Double.parseDouble(location[0]), Double.parseDouble(location[1]), Integer.parseInt(query.get("radius")));
+        requests.add(request);
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        String body;
+        if (failing) {
+            body = "{\"status\":\"OVER_QUERY_LIMIT\",\"error_message\":\"quota\",\"results\":[]}";
+        } else {
+            List<String> results = new ArrayList<>();
+            for (StubPlace place : known) {
+                if (GeoUtils.haversineKm(request.lat(), request.lng(), place.lat(), place.lng()) * 1000 > request.radius()) continue;
+                results.add(String.format(Locale.US,
+                        "{\"place_id\":\"%s\",\"name\":\"%s\",\"geometry\":{\"location\":{\"lat\":%f,\"lng\":%f}},\"vicinity\":\"\"}",
+                        place.name().replace(' ', '-'), place.name(), place.lat(), place.lng()));
+            }
+            boolean more = results.size() > PlacesService.API_PAGE_SIZE;
+            List<String> page = more ? results.subList(0, PlacesService.API_PAGE_SIZE) : results;
+            body = "{\"status\":\"" + (page.isEmpty() ? "ZERO_RESULTS" : "OK") + "\","
+                    + (more ? "\"next_page_token\":\"next\"," : "")
+                    + "\"results\":[" + String.join(",", page) + "]}";
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
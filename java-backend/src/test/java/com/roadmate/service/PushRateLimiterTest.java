@@ -0,0 +1,59 @@
+package com.roadmate.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PushRateLimiterTest {
+
+    @Test
+    void allowsBurstThenLimits() {
+        // Negligible refill so the test does not depend on timing
+        PushRateLimiter limiter = new PushRateLimiter(3, 0.001);
+
+        assertThat(limiter.tryAcquire(1)).isTrue();
+        assertThat(limiter.tryAcquire(1)).isTrue();
+        assertThat(limiter.tryAcquire(1)).isTrue();
+        assertThat(limiter.tryAcquire(1)).isFalse();
+
+        assertThat(limiter.stats())
+                .containsEntry("allowed", 3L)
+                .containsEntry("limited", 1L);
+    }
+
+    @Test
+    void bucketsArePerRecipient() {
+        PushRateLimiter limiter = new PushRateLimiter(1, 0.001);
+
+        assertThat(limiter.tryAcquire(1)).isTrue();
+        assertThat(limiter.tryAcquire(1)).isFalse();
+        assertThat(limiter.tryAcquire(2)).isTrue();
+        assertThat(limiter.stats()).containsEntry("trackedRecipients", 2);
+    }
+
+    @Test
+    void refillsOverTime() throws InterruptedException {
+        // 1200 a minute = one token every 50 ms
+        PushRateLimiter limiter = new PushRateLimiter(1, 1200);
+
+        assertThat(limiter.tryAcquire(1)).isTrue();
+        assertThat(limiter.tryAcquire(1)).isFalse();
+        Thread.sleep(120);
+        assertThat(limiter.tryAcquire(1)).isTrue();
+    }
+
+    @Test
+    void evictIdleDropsOnlyFullBuckets() throws InterruptedException {
+        PushRateLimiter limiter = new PushRateLimiter(2, 1200);
+        PushRateLimiter slow = new PushRateLimiter(2, 0.001);
+
+        limiter.tryAcquire(1);
+        slow.tryAcquire(1);
+        Thread.sleep(120);
+        limiter.evictIdle();
+        slow.evictIdle();
+
+        assertThat(limiter.stats()).containsEntry("trackedRecipients", 0);
+        assertThat(slow.stats()).containsEntry("trackedRecipients", 1);
+    }
+}
@@ -0,0 +1,160 @@
+package com.roadmate.service;
+
+import com.roadmate.repository.MessageRepository;
+import com.roadmate.repository.NotificationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static com.roadmate.service.UnreadCounterStore.Kind.MESSAGES;
+import static com.roadmate.service.UnreadCounterStore.Kind.NOTIFICATIONS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UnreadCounterStoreTest {
+
+    private UnreadCounterStore store;
+    private MessageRepository messageRepository;
+    private NotificationRepository notificationRepository;
+
+    @BeforeEach
+    void setUp() {
+        messageRepository = mock(MessageRepository.class);
+        notificationRepository = mock(NotificationRepository.class);
+        store = new UnreadCounterStore();
+        ReflectionTestUtils.setField(store, "messageRepository", messageRepository);
+        ReflectionTestUtils.setField(store, "notificationRepository", notificationRepository);
+        ReflectionTestUtils.setField(store, "idleEvictionMinutes", 30L);
+    }
+
+    @AfterEach
+    void clearTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void seedsOnceFromTheDatabaseThenServesFromMemory() {
+        when(messageRepository.countUnreadMessages(1L)).thenReturn(4L);
+
+        assertThat(store.get(MESSAGES, 1L)).isEqualTo(4);
+        assertThat(store.get(MESSAGES, 1L)).isEqualTo(4);
+
+        verify(messageRepository, times(1)).countUnreadMessages(1L);
+        assertThat(store.stats()).containsEntry("seeds", 1L).containsEntry("hits", 1L);
+    }
+
+    @Test
+    void changesOutsideATransactionApplyImmediately() {
+        when(notificationRepository.countUnread(1L)).thenReturn(2L);
+        store.get(NOTIFICATIONS, 1L);
+
+        store.add(NOTIFICATIONS, 1L, 3);
+        assertThat(store.get(NOTIFICATIONS, 1L)).isEqualTo(5);
+
+        store.add(NOTIFICATIONS, 1L, -10);
+        assertThat(store.get(NOTIFICATIONS, 1L)).isZero();
+    }
+
+    @Test
+    void changesInsideATransactionWaitForCommit() {
+        when(messageRepository.countUnreadMessages(1L)).thenReturn(2L);
+        store.get(MESSAGES, 1L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        store.add(MESSAGES, 1L, 1);
+        store.add(MESSAGES, 1L, 1);
+        assertThat(store.get(MESSAGES, 1L)).isEqualTo(2);
+
+        commit();
+        assertThat(store.get(MESSAGES, 1L)).isEqualTo(4);
+    }
+
+    @Test
+    void changesInsideARolledBackTransactionAreDropped() {
+        when(messageRepository.countUnreadMessages(1L)).thenReturn(2L);
+        store.get(MESSAGES, 1L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        store.reset(MESSAGES, 1L);
+        rollback();
+
+        assertThat(store.get(MESSAGES, 1L)).isEqualTo(2);
+    }
+
+    @Test
+    void changesForUnseededUsersAreIgnored() {
+        when(notificationRepository.countUnread(1L)).thenReturn(7L);
+
+        store.add(NOTIFICATIONS, 1L, 1);
+        store.reset(NOTIFICATIONS, 1L);
+
+        // The seed already includes whatever those writes did
+        assertThat(store.get(NOTIFICATIONS, 1L)).isEqualTo(7);
+    }
+
+    @Test
+    void reconcileCorrectsDriftAndCountsMissingUsersAsZero() {
+        when(messageRepository.countUnreadMessages(anyLong())).thenReturn(5L);
+        store.get(MESSAGES, 1L);
+        store.get(MESSAGES, 2L);
+        store.get(MESSAGES, 3L);
+        when(messageRepository.countUnreadByReceivers(anyCollection()))
+                .thenReturn(List.of(new Object[] { 1L, 5L }, new Object[] { 2L, 8L }));
+
+        store.reconcile();
+
+        assertThat(store.get(MESSAGES, 1L)).isEqualTo(5);
+        assertThat(store.get(MESSAGES, 2L)).isEqualTo(8);
+        assertThat(store.get(MESSAGES, 3L)).isZero();
+        assertThat(store.stats()).containsEntry("corrections", 2L);
+        verify(notificationRepository, never()).countUnreadByUsers(anyCollection());
+    }
+
+    @Test
+    void reconcileEvictsUsersWhoStoppedPolling() {
+        ReflectionTestUtils.setField(store, "idleEvictionMinutes", -1L);
+        when(notificationRepository.countUnread(1L)).thenReturn(1L);
+        store.get(NOTIFICATIONS, 1L);
+
+        store.reconcile();
+
+        assertThat(store.stats()).containsEntry("notificationUsers", 0).containsEntry("evictions", 1L);
+        verify(notificationRepository, never()).countUnreadByUsers(anyCollection());
+    }
+
+    @Test
+    void invalidateForcesAReseed() {
+        when(notificationRepository.countUnread(1L)).thenReturn(3L, 9L);
+        store.get(NOTIFICATIONS, 1L);
+
+        store.invalidate(NOTIFICATIONS);
+
+        assertThat(store.get(NOTIFICATIONS, 1L)).isEqualTo(9);
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+
+    private static void rollback() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    }
+}
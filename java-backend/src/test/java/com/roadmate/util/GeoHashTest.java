@@ -0,0 +1,54 @@
+package com.roadmate.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class GeoHashTest {
+
+    @Test
+    void encodesKnownHash() {
+        assertThat(GeoHash.tile(57.64911, 10.40744, 9).hash()).isEqualTo("u4pruydqq");
+        assertThat(GeoHash.tile(42.605, -5.603, 5).hash()).isEqualTo("ezs42");
+    }
+
+    @Test
+    void tileContainsThePointAndPrefixesNest() {
+        GeoHash.Tile coarse = GeoHash.tile(36.8969, 30.7133, 4);
+        GeoHash.Tile fine = GeoHash.tile(36.8969, 30.7133, 7);
+
+        assertThat(fine.hash()).startsWith(coarse.hash());
+        assertThat(fine.minLat()).isLessThanOrEqualTo(36.8969);
+        assertThat(fine.maxLat()).isGreaterThan(36.8969);
+        assertThat(fine.minLng()).isLessThanOrEqualTo(30.7133);
+        assertThat(fine.maxLng()).isGreaterThan(30.7133);
+        assertThat(fine.centerLat()).isBetween(fine.minLat(), fine.maxLat());
+    }
+
+    @Test
+    void nearbyPointsShareATileAndDistantOnesDoNot() {
+        assertThat(GeoHash.tile(41.0100, 28.9700, 5).hash()).isEqualTo(GeoHash.tile(41.0150, 28.9750, 5).hash());
+        assertThat(GeoHash.tile(41.0100, 28.9700, 5).hash()).isNotEqualTo(GeoHash.tile(39.9334, 32.8597, 5).hash());
+    }
+
+    @Test
+    void maxTileSideMatchesTileBoundsAtEquator() {
+        for (int precision = 1; precision <= GeoHash.MAX_PRECISION; precision++) {
+            GeoHash.Tile tile = GeoHash.tile(0.0001, 0.0001, precision);
+            double widthKm = GeoUtils.haversineKm(0, tile.minLng(), 0, tile.maxLng());
+            double heightKm = GeoUtils.haversineKm(tile.minLat(), 0, tile.maxLat(), 0);
+            assertThat(GeoHash.maxTileSideKm(precision)).isCloseTo(Math.max(widthKm, heightKm), within(0.001));
+        }
+    }
+
+    @Test
+    void precisionForPicksCoarsestTileNoWiderThanRequested() {
+        for (double sideKm : new double[] { 0.5, 2.5, 5, 25, 100 }) {
+            int precision = GeoHash.precisionFor(sideKm);
+            assertThat(GeoHash.maxTileSideKm(precision)).isLessThanOrEqualTo(sideKm);
+            assertThat(GeoHash.maxTileSideKm(precision - 1)).isGreaterThan(sideKm);
+        }
+        assertThat(GeoHash.precisionFor(0.0001)).isEqualTo(GeoHash.MAX_PRECISION);
+    }
+}
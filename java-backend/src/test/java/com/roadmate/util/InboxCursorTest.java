@@ -0,0 +1,40 @@
+package com.roadmate.util;
+
+import com.roadmate.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InboxCursorTest {
+
+    @Test
+    void roundTripsAtMicrosecondPrecision() {
+        InboxCursor cursor = new InboxCursor(LocalDateTime.of(2026, 3, 14, 15, 9, 26, 535_897_000), 42);
+
+        assertThat(cursor.encode()).isEqualTo("1773500966535897:42");
+        assertThat(InboxCursor.parse(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void roundTripsBeforeTheEpoch() {
+        InboxCursor cursor = new InboxCursor(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000), 7);
+
+        assertThat(InboxCursor.parse(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void blankStartsAtTheTop() {
+        assertThat(InboxCursor.parse(null)).isNull();
+        assertThat(InboxCursor.parse(" ")).isNull();
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertThatThrownBy(() -> InboxCursor.parse("42")).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> InboxCursor.parse("abc:42")).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> InboxCursor.parse("1773500966535897:")).isInstanceOf(BadRequestException.class);
+    }
+}
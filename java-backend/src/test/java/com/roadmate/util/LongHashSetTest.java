@@ -0,0 +1,73 @@
+package com.roadmate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongHashSetTest {
+
+    @Test
+    void addReportsDuplicatesAndTracksSize() {
+        LongHashSet set = new LongHashSet(4);
+
+        assertThat(set.isEmpty()).isTrue();
+        assertThat(set.add(7)).isTrue();
+        assertThat(set.add(7)).isFalse();
+        assertThat(set.add(-7)).isTrue();
+        assertThat(set.size()).isEqualTo(2);
+        assertThat(set.contains(7)).isTrue();
+        assertThat(set.contains(8)).isFalse();
+    }
+
+    @Test
+    void zeroIsStoredSeparatelyFromFreeSlots() {
+        LongHashSet set = new LongHashSet(2);
+
+        assertThat(set.contains(0)).isFalse();
+        assertThat(set.add(0)).isTrue();
+        assertThat(set.add(0)).isFalse();
+        assertThat(set.contains(0)).isTrue();
+        assertThat(set.size()).isEqualTo(1);
+        assertThat(set.toArray()).containsExactly(0L);
+    }
+
+    @Test
+    void growsPastInitialCapacityAndMatchesHashSet() {
+        LongHashSet set = new LongHashSet(1);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(11);
+
+        for (int i = 0; i < 10_000; i++) {
+            // Narrow range forces duplicates and collisions
+            long value = random.nextInt(5_000) - 100;
+            assertThat(set.add(value)).isEqualTo(expected.add(value));
+        }
+
+        assertThat(set.size()).isEqualTo(expected.size());
+        for (long probe = -200; probe < 5_100; probe++) {
+            assertThat(set.contains(probe)).isEqualTo(expected.contains(probe));
+        }
+        assertThat(set.toArray()).hasSize(expected.size());
+        for (long value : set.toArray()) {
+            assertThat(expected).contains(value);
+        }
+    }
+
+    @Test
+    void keysSharingLowBitsAreAllFound() {
+        LongHashSet set = new LongHashSet(1024);
+        for (long id = 1; id <= 1024; id++) {
+            set.add(id * 1024);
+        }
+
+        assertThat(set.size()).isEqualTo(1024);
+        for (long id = 1; id <= 1024; id++) {
+            assertThat(set.contains(id * 1024)).isTrue();
+            assertThat(set.contains(id * 1024 + 1)).isFalse();
+        }
+    }
+}
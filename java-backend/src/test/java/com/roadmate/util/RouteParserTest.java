@@ -0,0 +1,57 @@
+package com.roadmate.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteParserTest {
+
+    @Test
+    void splitsOnEverySupportedSeparator() {
+        assertThat(RouteParser.places("Istanbul → Ankara → Antalya")).containsExactly("Istanbul", "Ankara", "Antalya");
+        assertThat(RouteParser.places("Izmir -> Kaş")).containsExactly("Izmir", "Kaş");
+        assertThat(RouteParser.places("Izmir - Kaş")).containsExactly("Izmir", "Kaş");
+        assertThat(RouteParser.places("Bursa > Bodrum")).containsExactly("Bursa", "Bodrum");
+        assertThat(RouteParser.places("Fethiye » Olympos")).containsExactly("Fethiye", "Olympos");
+    }
+
+    @Test
+    void hyphenatedNameWithoutSpacesIsOnePlace() {
+        assertThat(RouteParser.places("Emirdağ-Afyon")).containsExactly("Emirdağ-Afyon");
+        assertThat(RouteParser.places("  Cappadocia ")).containsExactly("Cappadocia");
+    }
+
+    @Test
+    void blankPartsAreDropped() {
+        assertThat(RouteParser.places("Istanbul →  → Antalya →")).containsExactly("Istanbul", "Antalya");
+        assertThat(RouteParser.places("   ")).isEmpty();
+        assertThat(RouteParser.places(null)).isEmpty();
+    }
+
+    @Test
+    void destinationIsLastPlace() {
+        assertThat(RouteParser.destination("Istanbul → Antalya")).isEqualTo("Antalya");
+        assertThat(RouteParser.destination("Antalya")).isEqualTo("Antalya");
+        assertThat(RouteParser.destination("")).isNull();
+    }
+
+    @Test
+    void normalizeFoldsCaseAndTurkishLetters() {
+        assertThat(RouteParser.normalize("İstanbul")).isEqualTo("istanbul");
+        assertThat(RouteParser.normalize("ISTANBUL")).isEqualTo("istanbul");
+        assertThat(RouteParser.normalize("Kırşehir")).isEqualTo("kirsehir");
+        assertThat(RouteParser.normalize("Çeşme, Ölüdeniz")).isEqualTo("cesme oludeniz");
+        assertThat(RouteParser.normalize("  Ağrı   Dağı! ")).isEqualTo("agri dagi");
+    }
+
+    @Test
+    void normalizeReturnsNullWhenNothingIndexableRemains() {
+        assertThat(RouteParser.normalize("--- !!")).isNull();
+        assertThat(RouteParser.normalize(null)).isNull();
+    }
+
+    @Test
+    void normalizeTruncatesLongTokens() {
+        assertThat(RouteParser.normalize("a".repeat(500))).hasSize(RouteParser.MAX_TOKEN_LENGTH);
+    }
+}